@@ -74,7 +74,7 @@ public class Main {
             switch (u) {
                 case ProfessionnelSante pro -> {
                     MenuInterface menu = new ProfessionelUI(
-                            sc, pro, patientService, consultationService, dataService);
+                            sc, pro, patientService, consultationService, adminService, dataService);
                     menu.afficherMenu();
                 }
                 case Administrateur admin -> {
@@ -92,6 +92,12 @@ public class Main {
     }
 
     private static void initializationSysteme() {
+        // Statistiques tenues à jour au fil des créations / suppressions de comptes
+        adminService.ajouterListener(statsService);
+
+        // Textes libres (observations, diagnostics, antécédents) : lus à la demande
+        dataService.ouvrirNotes();
+
         // Charger patients et professionnels
         List<Patient> patients = dataService.loadPatients();
         List<ProfessionnelSante> pros = dataService.loadProfessionnels();
@@ -103,6 +109,10 @@ public class Main {
 
         if (!patients.isEmpty() || !pros.isEmpty()) {
             System.out.println("Chargement des données...");
+            // L'index texte est relu depuis son fichier plutôt que reconstruit au fil du chargement
+            patientService.getIndexTexte().suspendre();
+            // Les diagnostics ne sont relus qu'à la première analyse qui en a besoin
+            statsService.suspendreDiagnostics();
 
             // Patients
             for (Patient p : patients) {
@@ -115,24 +125,56 @@ public class Main {
                 auth.register(p);
             }
 
+            // Archive des consultations closes : lue sur place, hors du tas
+            SegmentArchive archive = dataService.ouvrirArchive(
+                    patientService.getPatients(), adminService.getProfessionnels());
+            consultationService.setArchive(archive);
+            patientService.getIndexTexte().setArchive(archive);
+
             // Consultations
             List<Consultation> consultations = dataService.loadConsultations(
                     patientService.getPatients(),
-                    adminService.getProfessionnels()
+                    adminService.getProfessionnels(),
+                    archive
             );
             for (Consultation c : consultations) {
                 consultationService.ajouterConsultationExistante(c);
             }
+            if (archive != null) {
+                archive.inscrire();
+            }
+            statsService.reprendreDiagnostics(archive);
+
+            // Séries récurrentes (après les consultations matérialisées)
+            for (SerieConsultations s : dataService.loadSeries(
+                    patientService.getPatients(), adminService.getProfessionnels())) {
+                consultationService.ajouterSerieExistante(s);
+            }
+
+            // Liste d'attente
+            for (DemandeAttente d : dataService.loadListeAttente(
+                    patientService.getPatients(), adminService.getProfessionnels())) {
+                consultationService.getListeAttente().ajouter(d);
+            }
 
             // Antécédents
             dataService.loadAntecedents(patientService.getPatients());
 
+            // Index plein texte
+            if (!dataService.loadIndexTexte(patientService.getIndexTexte(),
+                    consultationService.getConsultations(), patientService.getPatients())) {
+                patientService.getIndexTexte().reconstruire(
+                        consultationService.getConsultations(), patientService.getPatients());
+            }
+
             System.out.println("✓ Données chargées: "
                     + patients.size() + " patients, "
                     + pros.size() + " professionnels, "
-                    + consultations.size() + " consultations.");
+                    + consultations.size() + " consultations"
+                    + (archive != null && archive.taille() > 0 ? " (+ " + archive.taille() + " archivées)." : "."));
         } else {
             System.out.println("ℹ Système initialisé. Aucune donnée sauvegardée.");
+            consultationService.setArchive(dataService.ouvrirArchive(patients, pros));
             sauvegarderDonnees();
         }
     }
@@ -141,7 +183,11 @@ public class Main {
         dataService.savePatients(patientService.getPatients());
         dataService.saveProfessionnels(adminService.getProfessionnels());
         dataService.saveConsultations(consultationService.getConsultations());
+        dataService.saveSeries(consultationService.getSeries());
+        dataService.saveListeAttente(consultationService.getListeAttente().getDemandes());
         dataService.saveAntecedents(patientService.getPatients());
+        dataService.saveIndexTexte(patientService.getIndexTexte(),
+                consultationService.getConsultations(), patientService.getPatients());
         System.out.println("(Données sauvegardées)");
     }
 
@@ -5,15 +5,16 @@ import java.time.LocalDate;
 /**
  * Représente un antécédent médical.
  * Contient le type, une description, la date, la gravité et si l'antécédent est toujours actif.
+ * La description est rangée dans NotesTexte ; l'antécédent n'en garde que la référence.
  */
 public class Antecedent {
     private static int counter = 1;
     private final int idAntecedent;
     private final String type;
-    private final String description;
+    private final long description;
     private final LocalDate date;
     private final String gravite;
-    private final boolean actif;
+    private boolean actif;
 
     /**
      * Constructeur complet d'un antécédent
@@ -24,28 +25,43 @@ public class Antecedent {
      * @param actif Si l'antécédent est toujours actif/pertinent
      */
     public Antecedent(String type, String description, LocalDate date, String gravite, boolean actif) {
+        this(type, NotesTexte.ecrire(description), date, gravite, actif);
+    }
+
+    /**
+     * Antécédent dont la description est déjà rangée dans NotesTexte (chargement)
+     * @param description Référence rendue par NotesTexte.ecrire
+     */
+    public Antecedent(String type, long description, LocalDate date, String gravite, boolean actif) {
         this.idAntecedent = counter++;
-        this.type = type;
+        this.type = Dictionnaire.interner(type);
         this.description = description;
         this.date = date;
-        this.gravite = gravite;
+        this.gravite = Dictionnaire.interner(gravite);
         this.actif = actif;
     }
 
     // Getters
     public int getIdAntecedent() { return idAntecedent; }
     public String getType() { return type; }
-    public String getDescription() { return description; }
+    public String getDescription() { return NotesTexte.lire(description); }
+    public long getReferenceDescription() { return description; }
     public LocalDate getDate() { return date; }
     public String getGravite() { return gravite; }
     public boolean isActif() { return actif; }
 
+    /**
+     * L'antécédent n'est plus pertinent ; passer par DossierMedical.desactiverAntecedent
+     * pour que les indicateurs de risque du dossier suivent
+     */
+    void desactiver() { this.actif = false; }
+
     @Override
     public String toString() {
         return String.format("[%d] %s - %s (%s) - gravité:%s - %s", 
             idAntecedent, 
             type, 
-            description != null ? description : "Pas de description", 
+            description != NotesTexte.AUCUNE ? getDescription() : "Pas de description", 
             date, 
             gravite, 
             actif ? "actif" : "inactif");
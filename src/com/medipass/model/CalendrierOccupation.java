@@ -0,0 +1,123 @@
+package com.medipass.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calendrier d'occupation : un bitset de créneaux de 5 minutes par jour occupé.
+ * Les jours sans rendez-vous ne sont pas stockés (table creuse indexée par jour epoch).
+ * Si des plages se superposent (données historiques), un compteur par créneau est créé
+ * pour ce jour seulement, afin qu'une libération ne vide pas un créneau encore occupé.
+ */
+public class CalendrierOccupation {
+    private final Map<Long, long[]> jours = new HashMap<>();
+    private final Map<Long, byte[]> superpositions = new HashMap<>();
+
+    /**
+     * Marque la plage [debut, debut + durée[ comme occupée
+     */
+    public void marquer(LocalDateTime debut, int dureeMinutes) {
+        parcourir(debut, dureeMinutes, true);
+    }
+
+    /**
+     * Libère la plage [debut, debut + durée[
+     */
+    public void liberer(LocalDateTime debut, int dureeMinutes) {
+        parcourir(debut, dureeMinutes, false);
+    }
+
+    /**
+     * Vrai si aucun créneau de la plage n'est occupé
+     */
+    public boolean estLibre(LocalDateTime debut, int dureeMinutes) {
+        long jour = debut.toLocalDate().toEpochDay();
+        int minuteDebut = debut.getHour() * 60 + debut.getMinute();
+        int minuteFin = minuteDebut + dureeMinutes;
+        while (true) {
+            long[] bits = jours.get(jour);
+            int fin = Math.min(minuteFin, 24 * 60);
+            if (bits != null && !GrilleCreneaux.estLibre(bits, 0,
+                    minuteDebut / GrilleCreneaux.MINUTES_PAR_CRENEAU, GrilleCreneaux.creneauFin(fin))) {
+                return false;
+            }
+            if (minuteFin <= 24 * 60) return true;
+            minuteFin -= 24 * 60;
+            minuteDebut = 0;
+            jour++;
+        }
+    }
+
+    /**
+     * Bitset d'un jour (lecture seule), ou null si le jour est libre
+     */
+    public long[] getJour(LocalDate date) {
+        return jours.get(date.toEpochDay());
+    }
+
+    /**
+     * Nombre de jours ayant au moins un créneau occupé
+     */
+    public int getNombreJoursOccupes() {
+        return jours.size();
+    }
+
+    private void parcourir(LocalDateTime debut, int dureeMinutes, boolean occuper) {
+        long jour = debut.toLocalDate().toEpochDay();
+        int minuteDebut = debut.getHour() * 60 + debut.getMinute();
+        int minuteFin = minuteDebut + dureeMinutes;
+        while (true) {
+            int de = minuteDebut / GrilleCreneaux.MINUTES_PAR_CRENEAU;
+            int a = GrilleCreneaux.creneauFin(Math.min(minuteFin, 24 * 60));
+            if (occuper) {
+                occuperJour(jour, de, a);
+            } else {
+                libererJour(jour, de, a);
+            }
+            if (minuteFin <= 24 * 60) return;
+            minuteFin -= 24 * 60;
+            minuteDebut = 0;
+            jour++;
+        }
+    }
+
+    private void occuperJour(long jour, int de, int a) {
+        long[] bits = jours.computeIfAbsent(jour, j -> new long[GrilleCreneaux.MOTS_PAR_JOUR]);
+        byte[] compteurs = superpositions.get(jour);
+        if (compteurs == null && !GrilleCreneaux.estLibre(bits, 0, de, a)) {
+            // Première superposition de ce jour : passage en comptage par créneau
+            compteurs = new byte[GrilleCreneaux.CRENEAUX_PAR_JOUR];
+            for (int i = 0; i < compteurs.length; i++) {
+                if ((bits[i >>> 6] & (1L << i)) != 0) compteurs[i] = 1;
+            }
+            superpositions.put(jour, compteurs);
+        }
+        if (compteurs != null) {
+            for (int i = de; i < a; i++) {
+                if (compteurs[i] < Byte.MAX_VALUE) compteurs[i]++;
+            }
+        }
+        GrilleCreneaux.remplir(bits, 0, de, a);
+    }
+
+    private void libererJour(long jour, int de, int a) {
+        long[] bits = jours.get(jour);
+        if (bits == null) return;
+        byte[] compteurs = superpositions.get(jour);
+        if (compteurs == null) {
+            GrilleCreneaux.vider(bits, 0, de, a);
+        } else {
+            for (int i = de; i < a; i++) {
+                if (compteurs[i] > 0 && --compteurs[i] == 0) {
+                    bits[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        if (GrilleCreneaux.compter(bits, 0) == 0) {
+            jours.remove(jour);
+            superpositions.remove(jour);
+        }
+    }
+}
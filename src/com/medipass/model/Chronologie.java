@@ -0,0 +1,130 @@
+package com.medipass.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Parcours paresseux d'un dossier, du plus récent au plus ancien : fusion des consultations,
+ * des consultations archivées (SegmentArchive, ordre patient puis date) et des antécédents,
+ * tous triés par date. Chaque appel à next() compare la tête (la fin) de chaque source :
+ * ouvrir un dossier de vingt ans ne coûte que les entrées lues.
+ * À date égale : consultation en mémoire, puis consultation archivée, puis antécédent.
+ */
+public class Chronologie implements Iterator<ElementChronologie> {
+    private final List<Consultation> consultations;
+    private final List<Antecedent> antecedents;
+    private final SegmentArchive archive;
+    private final int debutArchive;
+    // Nombre d'entrées restant à lire dans chaque source (la prochaine est à l'index fin - 1)
+    private int finConsultations;
+    private int finArchive;
+    private int finAntecedents;
+
+    Chronologie(DossierMedical dossier, int finConsultations, int finArchive, int finAntecedents) {
+        this.consultations = dossier.getConsultations();
+        this.antecedents = dossier.getAntecedents();
+        this.archive = dossier.getArchive();
+        int[] plage = archive == null ? new int[]{0, 0} : archive.plagePatient(dossier.getPatient().getId());
+        this.debutArchive = plage[0];
+        this.finConsultations = finConsultations;
+        this.finArchive = Math.max(finArchive, debutArchive);
+        this.finAntecedents = finAntecedents;
+    }
+
+    /**
+     * Chronologie reprise juste après l'entrée du curseur (voir ElementChronologie.getCurseur)
+     * @return null si le curseur est invalide
+     */
+    static Chronologie depuis(DossierMedical dossier, String curseur) {
+        String[] parties = curseur.split("#");
+        if (parties.length != 3) return null;
+        LocalDateTime date;
+        int id;
+        try {
+            date = LocalDateTime.parse(parties[0]);
+            id = Integer.parseInt(parties[2]);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        List<Consultation> consultations = dossier.getConsultations();
+        List<Antecedent> antecedents = dossier.getAntecedents();
+        SegmentArchive archive = dossier.getArchive();
+        int[] plage = archive == null ? new int[]{0, 0} : archive.plagePatient(dossier.getPatient().getId());
+
+        int finC;
+        int finR;
+        int finA;
+        if (parties[1].equals("C")) {
+            // Restent : consultations plus anciennes, archivées et antécédents jusqu'à cette date incluse
+            int debutMemeDate = Consultation.indexPremiere(consultations, date);
+            finC = Consultation.indexPremiere(consultations, date.plusNanos(1));
+            for (int k = finC - 1; k >= debutMemeDate; k--) {
+                if (consultations.get(k).getIdConsultation() == id) {
+                    finC = k;
+                    break;
+                }
+            }
+            finR = archive == null ? 0 : archive.premiereAPartirDe(plage, true, date.plusNanos(1));
+            finA = dossier.indexPremierAntecedent(date.toLocalDate().plusDays(1));
+        } else if (parties[1].equals("R")) {
+            // id = ligne de l'archive ; restent : consultations avant cette date, archivées plus anciennes
+            if (archive == null) return null;
+            finC = Consultation.indexPremiere(consultations, date);
+            int debutMemeDate = archive.premiereAPartirDe(plage, true, date);
+            finR = archive.premiereAPartirDe(plage, true, date.plusNanos(1));
+            for (int k = finR - 1; k >= debutMemeDate; k--) {
+                if (archive.lignePatient(k) == id) {
+                    finR = k;
+                    break;
+                }
+            }
+            finA = dossier.indexPremierAntecedent(date.toLocalDate().plusDays(1));
+        } else if (parties[1].equals("A")) {
+            // Restent : consultations avant ce jour, antécédents plus anciens
+            finC = Consultation.indexPremiere(consultations, date);
+            finR = archive == null ? 0 : archive.premiereAPartirDe(plage, true, date);
+            LocalDate jour = date.toLocalDate();
+            boolean sansDate = date.equals(LocalDateTime.MIN);
+            int debutMemeDate = sansDate ? 0 : dossier.indexPremierAntecedent(jour);
+            finA = sansDate ? dossier.indexPremierAntecedent(null) : dossier.indexPremierAntecedent(jour.plusDays(1));
+            for (int k = finA - 1; k >= debutMemeDate; k--) {
+                if (antecedents.get(k).getIdAntecedent() == id) {
+                    finA = k;
+                    break;
+                }
+            }
+        } else {
+            return null;
+        }
+        return new Chronologie(dossier, finC, finR, finA);
+    }
+
+    static LocalDateTime date(Antecedent a) {
+        return a.getDate() == null ? LocalDateTime.MIN : a.getDate().atStartOfDay();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return finConsultations > 0 || finArchive > debutArchive || finAntecedents > 0;
+    }
+
+    @Override
+    public ElementChronologie next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        LocalDateTime dateC = finConsultations > 0 ? consultations.get(finConsultations - 1).getDateHeure() : null;
+        LocalDateTime dateR = finArchive > debutArchive ? archive.getDateHeure(archive.lignePatient(finArchive - 1)) : null;
+        LocalDateTime dateA = finAntecedents > 0 ? date(antecedents.get(finAntecedents - 1)) : null;
+
+        if (dateC != null && (dateR == null || !dateC.isBefore(dateR)) && (dateA == null || !dateC.isBefore(dateA))) {
+            return new ElementChronologie(consultations.get(--finConsultations));
+        }
+        if (dateR != null && (dateA == null || !dateR.isBefore(dateA))) {
+            int ligne = archive.lignePatient(--finArchive);
+            return new ElementChronologie(archive.consultation(ligne), ligne);
+        }
+        return new ElementChronologie(antecedents.get(--finAntecedents));
+    }
+}
@@ -0,0 +1,388 @@
+package com.medipass.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Copie en colonnes (un tableau primitif par champ) des consultations inscrites au planning :
+ * début en minutes depuis l'époque, durée, code de statut, et indices dans les tables des
+ * professionnels et des patients. Les parcours des statistiques et de l'occupation des plannings
+ * lisent ces colonnes au lieu de suivre des objets Consultation et leurs LocalDateTime.
+ *
+ * Les colonnes sont tenues à jour par les événements de ConsultationListener ; les consultations
+ * archivées en sortent (SegmentArchive les garde déjà en colonnes). Les lignes sont gardées triées
+ * par début : le tri n'est refait qu'après un ajout dans le désordre, au parcours suivant.
+ * Ligne donne une vue de type Consultation sur une ligne, sans rien allouer par ligne.
+ */
+public class ColonnesConsultations implements ConsultationListener {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final int CAPACITE_INITIALE = 1024;
+
+    private int taille;
+    private int[] ids = new int[CAPACITE_INITIALE];
+    private int[] debuts = new int[CAPACITE_INITIALE];
+    private short[] durees = new short[CAPACITE_INITIALE];
+    private byte[] statuts = new byte[CAPACITE_INITIALE];
+    // Le motif est une saisie libre : la colonne référence la chaîne de la consultation, sans la coder
+    private String[] motifs = new String[CAPACITE_INITIALE];
+    private int[] professionnels = new int[CAPACITE_INITIALE];
+    private int[] patients = new int[CAPACITE_INITIALE];
+    // Références des textes libres dans NotesTexte, rarement remplies : null tant qu'aucune ligne n'en a
+    private long[] observations;
+    private long[] diagnostics;
+    private boolean triee = true;
+    // Ligne + 1 de chaque identifiant de consultation (0 : absente), refait après un tri ou un compactage
+    private int[] lignesParId = new int[CAPACITE_INITIALE];
+    // Lignes des consultations archivées (id à -1), retirées au parcours suivant
+    private int retirees;
+
+    // Tables des valeurs référencées par indice
+    private final List<String> tableStatuts = new ArrayList<>();
+    private final List<ProfessionnelSante> tableProfessionnels = new ArrayList<>();
+    private final Map<ProfessionnelSante, Integer> indexProfessionnels = new IdentityHashMap<>();
+    private final List<Patient> tablePatients = new ArrayList<>();
+    private final Map<Patient, Integer> indexPatients = new IdentityHashMap<>();
+
+    /**
+     * Vue sur une ligne du stockage (mêmes accesseurs que Consultation, plus les codes des colonnes).
+     * Une seule vue est repositionnée sur chaque ligne d'un parcours.
+     */
+    public final class Ligne {
+        private int ligne;
+
+        private Ligne(int ligne) {
+            this.ligne = ligne;
+        }
+
+        public Ligne positionner(int ligne) {
+            this.ligne = ligne;
+            return this;
+        }
+
+        public int getIndex() { return ligne; }
+        public int getIdConsultation() { return ids[ligne]; }
+        public int getDebutMinutes() { return debuts[ligne]; }
+        public int getFinMinutes() { return debuts[ligne] + durees[ligne]; }
+        public LocalDateTime getDateHeure() { return dateHeure(debuts[ligne]); }
+        public int getDureeMinutes() { return durees[ligne]; }
+        public LocalDateTime getFinConsultation() { return dateHeure(debuts[ligne] + durees[ligne]); }
+        public int getCodeStatut() { return statuts[ligne]; }
+        public String getStatut() { return tableStatuts.get(statuts[ligne]); }
+        public String getMotif() { return motifs[ligne]; }
+        public int getIndexProfessionnel() { return professionnels[ligne]; }
+        public ProfessionnelSante getProfessionnel() {
+            return professionnels[ligne] < 0 ? null : tableProfessionnels.get(professionnels[ligne]);
+        }
+        public Patient getPatient() { return patients[ligne] < 0 ? null : tablePatients.get(patients[ligne]); }
+        public String getObservations() { return observations == null ? null : NotesTexte.lire(observations[ligne]); }
+        public String getDiagnostic() { return diagnostics == null ? null : NotesTexte.lire(diagnostics[ligne]); }
+
+        public boolean estPassee() {
+            return minutes(LocalDateTime.now()) >= debuts[ligne] + durees[ligne];
+        }
+
+        @Override
+        public String toString() {
+            ProfessionnelSante pro = getProfessionnel();
+            Patient patient = getPatient();
+            return String.format("Consultation[%d] %s (%d min) - %s\n  Professionnel: Dr.%s %s\n  Patient: %s %s\n  Statut: %s",
+                    getIdConsultation(),
+                    getDateHeure().format(FORMAT),
+                    getDureeMinutes(),
+                    getMotif(),
+                    pro == null ? "?" : pro.getNom(),
+                    pro == null ? "" : pro.getPrenom(),
+                    patient == null ? "?" : patient.getNom(),
+                    patient == null ? "" : patient.getPrenom(),
+                    getStatut());
+        }
+    }
+
+    /* ---------- Événements des consultations ---------- */
+
+    @Override
+    public synchronized void consultationInscrite(Consultation c) {
+        if (c.estArchivee() || ligneDe(c.getIdConsultation()) >= 0) return;
+        ajouter(c);
+    }
+
+    @Override
+    public synchronized void consultationModifiee(Consultation c, String ancienStatut, int ancienneDuree) {
+        int i = ligneDe(c.getIdConsultation());
+        if (i < 0) return;
+        durees[i] = (short) Math.min(c.getDureeMinutes(), Short.MAX_VALUE);
+        statuts[i] = (byte) coder(c.getStatut());
+    }
+
+    @Override
+    public synchronized void consultationAnnotee(Consultation c) {
+        int i = ligneDe(c.getIdConsultation());
+        if (i < 0) return;
+        noter(i, c.getReferenceObservations(), c.getReferenceDiagnostic());
+    }
+
+    @Override
+    public synchronized void consultationArchivee(Consultation c, SegmentArchive archive, int ligne) {
+        int i = ligneDe(c.getIdConsultation());
+        if (i < 0) return;
+        lignesParId[ids[i]] = 0;
+        ids[i] = -1;
+        retirees++;
+    }
+
+    /* ---------- Lecture ---------- */
+
+    public synchronized int taille() {
+        return taille - retirees;
+    }
+
+    /**
+     * Vue positionnée sur la ligne i (lignes triées par début)
+     */
+    public synchronized Ligne ligne(int i) {
+        preparer();
+        return new Ligne(i);
+    }
+
+    /**
+     * Index de la première ligne qui commence à partir de la date (dichotomie sur la colonne des débuts)
+     */
+    public synchronized int indexPremiere(LocalDateTime date) {
+        preparer();
+        int cible = minutes(date);
+        int bas = 0;
+        int haut = taille;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (debuts[milieu] < cible) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Parcourt les lignes dont le jour est dans [debut, fin], dans l'ordre des dates, avec une seule vue
+     */
+    public synchronized void parcourir(LocalDate debut, LocalDate fin, Consumer<Ligne> action) {
+        int a = indexPremiere(debut.atStartOfDay());
+        int b = indexPremiere(fin.plusDays(1).atStartOfDay());
+        Ligne vue = new Ligne(a);
+        for (int i = a; i < b; i++) {
+            action.accept(vue.positionner(i));
+        }
+    }
+
+    /**
+     * Nombre de consultations par statut, sur toutes les lignes
+     */
+    public synchronized int compterStatut(String statut) {
+        int code = tableStatuts.indexOf(statut);
+        if (code < 0) return 0;
+        preparer();
+        int n = 0;
+        for (int i = 0; i < taille; i++) {
+            if (statuts[i] == code) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Nombre de consultations et minutes par statut sur [debut, fin]
+     */
+    public synchronized Map<String, long[]> parStatut(LocalDate debut, LocalDate fin) {
+        long[][] sommes = new long[tableStatuts.size()][2];
+        int a = indexPremiere(debut.atStartOfDay());
+        int b = indexPremiere(fin.plusDays(1).atStartOfDay());
+        for (int i = a; i < b; i++) {
+            long[] s = sommes[statuts[i]];
+            s[0]++;
+            s[1] += durees[i];
+        }
+        Map<String, long[]> resultat = new TreeMap<>();
+        for (int k = 0; k < sommes.length; k++) {
+            if (sommes[k][0] > 0) resultat.put(tableStatuts.get(k), sommes[k]);
+        }
+        return resultat;
+    }
+
+    /**
+     * Code d'un statut dans la colonne des statuts, -1 si aucune ligne ne l'a jamais porté
+     */
+    public synchronized int codeStatut(String statut) {
+        return tableStatuts.indexOf(statut);
+    }
+
+    /**
+     * Indice d'un professionnel dans la colonne des professionnels, -1 s'il n'a aucune ligne
+     */
+    public synchronized int indexProfessionnel(ProfessionnelSante professionnel) {
+        Integer index = indexProfessionnels.get(professionnel);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Taille approximative des colonnes en mémoire (hors textes libres et tables)
+     */
+    public synchronized long octetsColonnes() {
+        long parLigne = 4 + 4 + 2 + 1 + 4 + 4 + 4
+                + (observations == null ? 0 : 8) + (diagnostics == null ? 0 : 8);
+        return parLigne * ids.length + 4L * lignesParId.length;
+    }
+
+    /**
+     * Début en minutes depuis l'époque (colonne des débuts)
+     */
+    public static int minutes(LocalDateTime date) {
+        return (int) (date.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    public static LocalDateTime dateHeure(int minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /* ---------- Interne ---------- */
+
+    private void ajouter(Consultation c) {
+        reserver(taille + 1);
+        int i = taille++;
+        ids[i] = c.getIdConsultation();
+        debuts[i] = minutes(c.getDateHeure());
+        durees[i] = (short) Math.min(c.getDureeMinutes(), Short.MAX_VALUE);
+        statuts[i] = (byte) coder(c.getStatut());
+        motifs[i] = c.getMotif();
+        professionnels[i] = indexDans(c.getProfessionnel(), tableProfessionnels, indexProfessionnels);
+        patients[i] = indexDans(c.getPatient(), tablePatients, indexPatients);
+        noter(i, c.getReferenceObservations(), c.getReferenceDiagnostic());
+        indexer(i);
+        if (i > 0 && debuts[i] < debuts[i - 1]) triee = false;
+    }
+
+    private void noter(int i, long observation, long diagnostic) {
+        if (observation != NotesTexte.AUCUNE && observations == null) observations = new long[ids.length];
+        if (observations != null) observations[i] = observation;
+        if (diagnostic != NotesTexte.AUCUNE && diagnostics == null) diagnostics = new long[ids.length];
+        if (diagnostics != null) diagnostics[i] = diagnostic;
+    }
+
+    private int ligneDe(int id) {
+        return id >= 0 && id < lignesParId.length ? lignesParId[id] - 1 : -1;
+    }
+
+    private void indexer(int i) {
+        int id = ids[i];
+        if (id < 0) return;
+        if (id >= lignesParId.length) {
+            lignesParId = Arrays.copyOf(lignesParId, Math.max(id + 1, lignesParId.length + (lignesParId.length >> 1)));
+        }
+        lignesParId[id] = i + 1;
+    }
+
+    private int coder(String statut) {
+        int code = tableStatuts.indexOf(statut);
+        if (code < 0) {
+            code = tableStatuts.size();
+            tableStatuts.add(statut);
+        }
+        return code;
+    }
+
+    private static <T> int indexDans(T valeur, List<T> table, Map<T, Integer> index) {
+        if (valeur == null) return -1;
+        return index.computeIfAbsent(valeur, v -> {
+            table.add(v);
+            return table.size() - 1;
+        });
+    }
+
+    private void reserver(int capacite) {
+        if (capacite > ids.length) {
+            redimensionner(Math.max(capacite, ids.length + (ids.length >> 1)));
+        }
+    }
+
+    private void redimensionner(int capacite) {
+        ids = Arrays.copyOf(ids, capacite);
+        debuts = Arrays.copyOf(debuts, capacite);
+        durees = Arrays.copyOf(durees, capacite);
+        statuts = Arrays.copyOf(statuts, capacite);
+        motifs = Arrays.copyOf(motifs, capacite);
+        professionnels = Arrays.copyOf(professionnels, capacite);
+        patients = Arrays.copyOf(patients, capacite);
+        if (observations != null) observations = Arrays.copyOf(observations, capacite);
+        if (diagnostics != null) diagnostics = Arrays.copyOf(diagnostics, capacite);
+    }
+
+    /**
+     * Avant un parcours : retire les lignes archivées et retrie par début si besoin
+     */
+    private void preparer() {
+        if (retirees == 0 && triee) return;
+        int n = 0;
+        long[] cles = new long[taille - retirees];
+        for (int i = 0; i < taille; i++) {
+            if (ids[i] >= 0) cles[n++] = ((long) debuts[i] << 32) | i;
+        }
+        // Ordre d'ajout conservé à début égal
+        if (!triee) Arrays.sort(cles);
+        int[] ordre = new int[n];
+        for (int i = 0; i < n; i++) {
+            ordre[i] = (int) cles[i];
+        }
+        ids = permuter(ids, ordre);
+        debuts = permuter(debuts, ordre);
+        professionnels = permuter(professionnels, ordre);
+        patients = permuter(patients, ordre);
+        short[] d = new short[ids.length];
+        byte[] s = new byte[ids.length];
+        String[] m = new String[ids.length];
+        for (int i = 0; i < n; i++) {
+            d[i] = durees[ordre[i]];
+            s[i] = statuts[ordre[i]];
+            m[i] = motifs[ordre[i]];
+        }
+        durees = d;
+        statuts = s;
+        motifs = m;
+        observations = permuter(observations, ordre);
+        diagnostics = permuter(diagnostics, ordre);
+        taille = n;
+        retirees = 0;
+        triee = true;
+        Arrays.fill(lignesParId, 0);
+        for (int i = 0; i < taille; i++) {
+            indexer(i);
+        }
+    }
+
+    private int[] permuter(int[] colonne, int[] ordre) {
+        int[] resultat = new int[colonne.length];
+        for (int i = 0; i < ordre.length; i++) {
+            resultat[i] = colonne[ordre[i]];
+        }
+        return resultat;
+    }
+
+    private long[] permuter(long[] colonne, int[] ordre) {
+        if (colonne == null) return null;
+        long[] resultat = new long[colonne.length];
+        for (int i = 0; i < ordre.length; i++) {
+            resultat[i] = colonne[ordre[i]];
+        }
+        return resultat;
+    }
+}
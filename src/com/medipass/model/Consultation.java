@@ -2,25 +2,32 @@ package com.medipass.model;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import com.medipass.user.ProfessionnelSante;
 
 /**
  * Consultation programmée ou réalisée.
  * Contient des champs basiques : date/heure, motif, observations, diagnostic, statut.
+ * Les observations et le diagnostic sont rangés dans NotesTexte ; la consultation n'en garde que la référence.
  */
 public class Consultation {
     private static int counter = 1;
     private final int idConsultation;
     private final LocalDateTime dateHeure;
     private final String motif;
-    private String observations;
-    private String diagnostic;
+    private long observations = NotesTexte.AUCUNE;
+    private long diagnostic = NotesTexte.AUCUNE;
     private String statut;
     private final ProfessionnelSante professionnel;
     private final Patient patient;
     private int dureeMinutes = 30; // Durée par défaut
+    private boolean inscrite; // Reportée dans les calendriers d'occupation du professionnel et du patient
+    private final boolean archivee; // Reconstituée depuis SegmentArchive : lecture seule
 
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final String[] STATUTS_VALIDES = {"programmée", "effectuée", "annulée", "en cours"};
+    private static final List<ConsultationListener> LISTENERS = new CopyOnWriteArrayList<>();
 
     public Consultation(LocalDateTime dateHeure, String motif, ProfessionnelSante professionnel, Patient patient) {
         this.idConsultation = counter++;
@@ -29,6 +36,33 @@ public class Consultation {
         this.professionnel = professionnel;
         this.patient = patient;
         this.statut = "programmée";
+        this.archivee = false;
+    }
+
+    /**
+     * Consultation reconstituée depuis l'archive (identifiant réservé par reserverIdentifiants)
+     */
+    Consultation(int id, LocalDateTime dateHeure, int dureeMinutes, String statut, String motif,
+                 ProfessionnelSante professionnel, Patient patient, long observations, long diagnostic) {
+        this.idConsultation = id;
+        this.dateHeure = dateHeure;
+        this.dureeMinutes = dureeMinutes;
+        this.statut = statut;
+        this.motif = motif;
+        this.professionnel = professionnel;
+        this.patient = patient;
+        this.observations = observations;
+        this.diagnostic = diagnostic;
+        this.archivee = true;
+    }
+
+    /**
+     * Réserve n identifiants consécutifs (consultations archivées) et retourne le premier
+     */
+    static int reserverIdentifiants(int n) {
+        int premier = counter;
+        counter += n;
+        return premier;
     }
 
     // Getters
@@ -39,8 +73,19 @@ public class Consultation {
     public Patient getPatient() { return patient; }
     public String getStatut() { return statut; }
     public String getMotif() { return motif; }
-    public String getObservations() { return observations; }
-    public String getDiagnostic() { return diagnostic; }
+    public String getObservations() { return NotesTexte.lire(observations); }
+    public String getDiagnostic() { return NotesTexte.lire(diagnostic); }
+    public long getReferenceObservations() { return observations; }
+    public long getReferenceDiagnostic() { return diagnostic; }
+    public boolean estArchivee() { return archivee; }
+
+    /**
+     * Consultation close : effectuée ou annulée, et terminée avant la date donnée
+     */
+    public boolean estCloseAvant(LocalDateTime date) {
+        return ("effectuée".equalsIgnoreCase(statut) || "annulée".equalsIgnoreCase(statut))
+                && getFinConsultation().isBefore(date);
+    }
     
     /**
      * Calcule l'heure de fin de la consultation
@@ -49,25 +94,184 @@ public class Consultation {
         return dateHeure.plusMinutes(dureeMinutes);
     }
 
+    /**
+     * Index de la première consultation d'une liste triée par date qui commence à partir
+     * de la date donnée (recherche dichotomique, liste.size() s'il n'y en a pas)
+     */
+    public static int indexPremiere(List<Consultation> triees, LocalDateTime date) {
+        int bas = 0;
+        int haut = triees.size();
+        // Cas courant : ajout en fin de liste
+        if (haut > 0 && triees.get(haut - 1).getDateHeure().isBefore(date)) {
+            return haut;
+        }
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (triees.get(milieu).getDateHeure().isBefore(date)) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Insère une consultation dans une liste triée par date, après celles de même date
+     */
+    public static void insererParDate(List<Consultation> triees, Consultation c) {
+        triees.add(indexPremiere(triees, c.getDateHeure().plusNanos(1)), c);
+    }
+
+    /**
+     * Abonne un observateur aux événements de toutes les consultations
+     */
+    public static void ajouterListener(ConsultationListener l) {
+        if (l != null && !LISTENERS.contains(l)) {
+            LISTENERS.add(l);
+        }
+    }
+
+    public static void retirerListener(ConsultationListener l) {
+        LISTENERS.remove(l);
+    }
+
+    /**
+     * Reporte la consultation dans les calendriers d'occupation du professionnel et du patient.
+     * Appelé à l'ajout au planning / au dossier ; sans effet si déjà inscrite.
+     * Ensuite, les changements de durée et de statut tiennent les calendriers à jour.
+     */
+    public void inscrire() {
+        if (inscrite) return;
+        inscrite = true;
+        if (estActive()) {
+            occuper(dureeMinutes, true);
+        }
+        for (ConsultationListener l : LISTENERS) {
+            l.consultationInscrite(this);
+        }
+    }
+
+    /**
+     * Une consultation annulée ne bloque plus de créneau
+     */
+    private boolean estActive() {
+        return !"annulée".equalsIgnoreCase(statut);
+    }
+
+    private void occuper(int duree, boolean occuper) {
+        if (professionnel != null) {
+            if (occuper) professionnel.getOccupation().marquer(dateHeure, duree);
+            else professionnel.getOccupation().liberer(dateHeure, duree);
+        }
+        if (patient != null) {
+            if (occuper) patient.getDossierMedical().getOccupation().marquer(dateHeure, duree);
+            else patient.getDossierMedical().getOccupation().liberer(dateHeure, duree);
+        }
+    }
+
+    /**
+     * Les rendus du dossier du patient qui affichent cette consultation sont périmés
+     */
+    private void dossierModifie() {
+        if (patient != null) {
+            patient.getDossierMedical().marquerModifie();
+        }
+    }
+
     // Setters avec validation
     public void setDureeMinutes(int dureeMinutes) { 
+        if (lectureSeule()) return;
         if (dureeMinutes > 0) {
+            int ancienneDuree = this.dureeMinutes;
+            if (inscrite && estActive()) {
+                occuper(ancienneDuree, false);
+                occuper(dureeMinutes, true);
+            }
             this.dureeMinutes = dureeMinutes; 
+            dossierModifie();
+            if (inscrite && ancienneDuree != dureeMinutes) {
+                for (ConsultationListener l : LISTENERS) {
+                    l.consultationModifiee(this, statut, ancienneDuree);
+                }
+            }
         }
     }
     
     public void setObservations(String obs) { 
-        this.observations = obs; 
+        if (lectureSeule()) return;
+        this.observations = NotesTexte.ecrire(obs); 
+        dossierModifie();
+        texteModifie();
     }
     
     public void setDiagnostic(String d) { 
-        this.diagnostic = d; 
+        if (lectureSeule()) return;
+        this.diagnostic = NotesTexte.ecrire(d); 
+        dossierModifie();
+        texteModifie();
+    }
+
+    /**
+     * Rattache des textes déjà rangés dans NotesTexte (chargement), sans les relire
+     */
+    public void restaurerNotes(long refObservations, long refDiagnostic) {
+        if (lectureSeule()) return;
+        this.observations = refObservations;
+        this.diagnostic = refDiagnostic;
+        dossierModifie();
+        texteModifie();
+    }
+
+    /**
+     * Signale aux observateurs que la consultation est désormais lue à la ligne donnée de l'archive
+     */
+    void notifierArchivage(SegmentArchive archive, int ligne) {
+        for (ConsultationListener l : LISTENERS) {
+            l.consultationArchivee(this, archive, ligne);
+        }
+    }
+
+    /**
+     * Signale aux observateurs qu'une occurrence de série réserve ou rend son créneau
+     */
+    static void notifierOccurrence(SerieConsultations.Occurrence o, boolean reservee) {
+        for (ConsultationListener l : LISTENERS) {
+            l.occurrenceReservee(o, reservee);
+        }
+    }
+
+    private boolean lectureSeule() {
+        if (archivee) {
+            System.err.println("⚠️ Consultation " + idConsultation + " archivée : lecture seule");
+        }
+        return archivee;
+    }
+
+    private void texteModifie() {
+        if (inscrite) {
+            for (ConsultationListener l : LISTENERS) {
+                l.consultationAnnotee(this);
+            }
+        }
     }
     
     public void setStatut(String s) { 
+        if (lectureSeule()) return;
         for (String statut : STATUTS_VALIDES) {
             if (statut.equalsIgnoreCase(s)) {
-                this.statut = s;
+                boolean etaitActive = estActive();
+                String ancienStatut = this.statut;
+                this.statut = statut;  // instance partagée de STATUTS_VALIDES
+                dossierModifie();
+                if (inscrite && etaitActive != estActive()) {
+                    occuper(dureeMinutes, estActive());
+                }
+                if (inscrite && !s.equalsIgnoreCase(ancienStatut)) {
+                    for (ConsultationListener l : LISTENERS) {
+                        l.consultationModifiee(this, ancienStatut, dureeMinutes);
+                    }
+                }
                 return;
             }
         }
@@ -91,10 +295,9 @@ public class Consultation {
 
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         return String.format("Consultation[%d] %s (%d min) - %s\n  Professionnel: Dr.%s %s\n  Patient: %s %s\n  Statut: %s",
                 idConsultation, 
-                dateHeure.format(formatter), 
+                dateHeure.format(FORMAT), 
                 dureeMinutes, 
                 motif, 
                 professionnel.getNom(), 
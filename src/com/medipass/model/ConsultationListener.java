@@ -0,0 +1,35 @@
+package com.medipass.model;
+
+/**
+ * Observateur des consultations inscrites au planning.
+ * Les services s'abonnent via Consultation.ajouterListener pour réagir aux réservations,
+ * annulations et changements de durée, quel que soit le chemin utilisé (service ou professionnel).
+ */
+public interface ConsultationListener {
+
+    /**
+     * Appelée quand une consultation est ajoutée au planning et au dossier
+     */
+    default void consultationInscrite(Consultation c) {}
+
+    /**
+     * Appelée après un changement de statut ou de durée d'une consultation inscrite
+     */
+    default void consultationModifiee(Consultation c, String ancienStatut, int ancienneDuree) {}
+
+    /**
+     * Appelée après un changement des observations ou du diagnostic d'une consultation inscrite
+     */
+    default void consultationAnnotee(Consultation c) {}
+
+    /**
+     * Appelée quand une consultation close quitte le tas pour la ligne donnée de l'archive
+     */
+    default void consultationArchivee(Consultation c, SegmentArchive archive, int ligne) {}
+
+    /**
+     * Appelée quand une occurrence de série réserve son créneau (inscription de la série)
+     * ou le rend (occurrence détachée, devenue une consultation à part entière)
+     */
+    default void occurrenceReservee(SerieConsultations.Occurrence o, boolean reservee) {}
+}
@@ -0,0 +1,64 @@
+package com.medipass.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionnaire partagé des valeurs répétitives du modèle (type, gravité, spécialité,
+ * groupe sanguin, horaires). Chaque valeur distincte est gardée une seule fois
+ * et reçoit un petit code entier : les constructeurs et les chargements remplacent leur copie
+ * par l'instance du dictionnaire, et la copie lue dans le fichier devient immédiatement libérable.
+ *
+ * Seuls les champs à vocabulaire fermé y passent : une saisie libre (motif, textes) pourrait remplir
+ * la capacité de valeurs uniques, et les valeurs vraiment répétées ajoutées ensuite ne seraient plus
+ * partagées. Les textes longs et les valeurs au-delà de la capacité sont rendus tels quels.
+ */
+public final class Dictionnaire {
+
+    static final int CAPACITE_MAX = 1 << 16;
+    static final int LONGUEUR_MAX = 80;
+
+    private static final Map<String, Integer> CODES = new HashMap<>();
+    private static final List<String> VALEURS = new ArrayList<>();
+
+    private Dictionnaire() {}
+
+    /**
+     * Instance partagée égale à s (ou s lui-même si la valeur n'est pas retenue)
+     */
+    public static synchronized String interner(String s) {
+        int code = code(s);
+        return code < 0 ? s : VALEURS.get(code);
+    }
+
+    /**
+     * Code de la valeur, ajoutée au dictionnaire si besoin
+     * @return -1 si s est null, trop long ou si le dictionnaire est plein
+     */
+    public static synchronized int code(String s) {
+        if (s == null || s.length() > LONGUEUR_MAX) return -1;
+        Integer code = CODES.get(s);
+        if (code != null) return code;
+        if (VALEURS.size() >= CAPACITE_MAX) return -1;
+        code = VALEURS.size();
+        VALEURS.add(s);
+        CODES.put(s, code);
+        return code;
+    }
+
+    /**
+     * Valeur d'un code rendu par code()
+     */
+    public static synchronized String valeur(int code) {
+        return code < 0 || code >= VALEURS.size() ? null : VALEURS.get(code);
+    }
+
+    /**
+     * Nombre de valeurs distinctes retenues
+     */
+    public static synchronized int taille() {
+        return VALEURS.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.medipass.model;
+
+/**
+ * Observateur des dossiers médicaux.
+ * Les services s'abonnent via DossierMedical.ajouterListener pour suivre les antécédents et les
+ * indicateurs de risque, quel que soit le chemin utilisé (service, professionnel ou chargement).
+ */
+public interface DossierListener {
+
+    /**
+     * Appelée après l'ajout d'un antécédent au dossier
+     */
+    default void antecedentAjoute(DossierMedical dossier, Antecedent antecedent) {}
+
+    /**
+     * Appelée après la désactivation d'un antécédent du dossier
+     */
+    default void antecedentDesactive(DossierMedical dossier, Antecedent antecedent) {}
+
+    /**
+     * Appelée quand les indicateurs de risque du dossier changent
+     * @param anciensDrapeaux indicateurs avant le changement (voir DrapeauRisque)
+     */
+    default void risquesModifies(DossierMedical dossier, int anciensDrapeaux) {}
+
+    /**
+     * Appelée quand le nom ou le prénom du patient du dossier change
+     */
+    default void identiteModifiee(DossierMedical dossier) {}
+}
@@ -1,11 +1,15 @@
 package com.medipass.model;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Dossier médical simple : liste d'antécédents et de consultations.
+ * Dossier médical simple : listes d'antécédents et de consultations, triées par date.
+ * Les anciennes consultations closes peuvent être lues dans un SegmentArchive (hors du tas).
  * Met à jour la date de dernière modification à chaque changement.
  */
 public class DossierMedical {
@@ -15,6 +19,12 @@ public class DossierMedical {
     private final LocalDateTime dateCreation;
     private final List<Antecedent> antecedents = new ArrayList<>();
     private final List<Consultation> consultations = new ArrayList<>();
+    private final CalendrierOccupation occupation = new CalendrierOccupation();
+    private long version; // Incrémentée à chaque changement du dossier (rendus en cache)
+    private int drapeauxRisque; // Un bit par DrapeauRisque, d'après les antécédents actifs
+    private SegmentArchive archive; // Consultations closes déplacées hors du tas, null si aucune
+
+    private static final List<DossierListener> LISTENERS = new CopyOnWriteArrayList<>();
 
     public DossierMedical(Patient patient) {
         this.idDossier = counter++;
@@ -26,25 +36,169 @@ public class DossierMedical {
     public Patient getPatient() { return patient; }
     public LocalDateTime getDateCreation() { return dateCreation; }
 
+    public static void ajouterListener(DossierListener l) {
+        if (l != null && !LISTENERS.contains(l)) {
+            LISTENERS.add(l);
+        }
+    }
+
+    public static void retirerListener(DossierListener l) {
+        LISTENERS.remove(l);
+    }
+
+    /**
+     * Ajoute un antécédent (liste maintenue triée par date, après ceux de même date)
+     */
     public void ajouterAntecedent(Antecedent a) {
-        antecedents.add(a);
+        LocalDate date = a.getDate();
+        antecedents.add(date == null ? indexPremierAntecedent(null) : indexPremierAntecedent(date.plusDays(1)), a);
+        marquerModifie();
+        for (DossierListener l : LISTENERS) {
+            l.antecedentAjoute(this, a);
+        }
+        changerDrapeaux(drapeauxRisque | DrapeauRisque.de(a));
+    }
+
+    /**
+     * Marque un antécédent comme inactif et recalcule les indicateurs de risque
+     * @return false si l'antécédent n'existe pas dans ce dossier ou est déjà inactif
+     */
+    public boolean desactiverAntecedent(int idAntecedent) {
+        for (Antecedent a : antecedents) {
+            if (a.getIdAntecedent() == idAntecedent && a.isActif()) {
+                a.desactiver();
+                marquerModifie();
+                for (DossierListener l : LISTENERS) {
+                    l.antecedentDesactive(this, a);
+                }
+                int drapeaux = 0;
+                for (Antecedent autre : antecedents) {
+                    drapeaux |= DrapeauRisque.de(autre);
+                }
+                changerDrapeaux(drapeaux);
+                return true;
+            }
+        }
+        return false;
     }
 
+    private void changerDrapeaux(int drapeaux) {
+        int anciens = drapeauxRisque;
+        if (drapeaux == anciens) return;
+        drapeauxRisque = drapeaux;
+        for (DossierListener l : LISTENERS) {
+            l.risquesModifies(this, anciens);
+        }
+    }
+
+    /**
+     * Indicateurs de risque (un bit par DrapeauRisque), lecture en O(1)
+     */
+    public int getDrapeauxRisque() { return drapeauxRisque; }
+
+    public boolean aRisque(DrapeauRisque drapeau) { return drapeau.estDans(drapeauxRisque); }
+
+    /**
+     * Ajoute une consultation à l'historique (maintenu trié par date)
+     */
     public void ajouterConsultation(Consultation c) {
-        consultations.add(c);
+        Consultation.insererParDate(consultations, c);
+        marquerModifie();
+        c.inscrire();
+    }
+
+    /**
+     * Calendrier d'occupation du patient, tenu à jour par ses consultations
+     */
+    public CalendrierOccupation getOccupation() { return occupation; }
+
+    /**
+     * Version du dossier : change à chaque ajout ou modification de son contenu
+     */
+    public long getVersion() { return version; }
+
+    public void marquerModifie() {
+        version++;
+    }
+
+    /**
+     * Signale un changement du nom ou du prénom du patient (affichés dans les vues de planning)
+     */
+    public void identiteModifiee() {
+        marquerModifie();
+        for (DossierListener l : LISTENERS) {
+            l.identiteModifiee(this);
+        }
     }
 
     public List<Antecedent> getAntecedents() { return antecedents; }
     public List<Consultation> getConsultations() { return consultations; }
 
-    // Fournit un historique textuel simple pour affichage console
+    void rattacherArchive(SegmentArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Archive contenant les anciennes consultations de ce dossier, ou null
+     */
+    public SegmentArchive getArchive() { return archive; }
+
+    public int getNombreConsultationsArchivees() {
+        if (archive == null) return 0;
+        int[] plage = archive.plagePatient(patient.getId());
+        return plage[1] - plage[0];
+    }
+
+    /**
+     * Retire de l'historique en mémoire des consultations désormais lues dans l'archive
+     */
+    public void retirerArchivees(Set<Consultation> archivees) {
+        if (consultations.removeIf(archivees::contains)) {
+            marquerModifie();
+        }
+    }
+
+    /**
+     * Index du premier antécédent daté à partir du jour donné (dichotomie) ;
+     * les antécédents sans date sont en tête, et null donne la fin de ceux-ci
+     */
+    public int indexPremierAntecedent(LocalDate date) {
+        int bas = 0;
+        int haut = antecedents.size();
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            LocalDate d = antecedents.get(milieu).getDate();
+            boolean avant = date == null ? d == null : d == null || d.isBefore(date);
+            if (avant) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Consultations et antécédents du plus récent au plus ancien, lus à la demande
+     */
+    public Chronologie chronologie() {
+        int[] plage = archive == null ? new int[]{0, 0} : archive.plagePatient(patient.getId());
+        return new Chronologie(this, consultations.size(), plage[1], antecedents.size());
+    }
+
+    /**
+     * Chronologie reprise après l'entrée d'un curseur (voir ElementChronologie.getCurseur),
+     * ou null si le curseur est invalide
+     */
+    public Chronologie chronologie(String curseur) {
+        return curseur == null ? chronologie() : Chronologie.depuis(this, curseur);
+    }
+
+    // Fournit un historique textuel simple pour affichage console (du plus récent au plus ancien)
     public List<String> getHistorique() {
         List<String> out = new ArrayList<>();
-        for (Consultation c : consultations) {
-            out.add(c.toString());
-        }
-        for (Antecedent a : antecedents) {
-            out.add("Antecedent: " + a.toString());
+        for (Chronologie it = chronologie(); it.hasNext(); ) {
+            out.add(it.next().toString());
         }
         return out;
     }
@@ -0,0 +1,77 @@
+package com.medipass.model;
+
+import java.text.Normalizer;
+import java.util.EnumSet;
+import java.util.StringJoiner;
+
+/**
+ * Indicateurs de risque d'un patient, déduits de ses antécédents actifs.
+ * Chaque indicateur occupe un bit : l'ensemble des indicateurs d'un dossier tient dans un int.
+ */
+public enum DrapeauRisque {
+    ALLERGIE("allergie"),
+    ALLERGIE_GRAVE("allergie grave"),
+    MALADIE_CHRONIQUE("maladie chronique"),
+    TRAITEMENT_EN_COURS("traitement en cours"),
+    ANTECEDENT_GRAVE("antécédent grave");
+
+    private final String libelle;
+
+    DrapeauRisque(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public int masque() {
+        return 1 << ordinal();
+    }
+
+    public boolean estDans(int drapeaux) {
+        return (drapeaux & masque()) != 0;
+    }
+
+    /**
+     * Indicateurs portés par un antécédent (0 s'il est inactif), d'après son type et sa gravité
+     */
+    public static int de(Antecedent a) {
+        if (a == null || !a.isActif()) return 0;
+        String type = normaliser(a.getType());
+        boolean grave = normaliser(a.getGravite()).startsWith("grave") || normaliser(a.getGravite()).startsWith("severe");
+        int drapeaux = 0;
+        if (type.contains("allerg")) {
+            drapeaux |= ALLERGIE.masque();
+            if (grave) drapeaux |= ALLERGIE_GRAVE.masque();
+        }
+        if (type.contains("chroni")) drapeaux |= MALADIE_CHRONIQUE.masque();
+        if (type.contains("traitement")) drapeaux |= TRAITEMENT_EN_COURS.masque();
+        if (grave) drapeaux |= ANTECEDENT_GRAVE.masque();
+        return drapeaux;
+    }
+
+    public static EnumSet<DrapeauRisque> depuis(int drapeaux) {
+        EnumSet<DrapeauRisque> ensemble = EnumSet.noneOf(DrapeauRisque.class);
+        for (DrapeauRisque d : values()) {
+            if (d.estDans(drapeaux)) ensemble.add(d);
+        }
+        return ensemble;
+    }
+
+    /**
+     * Libellés séparés par des virgules, ex : "allergie, allergie grave"
+     */
+    public static String libelles(int drapeaux) {
+        StringJoiner sj = new StringJoiner(", ");
+        for (DrapeauRisque d : values()) {
+            if (d.estDans(drapeaux)) sj.add(d.libelle);
+        }
+        return sj.toString();
+    }
+
+    private static String normaliser(String texte) {
+        if (texte == null) return "";
+        return Normalizer.normalize(texte, Normalizer.Form.NFD).replaceAll("\\p{M}+", "").toLowerCase().trim();
+    }
+}
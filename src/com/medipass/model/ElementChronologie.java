@@ -0,0 +1,55 @@
+package com.medipass.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrée de la chronologie d'un dossier : une consultation ou un antécédent, avec sa date
+ * (début de journée pour un antécédent)
+ */
+public final class ElementChronologie {
+    private final LocalDateTime date;
+    private final Consultation consultation;
+    private final Antecedent antecedent;
+    private final int ligneArchive; // -1 hors archive
+
+    ElementChronologie(Consultation consultation) {
+        this(consultation, -1);
+    }
+
+    ElementChronologie(Consultation consultation, int ligneArchive) {
+        this.date = consultation.getDateHeure();
+        this.consultation = consultation;
+        this.antecedent = null;
+        this.ligneArchive = ligneArchive;
+    }
+
+    ElementChronologie(Antecedent antecedent) {
+        this.date = Chronologie.date(antecedent);
+        this.consultation = null;
+        this.antecedent = antecedent;
+        this.ligneArchive = -1;
+    }
+
+    public LocalDateTime getDate() { return date; }
+    public Consultation getConsultation() { return consultation; }
+    public Antecedent getAntecedent() { return antecedent; }
+
+    public boolean estConsultation() {
+        return consultation != null;
+    }
+
+    /**
+     * Curseur "date#C#id", "date#R#ligne" (archive) ou "date#A#id" pour reprendre la chronologie
+     * juste après cette entrée
+     */
+    public String getCurseur() {
+        if (ligneArchive >= 0) return date + "#R#" + ligneArchive;
+        return date + (consultation != null ? "#C#" + consultation.getIdConsultation()
+                                            : "#A#" + antecedent.getIdAntecedent());
+    }
+
+    @Override
+    public String toString() {
+        return consultation != null ? consultation.toString() : "Antécédent " + antecedent;
+    }
+}
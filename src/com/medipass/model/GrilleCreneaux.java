@@ -0,0 +1,115 @@
+package com.medipass.model;
+
+import java.time.LocalTime;
+
+/**
+ * Découpage d'une journée en créneaux de 5 minutes, stockés comme bits dans des long.
+ * Une journée = 288 créneaux = 5 mots de 64 bits. Les plages sont [debut, fin[ en index de créneau.
+ */
+public final class GrilleCreneaux {
+    public static final int MINUTES_PAR_CRENEAU = 5;
+    public static final int CRENEAUX_PAR_JOUR = 24 * 60 / MINUTES_PAR_CRENEAU;
+    public static final int MOTS_PAR_JOUR = (CRENEAUX_PAR_JOUR + 63) / 64;
+
+    private GrilleCreneaux() {}
+
+    /**
+     * Index du créneau contenant l'heure donnée (arrondi à l'inférieur)
+     */
+    public static int creneauDebut(LocalTime heure) {
+        return (heure.getHour() * 60 + heure.getMinute()) / MINUTES_PAR_CRENEAU;
+    }
+
+    /**
+     * Convertit une minute de la journée en index de créneau de fin (arrondi au supérieur)
+     */
+    public static int creneauFin(int minuteDuJour) {
+        return (minuteDuJour + MINUTES_PAR_CRENEAU - 1) / MINUTES_PAR_CRENEAU;
+    }
+
+    /**
+     * Masque des bits [debut, fin[ à l'intérieur du mot d'index mot
+     */
+    private static long masqueMot(int mot, int debut, int fin) {
+        int base = mot * 64;
+        int d = Math.max(debut, base) - base;
+        int f = Math.min(fin, base + 64) - base;
+        if (f <= d) return 0L;
+        long haut = f == 64 ? -1L : (1L << f) - 1;
+        return haut & (-1L << d);
+    }
+
+    /**
+     * Met à 1 les créneaux [debut, fin[ d'une journée
+     */
+    public static void remplir(long[] jour, int offset, int debut, int fin) {
+        for (int mot = debut >>> 6; mot < MOTS_PAR_JOUR && mot * 64 < fin; mot++) {
+            jour[offset + mot] |= masqueMot(mot, debut, fin);
+        }
+    }
+
+    /**
+     * Met à 0 les créneaux [debut, fin[ d'une journée
+     */
+    public static void vider(long[] jour, int offset, int debut, int fin) {
+        for (int mot = debut >>> 6; mot < MOTS_PAR_JOUR && mot * 64 < fin; mot++) {
+            jour[offset + mot] &= ~masqueMot(mot, debut, fin);
+        }
+    }
+
+    /**
+     * Vrai si aucun créneau de [debut, fin[ n'est occupé
+     */
+    public static boolean estLibre(long[] jour, int offset, int debut, int fin) {
+        for (int mot = debut >>> 6; mot < MOTS_PAR_JOUR && mot * 64 < fin; mot++) {
+            if ((jour[offset + mot] & masqueMot(mot, debut, fin)) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Vrai si tous les créneaux de [debut, fin[ sont à 1
+     */
+    public static boolean estPlein(long[] jour, int offset, int debut, int fin) {
+        for (int mot = debut >>> 6; mot < MOTS_PAR_JOUR && mot * 64 < fin; mot++) {
+            long masque = masqueMot(mot, debut, fin);
+            if ((jour[offset + mot] & masque) != masque) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Index du premier créneau à 1 à partir de depuis, ou CRENEAUX_PAR_JOUR s'il n'y en a pas
+     */
+    public static int prochainUn(long[] jour, int offset, int depuis) {
+        for (int mot = depuis >>> 6; mot < MOTS_PAR_JOUR; mot++) {
+            long bits = jour[offset + mot];
+            if (mot == depuis >>> 6) bits &= -1L << (depuis & 63);
+            if (bits != 0) return Math.min(mot * 64 + Long.numberOfTrailingZeros(bits), CRENEAUX_PAR_JOUR);
+        }
+        return CRENEAUX_PAR_JOUR;
+    }
+
+    /**
+     * Index du premier créneau à 0 à partir de depuis, ou CRENEAUX_PAR_JOUR s'il n'y en a pas
+     */
+    public static int prochainZero(long[] jour, int offset, int depuis) {
+        for (int mot = depuis >>> 6; mot < MOTS_PAR_JOUR; mot++) {
+            long bits = ~jour[offset + mot];
+            if (mot == depuis >>> 6) bits &= -1L << (depuis & 63);
+            if (bits != 0) return Math.min(mot * 64 + Long.numberOfTrailingZeros(bits), CRENEAUX_PAR_JOUR);
+        }
+        return CRENEAUX_PAR_JOUR;
+    }
+
+    /**
+     * Nombre de créneaux à 1 dans une journée
+     */
+    public static int compter(long[] jour, int offset) {
+        int n = 0;
+        for (int mot = 0; mot < MOTS_PAR_JOUR; mot++) {
+            n += Long.bitCount(jour[offset + mot]);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,176 @@
+package com.medipass.model;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Horaires de disponibilité d'un professionnel, sous forme de masque de créneaux par jour de la semaine.
+ * Construit une seule fois à partir du texte libre ("9h-12h, 14h-18h", "lun-ven 9h-17h / sam 9h-12h"),
+ * puis interrogé uniquement par opérations sur les bits. Instances immuables.
+ */
+public final class HorairesHebdomadaires {
+    private static final int OCTETS_PAR_JOUR = (GrilleCreneaux.CRENEAUX_PAR_JOUR + 7) / 8;
+    private static final String[] JOURS = {"lun", "mar", "mer", "jeu", "ven", "sam", "dim"};
+    private static final Pattern PLAGE = Pattern.compile("(\\d{1,2})(?:[h:](\\d{2})?)?\\s*-\\s*(\\d{1,2})(?:[h:](\\d{2})?)?");
+
+    public static final HorairesHebdomadaires PAR_DEFAUT = parser("9h-17h");
+
+    // 7 jours x MOTS_PAR_JOUR, lundi en premier
+    private final long[] masques;
+
+    private HorairesHebdomadaires(long[] masques) {
+        this.masques = masques;
+    }
+
+    /**
+     * Analyse un texte d'horaires. Sans jours précisés, les plages valent pour toute la semaine.
+     * Les segments sont séparés par '/', les plages par ','.
+     * @return les horaires, ou null si le texte est invalide
+     */
+    public static HorairesHebdomadaires parser(String texte) {
+        if (texte == null || texte.trim().isEmpty()) return null;
+        long[] masques = new long[7 * GrilleCreneaux.MOTS_PAR_JOUR];
+
+        for (String segment : texte.toLowerCase().split("/")) {
+            segment = segment.trim();
+            if (segment.isEmpty()) continue;
+
+            // Jours éventuels en tête du segment : "lun-ven", "sam", "mardi"
+            boolean[] jours = new boolean[7];
+            int espace = segment.indexOf(' ');
+            String tete = espace > 0 ? segment.substring(0, espace) : segment;
+            if (Character.isLetter(tete.charAt(0))) {
+                if (!lireJours(tete, jours)) return null;
+                segment = espace > 0 ? segment.substring(espace + 1) : "";
+            } else {
+                java.util.Arrays.fill(jours, true);
+            }
+
+            for (String plage : segment.split(",")) {
+                plage = plage.trim();
+                if (plage.isEmpty()) continue;
+                Matcher m = PLAGE.matcher(plage);
+                if (!m.matches()) return null;
+                int debut = minutes(m.group(1), m.group(2));
+                int fin = minutes(m.group(3), m.group(4));
+                if (debut < 0 || fin < 0 || fin <= debut) return null;
+                for (int j = 0; j < 7; j++) {
+                    if (jours[j]) {
+                        GrilleCreneaux.remplir(masques, j * GrilleCreneaux.MOTS_PAR_JOUR,
+                                debut / GrilleCreneaux.MINUTES_PAR_CRENEAU, fin / GrilleCreneaux.MINUTES_PAR_CRENEAU);
+                    }
+                }
+            }
+        }
+        return new HorairesHebdomadaires(masques);
+    }
+
+    private static boolean lireJours(String tete, boolean[] jours) {
+        String[] bornes = tete.split("-");
+        if (bornes.length > 2) return false;
+        int debut = indexJour(bornes[0]);
+        int fin = bornes.length == 2 ? indexJour(bornes[1]) : debut;
+        if (debut < 0 || fin < 0) return false;
+        for (int j = debut; ; j = (j + 1) % 7) {
+            jours[j] = true;
+            if (j == fin) break;
+        }
+        return true;
+    }
+
+    private static int indexJour(String nom) {
+        if (nom.length() < 3) return -1;
+        String prefixe = nom.substring(0, 3);
+        for (int j = 0; j < JOURS.length; j++) {
+            if (JOURS[j].equals(prefixe)) return j;
+        }
+        return -1;
+    }
+
+    private static int minutes(String heures, String minutes) {
+        int h = Integer.parseInt(heures);
+        int m = minutes == null ? 0 : Integer.parseInt(minutes);
+        if (h > 24 || m > 59 || (h == 24 && m > 0)) return -1;
+        return h * 60 + m;
+    }
+
+    /**
+     * Vérifie que la plage [debut, debut + durée[ est entièrement dans les horaires.
+     * Une consultation qui passe minuit est vérifiée sur chacun des jours concernés.
+     */
+    public boolean couvre(LocalDateTime debut, int dureeMinutes) {
+        LocalDateTime jour = debut.toLocalDate().atStartOfDay();
+        int minuteDebut = debut.getHour() * 60 + debut.getMinute();
+        int minuteFin = minuteDebut + dureeMinutes;
+        while (true) {
+            int offset = offsetJour(jour.getDayOfWeek());
+            int fin = Math.min(minuteFin, 24 * 60);
+            if (!GrilleCreneaux.estPlein(masques, offset, minuteDebut / GrilleCreneaux.MINUTES_PAR_CRENEAU,
+                    GrilleCreneaux.creneauFin(fin))) {
+                return false;
+            }
+            if (minuteFin <= 24 * 60) return true;
+            minuteFin -= 24 * 60;
+            minuteDebut = 0;
+            jour = jour.plusDays(1);
+        }
+    }
+
+    /**
+     * Copie du masque du jour donné dans dest[offsetDest .. offsetDest + MOTS_PAR_JOUR[
+     */
+    public void copierJour(DayOfWeek jour, long[] dest, int offsetDest) {
+        System.arraycopy(masques, offsetJour(jour), dest, offsetDest, GrilleCreneaux.MOTS_PAR_JOUR);
+    }
+
+    /**
+     * Minutes disponibles pour un jour de la semaine
+     */
+    public int minutesDisponibles(DayOfWeek jour) {
+        return GrilleCreneaux.compter(masques, offsetJour(jour)) * GrilleCreneaux.MINUTES_PAR_CRENEAU;
+    }
+
+    private static int offsetJour(DayOfWeek jour) {
+        return (jour.getValue() - 1) * GrilleCreneaux.MOTS_PAR_JOUR;
+    }
+
+    /**
+     * Encode le masque en Base64 (36 octets par jour) pour la persistance CSV
+     */
+    public String encoder() {
+        ByteBuffer buffer = ByteBuffer.allocate(7 * OCTETS_PAR_JOUR);
+        for (int j = 0; j < 7; j++) {
+            for (int octet = 0; octet < OCTETS_PAR_JOUR; octet++) {
+                long mot = masques[j * GrilleCreneaux.MOTS_PAR_JOUR + octet / 8];
+                buffer.put((byte) (mot >>> ((octet % 8) * 8)));
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Décode un masque produit par encoder()
+     * @return les horaires, ou null si le texte est invalide
+     */
+    public static HorairesHebdomadaires decoder(String texte) {
+        byte[] octets;
+        try {
+            octets = Base64.getUrlDecoder().decode(texte);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (octets.length != 7 * OCTETS_PAR_JOUR) return null;
+        long[] masques = new long[7 * GrilleCreneaux.MOTS_PAR_JOUR];
+        for (int j = 0; j < 7; j++) {
+            for (int octet = 0; octet < OCTETS_PAR_JOUR; octet++) {
+                masques[j * GrilleCreneaux.MOTS_PAR_JOUR + octet / 8] |=
+                        (octets[j * OCTETS_PAR_JOUR + octet] & 0xFFL) << ((octet % 8) * 8);
+            }
+        }
+        return new HorairesHebdomadaires(masques);
+    }
+}
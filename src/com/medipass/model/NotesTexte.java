@@ -0,0 +1,194 @@
+package com.medipass.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Magasin des textes libres (observations, diagnostics, descriptions d'antécédents) : un fichier
+ * en ajout seul, où chaque texte est écrit une fois en UTF-8. Les enregistrements ne gardent
+ * qu'une référence (position et longueur réunies dans un long) et le texte n'est relu qu'à la demande,
+ * à travers un cache borné en poids qui évince les textes les moins récemment lus.
+ *
+ * Un texte modifié est réécrit à la fin du fichier ; l'ancienne version reste en place sans être
+ * référencée. Tant que ouvrir() n'a pas été appelé, les textes sont gardés en mémoire.
+ */
+public final class NotesTexte {
+
+    /** Référence d'un texte absent (null ou vide) */
+    public static final long AUCUNE = 0;
+
+    private static final int BITS_LONGUEUR = 24;
+    static final int LONGUEUR_MAX = (1 << BITS_LONGUEUR) - 1;
+    private static final long POIDS_CACHE_MAX = 8L << 20;
+    // Estimation du coût fixe d'une entrée du cache (clé, nœud de la table, objets)
+    private static final int SURCOUT_ENTREE = 96;
+
+    private static FileChannel canal;
+    private static Path fichier;
+    private static long fin;
+    private static byte[] memoire = new byte[0];
+    private static final LinkedHashMap<Long, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long poidsCache;
+
+    private NotesTexte() {}
+
+    /**
+     * Ouvre (ou crée) le fichier des textes ; à appeler au démarrage, avant tout chargement
+     * @return false si le fichier ne peut pas être ouvert (les textes restent alors en mémoire)
+     */
+    public static synchronized boolean ouvrir(Path chemin) {
+        try {
+            FileChannel nouveau = FileChannel.open(chemin, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (canal != null) canal.close();
+            canal = nouveau;
+            fichier = chemin;
+            fin = canal.size();
+            memoire = new byte[0];
+            cache.clear();
+            poidsCache = 0;
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Fichier des notes inaccessible : " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ajoute un texte à la fin du magasin
+     * @return sa référence, AUCUNE si le texte est null ou vide (ou en cas d'erreur d'écriture)
+     */
+    public static synchronized long ecrire(String texte) {
+        if (texte == null || texte.isEmpty()) return AUCUNE;
+        byte[] utf8 = texte.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > LONGUEUR_MAX) {
+            System.err.println("⚠️ Texte tronqué à " + LONGUEUR_MAX + " octets");
+            utf8 = Arrays.copyOf(utf8, LONGUEUR_MAX);
+            texte = new String(utf8, StandardCharsets.UTF_8);
+        }
+        long position = fin;
+        try {
+            if (canal != null) {
+                ByteBuffer tampon = ByteBuffer.wrap(utf8);
+                while (tampon.hasRemaining()) {
+                    canal.write(tampon, position + tampon.position());
+                }
+            } else {
+                if (position + utf8.length > Integer.MAX_VALUE) throw new IOException("magasin en mémoire plein");
+                if (position + utf8.length > memoire.length) {
+                    memoire = Arrays.copyOf(memoire, (int) Math.min(Integer.MAX_VALUE,
+                            Math.max(position + utf8.length, 2L * memoire.length)));
+                }
+                System.arraycopy(utf8, 0, memoire, (int) position, utf8.length);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture note : " + e.getMessage());
+            return AUCUNE;
+        }
+        fin += utf8.length;
+        long reference = (position << BITS_LONGUEUR) | utf8.length;
+        mettreEnCache(reference, texte);
+        return reference;
+    }
+
+    /**
+     * Texte d'une référence rendue par ecrire()
+     * @return null pour AUCUNE, ou si la référence est hors du magasin
+     */
+    public static synchronized String lire(long reference) {
+        if (reference == AUCUNE) return null;
+        String texte = cache.get(reference);
+        if (texte != null) return texte;
+        long position = reference >>> BITS_LONGUEUR;
+        int longueur = (int) (reference & LONGUEUR_MAX);
+        if (position + longueur > fin) {
+            System.err.println("❌ Note hors du fichier : " + formater(reference));
+            return null;
+        }
+        byte[] utf8 = new byte[longueur];
+        try {
+            if (canal != null) {
+                ByteBuffer tampon = ByteBuffer.wrap(utf8);
+                while (tampon.hasRemaining()) {
+                    if (canal.read(tampon, position + tampon.position()) < 0) throw new IOException("fin de fichier");
+                }
+            } else {
+                System.arraycopy(memoire, (int) position, utf8, 0, longueur);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Erreur lecture note : " + e.getMessage());
+            return null;
+        }
+        texte = new String(utf8, StandardCharsets.UTF_8);
+        mettreEnCache(reference, texte);
+        return texte;
+    }
+
+    /**
+     * Force l'écriture sur disque des textes ajoutés (avant de sauvegarder les fichiers qui les référencent)
+     */
+    public static synchronized void synchroniser() {
+        if (canal == null) return;
+        try {
+            canal.force(false);
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture notes : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forme texte d'une référence pour les fichiers CSV ("position:longueur", vide pour AUCUNE)
+     */
+    public static String formater(long reference) {
+        if (reference == AUCUNE) return "";
+        return (reference >>> BITS_LONGUEUR) + ":" + (reference & LONGUEUR_MAX);
+    }
+
+    /**
+     * Inverse de formater()
+     * @throws IllegalArgumentException si la chaîne n'est pas une référence
+     */
+    public static long referenceDe(String s) {
+        if (s == null || s.isEmpty()) return AUCUNE;
+        int separateur = s.indexOf(':');
+        if (separateur < 0) throw new IllegalArgumentException("Référence de note invalide : " + s);
+        long position = Long.parseLong(s.substring(0, separateur));
+        long longueur = Long.parseLong(s.substring(separateur + 1));
+        if (position < 0 || position >= 1L << (63 - BITS_LONGUEUR) || longueur <= 0 || longueur > LONGUEUR_MAX) {
+            throw new IllegalArgumentException("Référence de note invalide : " + s);
+        }
+        return (position << BITS_LONGUEUR) | longueur;
+    }
+
+    /**
+     * Taille du magasin en octets (textes périmés compris)
+     */
+    public static synchronized long taille() {
+        return fin;
+    }
+
+    public static synchronized Path getFichier() {
+        return fichier;
+    }
+
+    private static void mettreEnCache(long reference, String texte) {
+        long poids = SURCOUT_ENTREE + 2L * texte.length();
+        if (poids > POIDS_CACHE_MAX) return;
+        String ancien = cache.put(reference, texte);
+        if (ancien != null) poidsCache -= SURCOUT_ENTREE + 2L * ancien.length();
+        poidsCache += poids;
+        Iterator<Map.Entry<Long, String>> it = cache.entrySet().iterator();
+        while (poidsCache > POIDS_CACHE_MAX && it.hasNext()) {
+            poidsCache -= SURCOUT_ENTREE + 2L * it.next().getValue().length();
+            it.remove();
+        }
+    }
+}
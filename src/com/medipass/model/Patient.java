@@ -27,7 +27,7 @@ public class Patient extends Personne {
     }
 
     public void setGroupeSanguin(String g) {
-        this.groupeSanguin = g;
+        this.groupeSanguin = Dictionnaire.interner(g);
     }
 
     public DossierMedical getDossierMedical() {
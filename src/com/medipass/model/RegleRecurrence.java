@@ -0,0 +1,113 @@
+package com.medipass.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Règle de récurrence d'une série de consultations : fréquence, intervalle,
+ * et borne (nombre d'occurrences ou date de fin incluse).
+ */
+public class RegleRecurrence {
+
+    public enum Frequence { QUOTIDIENNE, HEBDOMADAIRE, MENSUELLE }
+
+    private final Frequence frequence;
+    private final int intervalle;
+    private final int nombre;       // 0 si la série est bornée par une date
+    private final LocalDate jusqua; // null si la série est bornée par un nombre
+
+    public RegleRecurrence(Frequence frequence, int intervalle, int nombre, LocalDate jusqua) {
+        if (frequence == null || intervalle <= 0) {
+            throw new IllegalArgumentException("Fréquence et intervalle (> 0) obligatoires");
+        }
+        if (nombre <= 0 && jusqua == null) {
+            throw new IllegalArgumentException("Une série doit être bornée par un nombre ou une date de fin");
+        }
+        this.frequence = frequence;
+        this.intervalle = intervalle;
+        this.nombre = Math.max(nombre, 0);
+        this.jusqua = jusqua;
+    }
+
+    public Frequence getFrequence() { return frequence; }
+    public int getIntervalle() { return intervalle; }
+    public int getNombre() { return nombre; }
+    public LocalDate getJusqua() { return jusqua; }
+
+    /**
+     * Date de l'occurrence d'index donné (0 = première)
+     */
+    public LocalDateTime occurrence(LocalDateTime premiere, int index) {
+        long pas = (long) index * intervalle;
+        return switch (frequence) {
+            case QUOTIDIENNE -> premiere.plusDays(pas);
+            case HEBDOMADAIRE -> premiere.plusWeeks(pas);
+            case MENSUELLE -> premiere.plusMonths(pas);
+        };
+    }
+
+    /**
+     * Nombre total d'occurrences de la série
+     */
+    public int nombreOccurrences(LocalDateTime premiere) {
+        int parDate = Integer.MAX_VALUE;
+        if (jusqua != null) {
+            if (jusqua.isBefore(premiere.toLocalDate())) return 0;
+            int estimation = indexAuPlusTot(premiere, jusqua.plusDays(1).atStartOfDay());
+            // Ajuste l'estimation (les mois n'ont pas tous la même longueur)
+            while (estimation > 0 && occurrence(premiere, estimation - 1).toLocalDate().isAfter(jusqua)) estimation--;
+            while (!occurrence(premiere, estimation).toLocalDate().isAfter(jusqua)) estimation++;
+            parDate = estimation;
+        }
+        return nombre > 0 ? Math.min(nombre, parDate) : parDate;
+    }
+
+    /**
+     * Premier index dont l'occurrence commence à partir de la date donnée
+     * (calcul direct, sans parcourir les occurrences précédentes)
+     */
+    public int indexAuPlusTot(LocalDateTime premiere, LocalDateTime date) {
+        if (!date.isAfter(premiere)) return 0;
+        ChronoUnit unite = switch (frequence) {
+            case QUOTIDIENNE -> ChronoUnit.DAYS;
+            case HEBDOMADAIRE -> ChronoUnit.WEEKS;
+            case MENSUELLE -> ChronoUnit.MONTHS;
+        };
+        long index = unite.between(premiere, date) / intervalle;
+        while (index > 0 && !occurrence(premiere, (int) index - 1).isBefore(date)) index--;
+        while (occurrence(premiere, (int) index).isBefore(date)) index++;
+        return (int) Math.min(index, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Format de persistance : FREQUENCE:intervalle:nombre:jusqua
+     */
+    public String encoder() {
+        return frequence + ":" + intervalle + ":" + (nombre > 0 ? nombre : "") + ":" + (jusqua != null ? jusqua : "");
+    }
+
+    public static RegleRecurrence decoder(String texte) {
+        String[] parts = texte.split(":", -1);
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Règle de récurrence invalide : " + texte);
+        }
+        return new RegleRecurrence(
+                Frequence.valueOf(parts[0]),
+                Integer.parseInt(parts[1]),
+                parts[2].isEmpty() ? 0 : Integer.parseInt(parts[2]),
+                parts[3].isEmpty() ? null : LocalDate.parse(parts[3]));
+    }
+
+    @Override
+    public String toString() {
+        String unite = switch (frequence) {
+            case QUOTIDIENNE -> "jour(s)";
+            case HEBDOMADAIRE -> "semaine(s)";
+            case MENSUELLE -> "mois";
+        };
+        String borne = nombre > 0 ? nombre + " fois" : "";
+        if (jusqua != null) borne += (borne.isEmpty() ? "" : ", ") + "jusqu'au " + jusqua;
+        return "toutes les " + intervalle + " " + unite + " (" + borne + ")";
+    }
+}
@@ -0,0 +1,439 @@
+package com.medipass.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Archive en lecture seule des consultations closes (effectuées ou annulées) et anciennes,
+ * projetée en mémoire (FileChannel.map) : les colonnes restent hors du tas et ne sont lues qu'à la demande.
+ *
+ * Format : en-tête, une colonne par champ (début en minutes, durée, références NotesTexte des observations
+ * et du diagnostic, statut, motif, professionnel, patient), deux ordres de lecture (par professionnel puis
+ * date, par patient puis date) et une table de chaînes UTF-8 (statuts, motifs et logins partagés).
+ * Les textes libres restent dans NotesTexte : l'archive n'en garde que les références.
+ * Une ligne n'est jamais renumérotée : ajouter() réécrit le fichier avec les lignes existantes
+ * puis les nouvelles, si bien que les références tenues par les dossiers et l'index restent valides.
+ */
+public class SegmentArchive {
+
+    private static final int MAGIC = 0x4D504152; // "MPAR"
+    private static final int VERSION = 2;
+    private static final int ENTETE = 16;
+    private static final int SANS_TEXTE = -1;
+
+    // Colonnes de références (8 octets), après les débuts et les durées (2 octets)
+    private static final int OBSERVATIONS = 0;
+    private static final int DIAGNOSTIC = 1;
+    // Colonnes entières, dans l'ordre du fichier
+    private static final int STATUT = 0;
+    private static final int MOTIF = 1;
+    private static final int PROFESSIONNEL = 2;
+    private static final int PATIENT = 3;
+    private static final int ORDRE_PROFESSIONNEL = 4;
+    private static final int ORDRE_PATIENT = 5;
+
+    private final Path fichier;
+    private final Map<String, ProfessionnelSante> prosParLogin = new ConcurrentHashMap<>();
+    private final Map<Integer, Patient> patientsParId = new ConcurrentHashMap<>();
+    private volatile Projection projection;
+
+    /**
+     * Contenu projeté du fichier ; remplacé en bloc par ajouter()
+     */
+    private static final class Projection {
+        final ByteBuffer octets;
+        final int lignes;
+        final int chaines;
+        final int debutNotes;
+        final int debutColonnes;
+        final int debutChaines;
+        final int debutOctets;
+        // Identifiants de session : la ligne i du bloc b a l'id premiersIds[b] + i - premieresLignes[b]
+        final int[] premieresLignes;
+        final int[] premiersIds;
+        final Map<String, Integer> chaineParLogin = new HashMap<>();
+        final Map<Integer, String> chainesCourtes = new ConcurrentHashMap<>();
+
+        Projection(ByteBuffer octets, int[] premieresLignes, int[] premiersIds) {
+            this.octets = octets;
+            this.lignes = octets.capacity() == 0 ? 0 : octets.getInt(8);
+            this.chaines = octets.capacity() == 0 ? 0 : octets.getInt(12);
+            this.debutNotes = ENTETE + 6 * lignes;
+            this.debutColonnes = debutNotes + 8 * lignes * (DIAGNOSTIC + 1);
+            this.debutChaines = debutColonnes + 4 * lignes * (ORDRE_PATIENT + 1);
+            this.debutOctets = debutChaines + 4 * (chaines + 1);
+            this.premieresLignes = premieresLignes;
+            this.premiersIds = premiersIds;
+            // Un passage sur l'ordre par professionnel : une entrée par suite de même login
+            int precedent = SANS_TEXTE;
+            for (int k = 0; k < lignes; k++) {
+                int login = entier(PROFESSIONNEL, entier(ORDRE_PROFESSIONNEL, k));
+                if (login != precedent && login != SANS_TEXTE) chaineParLogin.put(chaine(login), login);
+                precedent = login;
+            }
+        }
+
+        int debut(int ligne) { return octets.getInt(ENTETE + 4 * ligne); }
+        int duree(int ligne) { return octets.getShort(ENTETE + 4 * lignes + 2 * ligne); }
+        long note(int colonne, int ligne) { return octets.getLong(debutNotes + 8 * (colonne * lignes + ligne)); }
+        int entier(int colonne, int ligne) { return octets.getInt(debutColonnes + 4 * (colonne * lignes + ligne)); }
+
+        String chaine(int id) {
+            if (id < 0) return null;
+            int a = octets.getInt(debutChaines + 4 * id);
+            int b = octets.getInt(debutChaines + 4 * (id + 1));
+            byte[] utf8 = new byte[b - a];
+            octets.get(debutOctets + a, utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Chaîne très répétée (statut, motif, login) : décodée une fois puis partagée dans l'archive.
+         * Le motif est une saisie libre : il ne passe pas par le Dictionnaire global.
+         */
+        String chaineCourte(int id) {
+            return id < 0 ? null : chainesCourtes.computeIfAbsent(id, this::chaine);
+        }
+
+        int id(int ligne) {
+            int b = Arrays.binarySearch(premieresLignes, ligne);
+            if (b < 0) b = -b - 2;
+            return premiersIds[b] + ligne - premieresLignes[b];
+        }
+    }
+
+    private SegmentArchive(Path fichier, List<ProfessionnelSante> pros, List<Patient> patients) {
+        this.fichier = fichier;
+        for (ProfessionnelSante p : pros) prosParLogin.putIfAbsent(p.getLoginID(), p);
+        for (Patient p : patients) patientsParId.putIfAbsent(p.getId(), p);
+    }
+
+    /**
+     * Ouvre l'archive (vide si le fichier n'existe pas encore) et la rattache aux dossiers concernés
+     * @return null si le fichier est illisible (il n'est alors jamais réécrit)
+     */
+    public static SegmentArchive ouvrir(Path fichier, List<ProfessionnelSante> pros, List<Patient> patients) {
+        SegmentArchive archive = new SegmentArchive(fichier, pros, patients);
+        try {
+            ByteBuffer octets = projeter(fichier);
+            if (octets.capacity() > 0 && (octets.capacity() < ENTETE
+                    || octets.getInt(0) != MAGIC || octets.getInt(4) != VERSION)) {
+                System.err.println("❌ Archive illisible : " + fichier);
+                return null;
+            }
+            int lignes = octets.capacity() == 0 ? 0 : octets.getInt(8);
+            archive.projection = new Projection(octets, new int[]{0},
+                    new int[]{Consultation.reserverIdentifiants(lignes)});
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Archive illisible : " + e.getMessage());
+            return null;
+        }
+        archive.rattacherDossiers(0);
+        return archive;
+    }
+
+    private static ByteBuffer projeter(Path fichier) throws IOException {
+        if (!Files.exists(fichier)) return ByteBuffer.allocate(0);
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+
+    /**
+     * Inscrit les consultations archivées comme au chargement des autres (calendriers d'occupation,
+     * statistiques, charge) : à appeler une fois au démarrage, index texte suspendu
+     */
+    public void inscrire() {
+        Projection p = projection;
+        for (int i = 0; i < p.lignes; i++) {
+            consultation(i).inscrire();
+        }
+    }
+
+    /**
+     * Ajoute des consultations closes à la fin de l'archive (réécriture du fichier puis nouvelle projection)
+     * @return false en cas d'erreur d'écriture (archive inchangée)
+     */
+    public synchronized boolean ajouter(List<Consultation> consultations) {
+        if (consultations.isEmpty()) return true;
+        Projection p = projection;
+        int anciennes = p.lignes;
+        int total = anciennes + consultations.size();
+
+        // Table de chaînes : les identifiants existants sont conservés, les chaînes courtes partagées
+        List<byte[]> nouvellesChaines = new ArrayList<>();
+        Map<String, Integer> chainesConnues = new HashMap<>();
+        for (int id = 0; id < p.chaines; id++) {
+            String s = p.chaine(id);
+            if (s.length() <= Dictionnaire.LONGUEUR_MAX) chainesConnues.putIfAbsent(s, id);
+        }
+        int[] debuts = new int[total];
+        long[][] notes = new long[DIAGNOSTIC + 1][total];
+        int[][] colonnes = new int[PATIENT + 1][total];
+        for (int i = 0; i < anciennes; i++) {
+            debuts[i] = p.debut(i);
+            for (int c = 0; c <= DIAGNOSTIC; c++) notes[c][i] = p.note(c, i);
+            for (int c = 0; c <= PATIENT; c++) colonnes[c][i] = p.entier(c, i);
+        }
+        for (int k = 0; k < consultations.size(); k++) {
+            Consultation c = consultations.get(k);
+            if (c.getProfessionnel() != null) prosParLogin.putIfAbsent(c.getProfessionnel().getLoginID(), c.getProfessionnel());
+            if (c.getPatient() != null) patientsParId.putIfAbsent(c.getPatient().getId(), c.getPatient());
+            int i = anciennes + k;
+            debuts[i] = ColonnesConsultations.minutes(c.getDateHeure());
+            colonnes[STATUT][i] = coder(c.getStatut(), p.chaines, chainesConnues, nouvellesChaines);
+            colonnes[MOTIF][i] = coder(c.getMotif(), p.chaines, chainesConnues, nouvellesChaines);
+            notes[OBSERVATIONS][i] = c.getReferenceObservations();
+            notes[DIAGNOSTIC][i] = c.getReferenceDiagnostic();
+            colonnes[PROFESSIONNEL][i] = coder(c.getProfessionnel() == null ? null : c.getProfessionnel().getLoginID(),
+                    p.chaines, chainesConnues, nouvellesChaines);
+            colonnes[PATIENT][i] = c.getPatient() == null ? -1 : c.getPatient().getId();
+        }
+        int[] ordrePro = ordre(total, colonnes[PROFESSIONNEL], debuts);
+        int[] ordrePatient = ordre(total, colonnes[PATIENT], debuts);
+
+        // Les textes référencés sont sur disque avant l'archive qui les référence
+        NotesTexte.synchroniser();
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (FileOutputStream flux = new FileOutputStream(temporaire.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(flux, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(total);
+            out.writeInt(p.chaines + nouvellesChaines.size());
+            for (int i = 0; i < total; i++) out.writeInt(debuts[i]);
+            for (int i = 0; i < total; i++) {
+                int duree = i < anciennes ? p.duree(i) : consultations.get(i - anciennes).getDureeMinutes();
+                out.writeShort(Math.min(duree, Short.MAX_VALUE));
+            }
+            for (long[] colonne : notes) {
+                for (int i = 0; i < total; i++) out.writeLong(colonne[i]);
+            }
+            for (int[] colonne : colonnes) {
+                for (int i = 0; i < total; i++) out.writeInt(colonne[i]);
+            }
+            for (int i = 0; i < total; i++) out.writeInt(ordrePro[i]);
+            for (int i = 0; i < total; i++) out.writeInt(ordrePatient[i]);
+            // Fin de chaque chaîne dans la zone d'octets (la première commence à 0)
+            int fin = 0;
+            for (int id = 0; id <= p.chaines; id++) {
+                fin = p.chaines == 0 ? 0 : p.octets.getInt(p.debutChaines + 4 * id);
+                out.writeInt(fin);
+            }
+            for (byte[] s : nouvellesChaines) {
+                fin += s.length;
+                out.writeInt(fin);
+            }
+            if (p.chaines > 0) {
+                int taille = p.octets.getInt(p.debutChaines + 4 * p.chaines);
+                byte[] tampon = new byte[1 << 16];
+                for (int a = 0; a < taille; a += tampon.length) {
+                    int n = Math.min(tampon.length, taille - a);
+                    p.octets.get(p.debutOctets + a, tampon, 0, n);
+                    out.write(tampon, 0, n);
+                }
+            }
+            for (byte[] s : nouvellesChaines) out.write(s);
+            out.flush();
+            flux.getFD().sync();
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture archive : " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            int[] premieresLignes = Arrays.copyOf(p.premieresLignes, p.premieresLignes.length + 1);
+            int[] premiersIds = Arrays.copyOf(p.premiersIds, p.premiersIds.length + 1);
+            premieresLignes[premieresLignes.length - 1] = anciennes;
+            premiersIds[premiersIds.length - 1] = Consultation.reserverIdentifiants(consultations.size());
+            projection = new Projection(projeter(fichier), premieresLignes, premiersIds);
+        } catch (IOException e) {
+            System.err.println("❌ Erreur écriture archive : " + e.getMessage());
+            return false;
+        }
+        rattacherDossiers(anciennes);
+        for (int k = 0; k < consultations.size(); k++) {
+            consultations.get(k).notifierArchivage(this, anciennes + k);
+        }
+        return true;
+    }
+
+    private static int coder(String s, int existantes, Map<String, Integer> connues, List<byte[]> nouvelles) {
+        if (s == null || s.isEmpty()) return SANS_TEXTE;
+        boolean courte = s.length() <= Dictionnaire.LONGUEUR_MAX;
+        if (courte) {
+            Integer id = connues.get(s);
+            if (id != null) return id;
+        }
+        int id = existantes + nouvelles.size();
+        nouvelles.add(s.getBytes(StandardCharsets.UTF_8));
+        if (courte) connues.put(s, id);
+        return id;
+    }
+
+    /**
+     * Lignes triées par (cle, début, ligne)
+     */
+    private static int[] ordre(int total, int[] cles, int[] debuts) {
+        Integer[] lignes = new Integer[total];
+        for (int i = 0; i < total; i++) lignes[i] = i;
+        Arrays.sort(lignes, Comparator.<Integer>comparingInt(i -> cles[i]).thenComparingInt(i -> debuts[i]));
+        int[] resultat = new int[total];
+        for (int i = 0; i < total; i++) resultat[i] = lignes[i];
+        return resultat;
+    }
+
+    private void rattacherDossiers(int premiereLigne) {
+        Projection p = projection;
+        for (int i = premiereLigne; i < p.lignes; i++) {
+            Patient patient = patientsParId.get(p.entier(PATIENT, i));
+            if (patient != null) patient.getDossierMedical().rattacherArchive(this);
+        }
+    }
+
+    /* ---------- Lecture ---------- */
+
+    public int taille() {
+        return projection.lignes;
+    }
+
+    public Path getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Consultation archivée reconstituée (lecture seule, non inscrite) ; l'objet n'est pas conservé
+     */
+    public Consultation consultation(int ligne) {
+        Projection p = projection;
+        return new Consultation(p.id(ligne), getDateHeure(ligne), p.duree(ligne),
+                p.chaineCourte(p.entier(STATUT, ligne)), p.chaineCourte(p.entier(MOTIF, ligne)),
+                getProfessionnel(ligne), getPatient(ligne),
+                p.note(OBSERVATIONS, ligne), p.note(DIAGNOSTIC, ligne));
+    }
+
+    public LocalDateTime getDateHeure(int ligne) {
+        return ColonnesConsultations.dateHeure(projection.debut(ligne));
+    }
+
+    public int getDureeMinutes(int ligne) {
+        return projection.duree(ligne);
+    }
+
+    public String getStatut(int ligne) {
+        Projection p = projection;
+        return p.chaineCourte(p.entier(STATUT, ligne));
+    }
+
+    public ProfessionnelSante getProfessionnel(int ligne) {
+        Projection p = projection;
+        return prosParLogin.get(p.chaineCourte(p.entier(PROFESSIONNEL, ligne)));
+    }
+
+    public Patient getPatient(int ligne) {
+        return patientsParId.get(projection.entier(PATIENT, ligne));
+    }
+
+    /**
+     * Positions [debut, fin[ des lignes du patient dans l'ordre (patient, date) ; voir lignePatient
+     */
+    public int[] plagePatient(int patientId) {
+        Projection p = projection;
+        return plage(p, ORDRE_PATIENT, PATIENT, patientId);
+    }
+
+    public int lignePatient(int position) {
+        return projection.entier(ORDRE_PATIENT, position);
+    }
+
+    /**
+     * Positions [debut, fin[ des lignes du professionnel dans l'ordre (professionnel, date) ; voir ligneProfessionnel
+     */
+    public int[] plageProfessionnel(String login) {
+        Projection p = projection;
+        Integer id = p.chaineParLogin.get(login);
+        return id == null ? new int[]{0, 0} : plage(p, ORDRE_PROFESSIONNEL, PROFESSIONNEL, id);
+    }
+
+    public int ligneProfessionnel(int position) {
+        return projection.entier(ORDRE_PROFESSIONNEL, position);
+    }
+
+    /**
+     * Première position de la plage (ordre patient ou professionnel) dont la ligne commence à partir de la date
+     */
+    public int premiereAPartirDe(int[] plage, boolean parPatient, LocalDateTime date) {
+        Projection p = projection;
+        int ordre = parPatient ? ORDRE_PATIENT : ORDRE_PROFESSIONNEL;
+        long secondes = date.toEpochSecond(ZoneOffset.UTC) + (date.getNano() > 0 ? 1 : 0);
+        long cible = Math.floorDiv(secondes + 59, 60);
+        int bas = plage[0];
+        int haut = plage[1];
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (p.debut(p.entier(ordre, milieu)) < cible) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Vrai si l'archive contient déjà cette consultation (professionnel, début, patient)
+     */
+    public boolean contient(String login, LocalDateTime debut, int patientId) {
+        Projection p = projection;
+        int[] plage = plageProfessionnel(login);
+        int minute = ColonnesConsultations.minutes(debut);
+        for (int k = premiereAPartirDe(plage, false, debut); k < plage[1]; k++) {
+            int ligne = p.entier(ORDRE_PROFESSIONNEL, k);
+            if (p.debut(ligne) != minute) break;
+            if (p.entier(PATIENT, ligne) == patientId) return true;
+        }
+        return false;
+    }
+
+    private static int[] plage(Projection p, int ordre, int colonne, int valeur) {
+        return new int[]{borne(p, ordre, colonne, valeur), borne(p, ordre, colonne, valeur + 1)};
+    }
+
+    /**
+     * Première position de l'ordre dont la ligne a une valeur >= valeur dans la colonne (dichotomie)
+     */
+    private static int borne(Projection p, int ordre, int colonne, int valeur) {
+        int bas = 0;
+        int haut = p.lignes;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (p.entier(colonne, p.entier(ordre, milieu)) < valeur) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+}
@@ -0,0 +1,173 @@
+package com.medipass.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Série de consultations récurrentes (suivi chronique : pansement hebdomadaire, contrôle mensuel...).
+ * Les occurrences sont calculées à la demande à partir de la règle ; seule une occurrence
+ * modifiée ou clôturée devient une vraie Consultation (elle est alors "détachée" de la série).
+ * Chaque créneau réservé ou rendu est signalé aux ConsultationListener (occurrenceReservee).
+ */
+public class SerieConsultations {
+    private static int counter = 1;
+    private final int idSerie;
+    private final LocalDateTime premiere;
+    private final String motif;
+    private final ProfessionnelSante professionnel;
+    private final Patient patient;
+    private final int dureeMinutes;
+    private final RegleRecurrence regle;
+    private final int nombreOccurrences;
+    private final BitSet detachees = new BitSet();
+    private boolean inscrite;
+
+    public SerieConsultations(LocalDateTime premiere, String motif, ProfessionnelSante professionnel,
+                              Patient patient, int dureeMinutes, RegleRecurrence regle) {
+        this(counter, premiere, motif, professionnel, patient, dureeMinutes, regle);
+    }
+
+    /**
+     * Constructeur avec identifiant imposé (chargement depuis le fichier)
+     */
+    public SerieConsultations(int idSerie, LocalDateTime premiere, String motif, ProfessionnelSante professionnel,
+                              Patient patient, int dureeMinutes, RegleRecurrence regle) {
+        this.idSerie = idSerie;
+        counter = Math.max(counter, idSerie + 1);
+        this.premiere = premiere;
+        this.motif = motif;
+        this.professionnel = professionnel;
+        this.patient = patient;
+        this.dureeMinutes = dureeMinutes > 0 ? dureeMinutes : 30;
+        this.regle = regle;
+        this.nombreOccurrences = regle.nombreOccurrences(premiere);
+    }
+
+    // Getters
+    public int getIdSerie() { return idSerie; }
+    public LocalDateTime getPremiere() { return premiere; }
+    public String getMotif() { return motif; }
+    public ProfessionnelSante getProfessionnel() { return professionnel; }
+    public Patient getPatient() { return patient; }
+    public int getDureeMinutes() { return dureeMinutes; }
+    public RegleRecurrence getRegle() { return regle; }
+    public int getNombreOccurrences() { return nombreOccurrences; }
+    public BitSet getDetachees() { return (BitSet) detachees.clone(); }
+
+    /**
+     * Date de début de l'occurrence d'index donné
+     */
+    public LocalDateTime getOccurrence(int index) {
+        return regle.occurrence(premiere, index);
+    }
+
+    public boolean estDetachee(int index) {
+        return detachees.get(index);
+    }
+
+    /**
+     * Index de l'occurrence commençant exactement à cette date, ou -1
+     */
+    public int indexDe(LocalDateTime date) {
+        int index = regle.indexAuPlusTot(premiere, date);
+        return index < nombreOccurrences && getOccurrence(index).equals(date) ? index : -1;
+    }
+
+    /**
+     * Occurrences non détachées qui commencent dans [debut, fin[.
+     * Seules les occurrences de la fenêtre sont calculées.
+     */
+    public List<Occurrence> occurrencesEntre(LocalDateTime debut, LocalDateTime fin) {
+        List<Occurrence> resultat = new ArrayList<>();
+        for (int i = regle.indexAuPlusTot(premiere, debut); i < nombreOccurrences; i++) {
+            LocalDateTime date = getOccurrence(i);
+            if (!date.isBefore(fin)) break;
+            if (!detachees.get(i)) {
+                resultat.add(new Occurrence(this, i, date));
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Réserve les créneaux des occurrences non détachées dans les calendriers d'occupation
+     */
+    public void inscrire() {
+        if (inscrite) return;
+        inscrite = true;
+        for (int i = 0; i < nombreOccurrences; i++) {
+            if (!detachees.get(i)) {
+                occuper(i, true);
+            }
+        }
+    }
+
+    /**
+     * Marque une occurrence comme détachée sans créer de consultation
+     * (chargement : la consultation correspondante est relue depuis consultations.csv)
+     */
+    public void detacher(int index) {
+        if (index < 0 || index >= nombreOccurrences || detachees.get(index)) return;
+        detachees.set(index);
+        if (inscrite) {
+            occuper(index, false);
+        }
+    }
+
+    /**
+     * Transforme une occurrence en vraie consultation (avant modification ou clôture).
+     * La consultation rendue n'est pas encore ajoutée au planning ni au dossier.
+     * @return la consultation, ou null si l'index est invalide ou déjà détaché
+     */
+    public Consultation materialiser(int index) {
+        if (index < 0 || index >= nombreOccurrences || detachees.get(index)) return null;
+        detacher(index);
+        Consultation c = new Consultation(getOccurrence(index), motif, professionnel, patient);
+        c.setDureeMinutes(dureeMinutes);
+        return c;
+    }
+
+    private void occuper(int index, boolean occuper) {
+        LocalDateTime date = getOccurrence(index);
+        if (occuper) {
+            professionnel.getOccupation().marquer(date, dureeMinutes);
+            patient.getDossierMedical().getOccupation().marquer(date, dureeMinutes);
+        } else {
+            professionnel.getOccupation().liberer(date, dureeMinutes);
+            patient.getDossierMedical().getOccupation().liberer(date, dureeMinutes);
+        }
+        Consultation.notifierOccurrence(new Occurrence(this, index, date), occuper);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Série[%d] %s - %s, %d min, %s\n  Professionnel: Dr.%s %s\n  Patient: %s %s",
+                idSerie, premiere, motif, dureeMinutes, regle,
+                professionnel.getNom(), professionnel.getPrenom(),
+                patient.getNom(), patient.getPrenom());
+    }
+
+    /**
+     * Occurrence calculée d'une série (non matérialisée)
+     */
+    public static class Occurrence {
+        private final SerieConsultations serie;
+        private final int index;
+        private final LocalDateTime debut;
+
+        Occurrence(SerieConsultations serie, int index, LocalDateTime debut) {
+            this.serie = serie;
+            this.index = index;
+            this.debut = debut;
+        }
+
+        public SerieConsultations getSerie() { return serie; }
+        public int getIndex() { return index; }
+        public LocalDateTime getDebut() { return debut; }
+        public LocalDateTime getFin() { return debut.plusMinutes(serie.dureeMinutes); }
+    }
+}
@@ -14,6 +14,16 @@ import com.medipass.user.Utilisateur;
 public class AdministrateurService {
     private final List<Utilisateur> utilisateurs = new ArrayList<>();
     private final List<ProfessionnelSante> professionnels = new ArrayList<>();
+    private final List<CompteListener> listeners = new ArrayList<>();
+
+    /**
+     * Abonne un observateur aux créations, suppressions et changements d'état des comptes
+     */
+    public void ajouterListener(CompteListener l) {
+        if (l != null && !listeners.contains(l)) {
+            listeners.add(l);
+        }
+    }
 
     /**
      * Crée un nouveau compte utilisateur
@@ -28,6 +38,9 @@ public class AdministrateurService {
         if (utilisateur instanceof ProfessionnelSante) {
             professionnels.add((ProfessionnelSante) utilisateur);
         }
+        for (CompteListener l : listeners) {
+            l.compteCree(utilisateur);
+        }
         
         return true;
     }
@@ -45,6 +58,9 @@ public class AdministrateurService {
         if (utilisateur instanceof ProfessionnelSante) {
             professionnels.remove(utilisateur);
         }
+        for (CompteListener l : listeners) {
+            l.compteSupprime(utilisateur);
+        }
         
         return true;
     }
@@ -114,7 +130,11 @@ public class AdministrateurService {
         if (utilisateur == null) {
             return false;
         }
+        boolean etaitActif = utilisateur.isActif();
         utilisateur.activer();
+        for (CompteListener l : listeners) {
+            l.compteModifie(utilisateur, etaitActif);
+        }
         return true;
     }
 
@@ -126,7 +146,11 @@ public class AdministrateurService {
         if (utilisateur == null) {
             return false;
         }
+        boolean etaitActif = utilisateur.isActif();
         utilisateur.desactiver();
+        for (CompteListener l : listeners) {
+            l.compteModifie(utilisateur, etaitActif);
+        }
         return true;
     }
 
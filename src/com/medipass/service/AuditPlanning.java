@@ -0,0 +1,251 @@
+package com.medipass.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.model.SerieConsultations;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Audit des chevauchements dans les données chargées.
+ *
+ * Chaque planning (professionnel) et chaque dossier (patient) est trié par début puis
+ * balayé une fois : une consultation qui commence avant la fin maximale déjà vue est en conflit.
+ * Les occurrences non détachées des séries récurrentes sont balayées avec les consultations.
+ * Les plannings sont répartis entre les cœurs par fork/join ; le tri se fait sur des clés
+ * primitives (minute de début, index) pour tenir des dizaines de millions de lignes.
+ * Un planning trop volumineux est lui-même trié en parallèle puis balayé par tranches de temps,
+ * chaque tranche reprenant la fin maximale des tranches précédentes.
+ */
+public class AuditPlanning {
+
+    // Nombre de consultations en dessous duquel une tâche (ou un groupe) n'est plus découpée
+    private static final int SEUIL = 50_000;
+
+    /**
+     * Consultations (indices 0..n-1) puis occurrences de série d'un professionnel ou d'un patient
+     */
+    private static class Groupe {
+        final String type;
+        final String cle;
+        final List<Consultation> consultations;
+        final List<SerieConsultations.Occurrence> occurrences;
+
+        Groupe(String type, String cle, List<Consultation> consultations, List<SerieConsultations.Occurrence> occurrences) {
+            this.type = type;
+            this.cle = cle;
+            this.consultations = consultations;
+            this.occurrences = occurrences == null ? List.of() : occurrences;
+        }
+
+        int taille() {
+            return consultations.size() + occurrences.size();
+        }
+
+        boolean estActif(int i) {
+            return i >= consultations.size() || !"annulée".equalsIgnoreCase(consultations.get(i).getStatut());
+        }
+
+        long minute(int i) {
+            LocalDateTime debut = i < consultations.size() ? consultations.get(i).getDateHeure()
+                    : occurrences.get(i - consultations.size()).getDebut();
+            return debut.toEpochSecond(ZoneOffset.UTC) / 60;
+        }
+
+        int duree(int i) {
+            return i < consultations.size() ? consultations.get(i).getDureeMinutes()
+                    : occurrences.get(i - consultations.size()).getSerie().getDureeMinutes();
+        }
+
+        RapportAudit.Conflit conflit(int premier, int second) {
+            int n = consultations.size();
+            return new RapportAudit.Conflit(type, cle,
+                    premier < n ? consultations.get(premier) : null, premier < n ? null : occurrences.get(premier - n),
+                    second < n ? consultations.get(second) : null, second < n ? null : occurrences.get(second - n));
+        }
+    }
+
+    /**
+     * Audite les plannings des professionnels et les dossiers des patients
+     * @param orphelins lignes orphelines relevées au chargement (voir DataService)
+     */
+    public RapportAudit auditer(List<ProfessionnelSante> pros, List<Patient> patients, List<String> orphelins) {
+        return auditer(pros, patients, List.of(), orphelins);
+    }
+
+    /**
+     * Idem, en balayant aussi les occurrences non détachées des séries récurrentes
+     */
+    public RapportAudit auditer(List<ProfessionnelSante> pros, List<Patient> patients,
+                                List<SerieConsultations> series, List<String> orphelins) {
+        long debut = System.currentTimeMillis();
+        Map<ProfessionnelSante, List<SerieConsultations.Occurrence>> occurrencesPro = new IdentityHashMap<>();
+        Map<Patient, List<SerieConsultations.Occurrence>> occurrencesPatient = new IdentityHashMap<>();
+        for (SerieConsultations s : series) {
+            List<SerieConsultations.Occurrence> occurrences = s.occurrencesEntre(s.getPremiere(), LocalDateTime.MAX);
+            occurrencesPro.computeIfAbsent(s.getProfessionnel(), k -> new ArrayList<>()).addAll(occurrences);
+            occurrencesPatient.computeIfAbsent(s.getPatient(), k -> new ArrayList<>()).addAll(occurrences);
+        }
+
+        List<Groupe> groupes = new ArrayList<>(pros.size() + patients.size());
+        long total = 0;
+        for (ProfessionnelSante p : pros) {
+            Groupe g = new Groupe("Professionnel", p.getLoginID(), p.getPlanning(), occurrencesPro.get(p));
+            groupes.add(g);
+            total += g.taille();
+        }
+        for (Patient p : patients) {
+            List<Consultation> dossier = p.getDossierMedical().getConsultations();
+            groupes.add(new Groupe("Patient", p.getId() + " " + p.getNom() + " " + p.getPrenom(), dossier,
+                    occurrencesPatient.get(p)));
+        }
+
+        RapportAudit rapport = new RapportAudit();
+        rapport.getConflits().addAll(ForkJoinPool.commonPool().invoke(new Balayage(groupes, 0, groupes.size())));
+        if (orphelins != null) {
+            rapport.getOrphelins().addAll(orphelins);
+        }
+        rapport.setConsultationsAnalysees(total);
+        rapport.setDureeMillis(System.currentTimeMillis() - debut);
+        return rapport;
+    }
+
+    /**
+     * Balayage d'une tranche de groupes, découpée en deux tant qu'elle est volumineuse
+     */
+    private static class Balayage extends RecursiveTask<List<RapportAudit.Conflit>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Groupe> groupes;
+        private final int debut;
+        private final int fin;
+
+        Balayage(List<Groupe> groupes, int debut, int fin) {
+            this.groupes = groupes;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected List<RapportAudit.Conflit> compute() {
+            if (fin - debut > 1 && taille() > SEUIL) {
+                int milieu = (debut + fin) >>> 1;
+                Balayage gauche = new Balayage(groupes, debut, milieu);
+                gauche.fork();
+                List<RapportAudit.Conflit> conflits = new Balayage(groupes, milieu, fin).compute();
+                List<RapportAudit.Conflit> conflitsGauche = gauche.join();
+                conflitsGauche.addAll(conflits);
+                return conflitsGauche;
+            }
+            List<RapportAudit.Conflit> conflits = new ArrayList<>();
+            for (int i = debut; i < fin; i++) {
+                balayer(groupes.get(i), conflits);
+            }
+            return conflits;
+        }
+
+        private long taille() {
+            long n = 0;
+            for (int i = debut; i < fin; i++) {
+                n += groupes.get(i).taille();
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Trie les éléments actifs d'un groupe et relève les chevauchements
+     */
+    private static void balayer(Groupe groupe, List<RapportAudit.Conflit> conflits) {
+        int taille = groupe.taille();
+        if (taille < 2) return;
+
+        // Clé = minute de début (poids fort) et index dans le groupe (poids faible)
+        long[] cles = new long[taille];
+        if (taille <= SEUIL) {
+            int n = 0;
+            for (int i = 0; i < taille; i++) {
+                if (groupe.estActif(i)) {
+                    cles[n++] = (groupe.minute(i) << 32) | i;
+                }
+            }
+            Arrays.sort(cles, 0, n);
+            balayerTranche(groupe, cles, 0, n, Long.MIN_VALUE, -1, conflits);
+            return;
+        }
+
+        // Groupe volumineux : clés calculées et triées en parallèle (les annulées en fin de tableau)
+        IntStream.range(0, taille).parallel().forEach(i ->
+                cles[i] = groupe.estActif(i) ? (groupe.minute(i) << 32) | i : Long.MAX_VALUE);
+        Arrays.parallelSort(cles);
+        int actives = taille;
+        while (actives > 0 && cles[actives - 1] == Long.MAX_VALUE) actives--;
+        int n = actives;
+        if (n < 2) return;
+
+        // Tranches de temps consécutives : fin maximale propre à chaque tranche, puis report
+        int tranches = (n + SEUIL - 1) / SEUIL;
+        long[] finTranche = new long[tranches];
+        int[] indexTranche = new int[tranches];
+        IntStream.range(0, tranches).parallel().forEach(t -> {
+            long finMax = Long.MIN_VALUE;
+            int indexFinMax = -1;
+            for (int k = t * SEUIL; k < Math.min(n, (t + 1) * SEUIL); k++) {
+                int index = (int) (cles[k] & 0xFFFFFFFFL);
+                long fin = (cles[k] >> 32) + groupe.duree(index);
+                if (fin > finMax) {
+                    finMax = fin;
+                    indexFinMax = index;
+                }
+            }
+            finTranche[t] = finMax;
+            indexTranche[t] = indexFinMax;
+        });
+        long[] finEntree = new long[tranches];
+        int[] indexEntree = new int[tranches];
+        finEntree[0] = Long.MIN_VALUE;
+        indexEntree[0] = -1;
+        for (int t = 1; t < tranches; t++) {
+            boolean report = finEntree[t - 1] >= finTranche[t - 1];
+            finEntree[t] = report ? finEntree[t - 1] : finTranche[t - 1];
+            indexEntree[t] = report ? indexEntree[t - 1] : indexTranche[t - 1];
+        }
+
+        List<List<RapportAudit.Conflit>> parTranche = new ArrayList<>(tranches);
+        for (int t = 0; t < tranches; t++) parTranche.add(new ArrayList<>());
+        IntStream.range(0, tranches).parallel().forEach(t -> balayerTranche(groupe, cles,
+                t * SEUIL, Math.min(n, (t + 1) * SEUIL), finEntree[t], indexEntree[t], parTranche.get(t)));
+        for (List<RapportAudit.Conflit> c : parTranche) {
+            conflits.addAll(c);
+        }
+    }
+
+    /**
+     * Balaye des clés triées [debut, fin[ en partant d'une fin maximale déjà vue
+     */
+    private static void balayerTranche(Groupe groupe, long[] cles, int debut, int fin,
+                                       long finMax, int indexFinMax, List<RapportAudit.Conflit> conflits) {
+        for (int k = debut; k < fin; k++) {
+            int index = (int) (cles[k] & 0xFFFFFFFFL);
+            long debutMinute = cles[k] >> 32;
+            if (debutMinute < finMax) {
+                conflits.add(groupe.conflit(indexFinMax, index));
+            }
+            long finMinute = debutMinute + groupe.duree(index);
+            if (finMinute > finMax) {
+                finMax = finMinute;
+                indexFinMax = index;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.medipass.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.medipass.model.Patient;
+
+/**
+ * Cache des rendus texte des dossiers (résumé patient, pages d'historique).
+ *
+ * Chaque rendu est associé à la version du dossier au moment du calcul : tout ajout
+ * d'antécédent ou de consultation, et toute modification d'une consultation du dossier,
+ * change la version et rend le rendu périmé. Le cache est borné en poids (estimation
+ * de la mémoire occupée par les textes) et évince les rendus les moins récemment lus.
+ */
+public class CacheDossiers {
+
+    // Estimation du coût fixe d'une entrée (clé, nœud de la table, objets)
+    private static final int SURCOUT_ENTREE = 96;
+
+    private static class Rendu {
+        final long version;
+        final String texte;
+
+        Rendu(long version, String texte) {
+            this.version = version;
+            this.texte = texte;
+        }
+
+        long poids(String cle) {
+            return SURCOUT_ENTREE + 2L * (cle.length() + texte.length());
+        }
+    }
+
+    private final long poidsMax;
+    private final LinkedHashMap<String, Rendu> rendus = new LinkedHashMap<>(16, 0.75f, true);
+    private long poids;
+    private long succes;
+    private long echecs;
+    private long invalidations;
+    private long evictions;
+
+    /**
+     * @param poidsMaxOctets mémoire maximale estimée occupée par les rendus
+     */
+    public CacheDossiers(long poidsMaxOctets) {
+        this.poidsMax = Math.max(poidsMaxOctets, 1);
+    }
+
+    /**
+     * Rendu d'une vue du dossier du patient, recalculé si absent ou périmé
+     * @param vue nom de la vue ("resume", "historique" + curseur...)
+     */
+    public synchronized String obtenir(Patient patient, String vue, Supplier<String> calcul) {
+        String cle = patient.getId() + "#" + vue;
+        long version = patient.getDossierMedical().getVersion();
+        Rendu rendu = rendus.get(cle);
+        if (rendu != null) {
+            if (rendu.version == version) {
+                succes++;
+                return rendu.texte;
+            }
+            rendus.remove(cle);
+            poids -= rendu.poids(cle);
+            invalidations++;
+        }
+        echecs++;
+        String texte = calcul.get();
+        Rendu nouveau = new Rendu(version, texte);
+        // Un rendu plus lourd que tout le cache n'est pas conservé
+        if (nouveau.poids(cle) <= poidsMax) {
+            rendus.put(cle, nouveau);
+            poids += nouveau.poids(cle);
+            evincer();
+        }
+        return texte;
+    }
+
+    public synchronized void vider() {
+        invalidations += rendus.size();
+        rendus.clear();
+        poids = 0;
+    }
+
+    public synchronized long getSucces() { return succes; }
+    public synchronized long getEchecs() { return echecs; }
+    public synchronized long getInvalidations() { return invalidations; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int getTaille() { return rendus.size(); }
+
+    /**
+     * Mémoire estimée occupée par les rendus en cache, en octets
+     */
+    public synchronized long getPoidsOctets() { return poids; }
+
+    public synchronized double getTauxSucces() {
+        long total = succes + echecs;
+        return total == 0 ? 0.0 : (double) succes / total;
+    }
+
+    public synchronized String afficherStatistiques() {
+        return String.format("Cache dossiers : %d rendus, %d Ko / %d Ko, %.1f%% de succès (%d/%d), %d périmés, %d évictions",
+                rendus.size(), poids / 1024, poidsMax / 1024, 100.0 * getTauxSucces(), succes, succes + echecs,
+                invalidations, evictions);
+    }
+
+    private void evincer() {
+        Iterator<Map.Entry<String, Rendu>> it = rendus.entrySet().iterator();
+        while (poids > poidsMax && it.hasNext()) {
+            Map.Entry<String, Rendu> e = it.next();
+            poids -= e.getValue().poids(e.getKey());
+            it.remove();
+            evictions++;
+        }
+    }
+}
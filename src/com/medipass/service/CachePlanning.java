@@ -0,0 +1,241 @@
+package com.medipass.service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.ConsultationListener;
+import com.medipass.model.DossierListener;
+import com.medipass.model.DossierMedical;
+import com.medipass.model.SerieConsultations;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Cache des vues de planning déjà calculées (semaine à partir d'un jour, mois), par professionnel.
+ *
+ * Taille bornée avec éviction LRU. Une vue est invalidée dès qu'une consultation qui la
+ * concerne est réservée, annulée, déplacée ou change de statut ou de durée : pour une semaine,
+ * les 7 vues dont la période contient le jour de la consultation ; pour un mois, le mois.
+ * Un changement des indicateurs de risque ou du nom d'un patient (affichés dans les vues) vide le cache.
+ *
+ * Les variantes ecrire*() écrivent la vue au fil de l'eau dans la sortie ; une vue calculée n'est
+ * gardée que si elle ne dépasse pas TAILLE_VUE_MAX caractères (les grosses vues ne sont pas copiées).
+ */
+public class CachePlanning implements ConsultationListener, DossierListener {
+
+    // Taille maximale (en caractères) d'une vue conservée par les variantes ecrire*()
+    static final int TAILLE_VUE_MAX = 64 * 1024;
+
+    /**
+     * Rendu d'une vue dans une sortie
+     */
+    public interface Rendu {
+        void ecrire(Appendable out) throws IOException;
+    }
+
+    private final int capacite;
+    private final LinkedHashMap<String, String> vues;
+    private long succes;
+    private long echecs;
+    private long evictions;
+    private long invalidations;
+
+    public CachePlanning(int capacite) {
+        this.capacite = Math.max(capacite, 1);
+        // Ordre d'accès : l'entrée la moins récemment lue est la première évincée
+        this.vues = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> plusAncienne) {
+                if (size() > CachePlanning.this.capacite) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Vue de la semaine commençant au jour donné, calculée si absente
+     */
+    public synchronized String semaine(ProfessionnelSante professionnel, LocalDate debut, Supplier<String> calcul) {
+        return obtenir(cleSemaine(professionnel, debut), calcul);
+    }
+
+    /**
+     * Vue du mois, calculée si absente
+     */
+    public synchronized String mois(ProfessionnelSante professionnel, int annee, int mois, Supplier<String> calcul) {
+        return obtenir(cleMois(professionnel, annee, mois), calcul);
+    }
+
+    /**
+     * Écrit la vue de la semaine dans la sortie : copie en cache, sinon rendu direct
+     */
+    public synchronized void ecrireSemaine(Appendable out, ProfessionnelSante professionnel, LocalDate debut,
+                                           Rendu rendu) throws IOException {
+        ecrire(cleSemaine(professionnel, debut), out, rendu);
+    }
+
+    /**
+     * Écrit la vue du mois dans la sortie : copie en cache, sinon rendu direct
+     */
+    public synchronized void ecrireMois(Appendable out, ProfessionnelSante professionnel, int annee, int mois,
+                                        Rendu rendu) throws IOException {
+        ecrire(cleMois(professionnel, annee, mois), out, rendu);
+    }
+
+    @Override
+    public void risquesModifies(DossierMedical dossier, int anciensDrapeaux) {
+        vider();
+    }
+
+    @Override
+    public void identiteModifiee(DossierMedical dossier) {
+        vider();
+    }
+
+    @Override
+    public void consultationInscrite(Consultation c) {
+        invalider(c.getProfessionnel(), c.getDateHeure());
+    }
+
+    @Override
+    public void consultationModifiee(Consultation c, String ancienStatut, int ancienneDuree) {
+        invalider(c.getProfessionnel(), c.getDateHeure());
+    }
+
+    @Override
+    public void occurrenceReservee(SerieConsultations.Occurrence o, boolean reservee) {
+        invalider(o.getSerie().getProfessionnel(), o.getDebut());
+    }
+
+    /**
+     * Invalide les vues d'un professionnel qui contiennent la date donnée
+     */
+    public synchronized void invalider(ProfessionnelSante professionnel, LocalDateTime date) {
+        if (professionnel == null || date == null) return;
+        LocalDate jour = date.toLocalDate();
+        for (int i = 0; i < 7; i++) {
+            retirer(cleSemaine(professionnel, jour.minusDays(i)));
+        }
+        retirer(cleMois(professionnel, jour.getYear(), jour.getMonthValue()));
+    }
+
+    /**
+     * Invalide toutes les vues d'un professionnel (ajout d'une série récurrente...)
+     */
+    public synchronized void invaliderProfessionnel(ProfessionnelSante professionnel) {
+        String prefixe = professionnel.getLoginID() + "#";
+        int avant = vues.size();
+        vues.keySet().removeIf(cle -> cle.startsWith(prefixe));
+        invalidations += avant - vues.size();
+    }
+
+    public synchronized void vider() {
+        invalidations += vues.size();
+        vues.clear();
+    }
+
+    public synchronized long getSucces() { return succes; }
+    public synchronized long getEchecs() { return echecs; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getInvalidations() { return invalidations; }
+    public synchronized int getTaille() { return vues.size(); }
+
+    public synchronized String afficherStatistiques() {
+        long total = succes + echecs;
+        return String.format("Cache planning : %d/%d vues, %d succès, %d échecs (%.1f%% de succès), %d évictions, %d invalidations",
+                vues.size(), capacite, succes, echecs, total == 0 ? 0.0 : 100.0 * succes / total, evictions, invalidations);
+    }
+
+    private String obtenir(String cle, Supplier<String> calcul) {
+        String vue = vues.get(cle);
+        if (vue != null) {
+            succes++;
+            return vue;
+        }
+        echecs++;
+        vue = calcul.get();
+        vues.put(cle, vue);
+        return vue;
+    }
+
+    private void ecrire(String cle, Appendable out, Rendu rendu) throws IOException {
+        String vue = vues.get(cle);
+        if (vue != null) {
+            succes++;
+            out.append(vue);
+            return;
+        }
+        echecs++;
+        Copie copie = new Copie(out);
+        rendu.ecrire(copie);
+        if (copie.texte != null) {
+            vues.put(cle, copie.texte.toString());
+        }
+    }
+
+    /**
+     * Sortie qui transmet tout à la sortie réelle et en garde une copie tant qu'elle reste petite
+     */
+    private static class Copie implements Appendable {
+        private final Appendable out;
+        private StringBuilder texte = new StringBuilder();
+
+        Copie(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            CharSequence s = csq == null ? "null" : csq;
+            return append(s, 0, s.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int debut, int fin) throws IOException {
+            if (csq == null) csq = "null";
+            out.append(csq, debut, fin);
+            if (texte != null) {
+                if (texte.length() + fin - debut > TAILLE_VUE_MAX) {
+                    texte = null;
+                } else {
+                    texte.append(csq, debut, fin);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            out.append(c);
+            if (texte != null) {
+                if (texte.length() + 1 > TAILLE_VUE_MAX) {
+                    texte = null;
+                } else {
+                    texte.append(c);
+                }
+            }
+            return this;
+        }
+    }
+
+    private void retirer(String cle) {
+        if (vues.remove(cle) != null) {
+            invalidations++;
+        }
+    }
+
+    private static String cleSemaine(ProfessionnelSante professionnel, LocalDate debut) {
+        return professionnel.getLoginID() + "#S" + debut.toEpochDay();
+    }
+
+    private static String cleMois(ProfessionnelSante professionnel, int annee, int mois) {
+        return professionnel.getLoginID() + "#M" + annee + "-" + mois;
+    }
+}
@@ -0,0 +1,22 @@
+package com.medipass.service;
+
+import com.medipass.user.Utilisateur;
+
+/**
+ * Observateur des comptes gérés par AdministrateurService
+ * (création, suppression, activation / désactivation).
+ */
+public interface CompteListener {
+
+    default void compteCree(Utilisateur utilisateur) {
+    }
+
+    default void compteSupprime(Utilisateur utilisateur) {
+    }
+
+    /**
+     * Appelé après activation ou désactivation du compte
+     */
+    default void compteModifie(Utilisateur utilisateur, boolean etaitActif) {
+    }
+}
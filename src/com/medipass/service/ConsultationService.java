@@ -1,16 +1,26 @@
 package com.medipass.service;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.medipass.model.ColonnesConsultations;
 import com.medipass.model.Consultation;
+import com.medipass.model.DossierMedical;
+import com.medipass.model.GrilleCreneaux;
 import com.medipass.model.Patient;
+import com.medipass.model.RegleRecurrence;
+import com.medipass.model.SegmentArchive;
+import com.medipass.model.SerieConsultations;
 import com.medipass.user.ProfessionnelSante;
 
 /**
@@ -19,75 +29,492 @@ import com.medipass.user.ProfessionnelSante;
  */
 public class ConsultationService {
     private final List<Consultation> consultations = new ArrayList<>();
+    private final List<SerieConsultations> series = new ArrayList<>();
+    private final ListeAttente listeAttente = new ListeAttente(this);
+    private final RepartiteurCharge repartiteur = new RepartiteurCharge();
+    private final CachePlanning cachePlanning = new CachePlanning(256);
+    private final ColonnesConsultations colonnes = new ColonnesConsultations();
+    private SegmentArchive archive; // Consultations closes hors du tas, null si indisponible
+
+    public ConsultationService() {
+        // Les annulations (service ou professionnel) alimentent la liste d'attente
+        Consultation.ajouterListener(listeAttente);
+        // Charge des professionnels tenue à jour à chaque réservation / annulation
+        Consultation.ajouterListener(repartiteur);
+        // Vues semaine / mois invalidées à chaque changement d'une consultation
+        Consultation.ajouterListener(cachePlanning);
+        DossierMedical.ajouterListener(cachePlanning);
+        // Copie en colonnes des consultations inscrites, parcourue par les statistiques et l'occupation
+        Consultation.ajouterListener(colonnes);
+    }
 
     /**
      * Programme une nouvelle consultation avec validations complètes
      */
     public boolean programmerConsultation(LocalDateTime dateHeure, String motif, 
                                         ProfessionnelSante professionnel, Patient patient) {
-        // Validations de base
-        if (dateHeure == null || motif == null || professionnel == null || patient == null) {
-            System.err.println("❌ Paramètres invalides");
-            return false;
-        }
+        return programmerConsultation(dateHeure, motif, professionnel, patient, 30);
+    }
 
-        // Vérifier que ce n'est pas dans le passé
-        if (dateHeure.isBefore(LocalDateTime.now())) {
-            System.err.println("❌ Impossible de programmer une consultation dans le passé");
-            return false;
-        }
+    /**
+     * Programme une nouvelle consultation d'une durée donnée avec validations complètes
+     */
+    public boolean programmerConsultation(LocalDateTime dateHeure, String motif,
+                                        ProfessionnelSante professionnel, Patient patient, int dureeMinutes) {
+        return reserverConsultation(dateHeure, motif, professionnel, patient, dureeMinutes) != null;
+    }
 
-        // Vérifier que le motif n'est pas vide
-        if (motif.trim().isEmpty()) {
-            System.err.println("❌ Le motif ne peut pas être vide");
-            return false;
+    /**
+     * Comme programmerConsultation, mais retourne la consultation créée (ou null en cas de refus)
+     */
+    public Consultation reserverConsultation(LocalDateTime dateHeure, String motif,
+                                             ProfessionnelSante professionnel, Patient patient, int dureeMinutes) {
+        String erreur = validerDemande(dateHeure, motif, professionnel, patient, dureeMinutes);
+        if (erreur != null) {
+            System.err.println("❌ " + erreur);
+            return null;
         }
 
         // Créer une consultation temporaire pour les tests
         Consultation nouvelleConsultation = new Consultation(dateHeure, motif, professionnel, patient);
+        nouvelleConsultation.setDureeMinutes(dureeMinutes);
 
         // Vérifier la disponibilité du professionnel
         if (!professionnel.estDisponiblePour(nouvelleConsultation)) {
             System.err.println("❌ Le professionnel n'est pas disponible à cette heure");
-            return false;
+            return null;
         }
 
         // Vérifier la disponibilité du patient
         if (!patientEstDisponible(patient, nouvelleConsultation)) {
             System.err.println("❌ Le patient a déjà une consultation à cette heure");
-            return false;
+            return null;
         }
 
         // Tout est OK, enregistrer la consultation
         professionnel.ajouterConsultation(nouvelleConsultation);
         patient.getDossierMedical().ajouterConsultation(nouvelleConsultation);
         consultations.add(nouvelleConsultation);
-        
-        return true;
+        return nouvelleConsultation;
     }
 
     /**
-     * Vérifie si un patient est disponible pour une consultation
+     * Liste d'attente alimentée par les annulations
      */
-    private boolean patientEstDisponible(Patient patient, Consultation nouvelleConsultation) {
-        LocalDateTime debut1 = nouvelleConsultation.getDateHeure();
-        LocalDateTime fin1 = nouvelleConsultation.getFinConsultation();
+    public ListeAttente getListeAttente() {
+        return listeAttente;
+    }
 
-        for (Consultation existante : patient.getDossierMedical().getConsultations()) {
-            // Ignorer les consultations annulées
-            if ("annulée".equalsIgnoreCase(existante.getStatut())) {
+    /**
+     * Validations de base d'une demande, sans vérifier les conflits d'horaire.
+     * Retourne la raison du refus, ou null si la demande est recevable.
+     */
+    private String validerDemande(LocalDateTime dateHeure, String motif,
+                                  ProfessionnelSante professionnel, Patient patient, int dureeMinutes) {
+        if (dateHeure == null || motif == null || professionnel == null || patient == null) {
+            return "Paramètres invalides";
+        }
+        // Vérifier que ce n'est pas dans le passé
+        if (dateHeure.isBefore(LocalDateTime.now())) {
+            return "Impossible de programmer une consultation dans le passé";
+        }
+        // Vérifier que le motif n'est pas vide
+        if (motif.trim().isEmpty()) {
+            return "Le motif ne peut pas être vide";
+        }
+        // Vérifier les horaires de disponibilité du professionnel
+        if (!professionnel.estDansHoraires(dateHeure, dureeMinutes > 0 ? dureeMinutes : 30)) {
+            return "Créneau en dehors des horaires du professionnel (" + professionnel.getHorairesDisponibilite() + ")";
+        }
+        return null;
+    }
+
+    /**
+     * Programme un lot de consultations en une seule fois.
+     * Les conflits sont détectés par un balayage (sweep-line) chronologique unique : le lot est
+     * trié par début et chaque demande est comparée, côté professionnel et côté patient à la fois,
+     * au planning existant et aux demandes déjà retenues. Une demande refusée ne bloque donc
+     * aucune autre. Les créneaux des séries récurrentes, absents des plannings, sont vérifiés
+     * sur les calendriers d'occupation. Les demandes retenues sont enregistrées ensemble ; le rapport contient
+     * une entrée par demande, dans l'ordre du lot.
+     */
+    public List<ResultatReservation> programmerConsultations(List<DemandeConsultation> lot) {
+        return programmerConsultations(lot, null);
+    }
+
+    /**
+     * Programme un lot de consultations puis sauvegarde une seule fois
+     * (si dataService est fourni et qu'au moins une demande a été acceptée).
+     */
+    public List<ResultatReservation> programmerConsultations(List<DemandeConsultation> lot, DataService dataService) {
+        List<ResultatReservation> rapport = new ArrayList<>();
+        if (lot == null) {
+            return rapport;
+        }
+
+        List<ResultatReservation> candidates = new ArrayList<>();
+        for (DemandeConsultation d : lot) {
+            ResultatReservation r = new ResultatReservation(d);
+            rapport.add(r);
+            String erreur = d == null ? "Demande vide"
+                    : validerDemande(d.getDateHeure(), d.getMotif(), d.getProfessionnel(), d.getPatient(), d.getDureeMinutes());
+            if (erreur != null) {
+                r.refuser(erreur);
+            } else {
+                candidates.add(r);
+            }
+        }
+
+        // Balayage chronologique, une piste par professionnel et une par patient
+        candidates.sort(Comparator.comparing((ResultatReservation r) -> r.getDemande().getDateHeure()));
+        Map<String, Piste> pistesPro = new HashMap<>();
+        Map<Integer, Piste> pistesPatient = new HashMap<>();
+        for (ResultatReservation r : candidates) {
+            DemandeConsultation d = r.getDemande();
+            // Créneaux déjà réservés, occurrences de séries comprises (absentes des plannings et dossiers)
+            if (!d.getProfessionnel().getOccupation().estLibre(d.getDateHeure(), d.getDureeMinutes())) {
+                r.refuser("Le professionnel n'est pas disponible à cette heure");
+                continue;
+            }
+            if (!d.getPatient().getDossierMedical().getOccupation().estLibre(d.getDateHeure(), d.getDureeMinutes())) {
+                r.refuser("Le patient a déjà une consultation à cette heure");
                 continue;
             }
+            Piste pro = pistesPro.computeIfAbsent(d.getProfessionnel().getLoginID(),
+                    k -> new Piste(d.getProfessionnel().getPlanning()));
+            Piste patient = pistesPatient.computeIfAbsent(d.getPatient().getId(),
+                    k -> new Piste(d.getPatient().getDossierMedical().getConsultations()));
+            String conflit = pro.conflit(d, "Le professionnel n'est pas disponible à cette heure",
+                    "Conflit avec une autre demande du lot pour ce professionnel");
+            if (conflit == null) {
+                conflit = patient.conflit(d, "Le patient a déjà une consultation à cette heure",
+                        "Conflit avec une autre demande du lot pour ce patient");
+            }
+            if (conflit != null) {
+                r.refuser(conflit);
+            } else {
+                pro.retenir(d);
+                patient.retenir(d);
+            }
+        }
+
+        // Enregistrement groupé des demandes acceptées
+        List<Consultation> nouvelles = new ArrayList<>();
+        for (ResultatReservation r : rapport) {
+            if (!r.estAcceptee()) continue;
+            DemandeConsultation d = r.getDemande();
+            Consultation c = new Consultation(d.getDateHeure(), d.getMotif(), d.getProfessionnel(), d.getPatient());
+            c.setDureeMinutes(d.getDureeMinutes());
+            d.getProfessionnel().ajouterConsultation(c);
+            d.getPatient().getDossierMedical().ajouterConsultation(c);
+            nouvelles.add(c);
+            r.accepter(c);
+        }
+        consultations.addAll(nouvelles);
 
-            LocalDateTime debut2 = existante.getDateHeure();
-            LocalDateTime fin2 = existante.getFinConsultation();
+        if (dataService != null && !nouvelles.isEmpty()) {
+            dataService.saveConsultations(getConsultations());
+        }
+        return rapport;
+    }
+
+    /**
+     * Piste de balayage d'un professionnel ou d'un patient : consultations existantes non annulées
+     * triées par début, fusionnées au fil des demandes (elles-mêmes parcourues par début).
+     * Une demande est en conflit si elle commence avant la fin maximale déjà vue,
+     * ou si la prochaine consultation existante commence avant sa fin.
+     */
+    private static class Piste {
+        private final List<Consultation> planning = new ArrayList<>();
+        private int suivante;
+        private LocalDateTime finMax;
+        private boolean finMaxExistante;
+
+        Piste(List<Consultation> existantes) {
+            for (Consultation c : existantes) {
+                if (!"annulée".equalsIgnoreCase(c.getStatut())) {
+                    planning.add(c);
+                }
+            }
+            planning.sort(Comparator.comparing(Consultation::getDateHeure));
+        }
 
-            // Test de chevauchement: (StartA < EndB) and (EndA > StartB)
-            if (debut1.isBefore(fin2) && fin1.isAfter(debut2)) {
-                return false; // Conflit trouvé
+        /**
+         * Raison du conflit de la demande sur cette piste, ou null
+         */
+        String conflit(DemandeConsultation d, String conflitExistant, String conflitLot) {
+            LocalDateTime debut = d.getDateHeure();
+            // Intégrer les consultations existantes qui commencent avant (ou à) cette demande
+            while (suivante < planning.size() && !planning.get(suivante).getDateHeure().isAfter(debut)) {
+                LocalDateTime finExistante = planning.get(suivante++).getFinConsultation();
+                if (finMax == null || finExistante.isAfter(finMax)) {
+                    finMax = finExistante;
+                    finMaxExistante = true;
+                }
+            }
+            if (finMax != null && debut.isBefore(finMax)) {
+                return finMaxExistante ? conflitExistant : conflitLot;
             }
+            if (suivante < planning.size() && planning.get(suivante).getDateHeure().isBefore(d.getFin())) {
+                return conflitExistant;
+            }
+            return null;
         }
-        return true;
+
+        /**
+         * La demande est retenue : elle occupe la piste jusqu'à sa fin
+         */
+        void retenir(DemandeConsultation d) {
+            finMax = d.getFin();
+            finMaxExistante = false;
+        }
+    }
+
+    /**
+     * Programme une série de consultations récurrentes.
+     * Toutes les occurrences sont vérifiées en une passe (horaires, planning du professionnel,
+     * planning du patient) ; la série est refusée en bloc au premier conflit détecté.
+     * Les occurrences ne deviennent pas des Consultation : seuls leurs créneaux sont réservés.
+     * @return la série créée, ou null en cas de refus
+     */
+    public SerieConsultations programmerSerie(LocalDateTime premiere, String motif, ProfessionnelSante professionnel,
+                                              Patient patient, int dureeMinutes, RegleRecurrence regle) {
+        String erreur = regle == null ? "Règle de récurrence manquante"
+                : validerDemande(premiere, motif, professionnel, patient, dureeMinutes);
+        if (erreur != null) {
+            System.err.println("❌ " + erreur);
+            return null;
+        }
+
+        SerieConsultations serie = new SerieConsultations(premiere, motif, professionnel, patient, dureeMinutes, regle);
+        if (serie.getNombreOccurrences() == 0) {
+            System.err.println("❌ La règle ne produit aucune occurrence");
+            return null;
+        }
+
+        for (int i = 0; i < serie.getNombreOccurrences(); i++) {
+            LocalDateTime date = serie.getOccurrence(i);
+            if (!professionnel.estDansHoraires(date, serie.getDureeMinutes())) {
+                System.err.println("❌ Occurrence du " + date + " en dehors des horaires du professionnel");
+                return null;
+            }
+            if (!professionnel.getOccupation().estLibre(date, serie.getDureeMinutes())) {
+                System.err.println("❌ Le professionnel n'est pas disponible le " + date);
+                return null;
+            }
+            if (!patient.getDossierMedical().getOccupation().estLibre(date, serie.getDureeMinutes())) {
+                System.err.println("❌ Le patient a déjà une consultation le " + date);
+                return null;
+            }
+        }
+
+        ajouterSerieExistante(serie);
+        return serie;
+    }
+
+    /**
+     * Ajoute une série existante (chargée depuis le fichier) et réserve ses créneaux
+     */
+    public void ajouterSerieExistante(SerieConsultations serie) {
+        if (serie == null || findSerieById(serie.getIdSerie()) != null) {
+            return;
+        }
+        series.add(serie);
+        serie.inscrire();
+        cachePlanning.invaliderProfessionnel(serie.getProfessionnel());
+    }
+
+    /**
+     * Recherche une série par ID
+     */
+    public SerieConsultations findSerieById(int id) {
+        for (SerieConsultations s : series) {
+            if (s.getIdSerie() == id) return s;
+        }
+        return null;
+    }
+
+    /**
+     * Récupère toutes les séries
+     */
+    public List<SerieConsultations> getSeries() {
+        return new ArrayList<>(series);
+    }
+
+    /**
+     * Transforme une occurrence de série en consultation réelle (pour la modifier ou la clôturer).
+     * La consultation est ajoutée au planning, au dossier et à la liste des consultations.
+     * @return la consultation créée, ou null si l'occurrence n'existe pas ou est déjà matérialisée
+     */
+    public Consultation materialiserOccurrence(int idSerie, LocalDateTime dateOccurrence) {
+        SerieConsultations serie = findSerieById(idSerie);
+        if (serie == null) {
+            return null;
+        }
+        Consultation c = serie.materialiser(serie.indexDe(dateOccurrence));
+        if (c == null) {
+            return null;
+        }
+        serie.getProfessionnel().ajouterConsultation(c);
+        serie.getPatient().getDossierMedical().ajouterConsultation(c);
+        consultations.add(c);
+        return c;
+    }
+
+    /**
+     * Recherche les prochains créneaux libres d'une durée donnée parmi plusieurs professionnels
+     * (typiquement ceux d'une spécialité), à partir d'une date et sur un horizon en jours.
+     * Chaque journée est évaluée par bitsets : horaires du jour ET NON occupation, puis
+     * parcours des plages libres mot par mot. Les créneaux sont rendus par ordre chronologique.
+     */
+    public List<CreneauLibre> trouverCreneauxLibres(List<ProfessionnelSante> professionnels, LocalDateTime apres,
+                                                    int dureeMinutes, int nombre, int joursMax) {
+        List<CreneauLibre> resultat = new ArrayList<>();
+        if (professionnels == null || professionnels.isEmpty() || apres == null || nombre <= 0 || dureeMinutes <= 0) {
+            return resultat;
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (apres.isBefore(maintenant)) {
+            apres = maintenant;
+        }
+        LocalDateTime limite = apres.plusDays(joursMax);
+        int longueur = GrilleCreneaux.creneauFin(dureeMinutes);
+
+        long[] libre = new long[GrilleCreneaux.MOTS_PAR_JOUR];
+        List<CreneauLibre> candidats = new ArrayList<>();
+        for (LocalDate jour = apres.toLocalDate(); !jour.isAfter(limite.toLocalDate()) && resultat.size() < nombre;
+             jour = jour.plusDays(1)) {
+            candidats.clear();
+            int premierCreneau = jour.equals(apres.toLocalDate())
+                    ? GrilleCreneaux.creneauFin(apres.getHour() * 60 + apres.getMinute()) : 0;
+            int dernierCreneau = jour.equals(limite.toLocalDate())
+                    ? GrilleCreneaux.creneauDebut(limite.toLocalTime()) : GrilleCreneaux.CRENEAUX_PAR_JOUR;
+
+            for (int i = 0; i < professionnels.size(); i++) {
+                ProfessionnelSante pro = professionnels.get(i);
+                masqueLibre(libre, pro, null, jour);
+
+                // Plages de créneaux libres consécutifs, découpées en créneaux de la durée demandée
+                int trouves = 0;
+                int position = premierCreneau;
+                while (position < dernierCreneau && trouves < nombre) {
+                    int debutPlage = GrilleCreneaux.prochainUn(libre, 0, position);
+                    if (debutPlage >= dernierCreneau) break;
+                    int finPlage = Math.min(GrilleCreneaux.prochainZero(libre, 0, debutPlage), dernierCreneau);
+                    for (int c = debutPlage; c + longueur <= finPlage && trouves < nombre; c += longueur) {
+                        candidats.add(new CreneauLibre(pro,
+                                jour.atStartOfDay().plusMinutes((long) c * GrilleCreneaux.MINUTES_PAR_CRENEAU),
+                                dureeMinutes));
+                        trouves++;
+                    }
+                    position = finPlage;
+                }
+            }
+
+            candidats.sort(Comparator.comparing(CreneauLibre::getDebut));
+            for (CreneauLibre c : candidats) {
+                if (resultat.size() >= nombre) break;
+                resultat.add(c);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Calcule dans libre les créneaux d'un jour où le professionnel travaille et n'est pas occupé
+     * (et où le patient, s'il est fourni, est libre aussi)
+     */
+    private static void masqueLibre(long[] libre, ProfessionnelSante pro, Patient patient, LocalDate jour) {
+        pro.getHoraires().copierJour(jour.getDayOfWeek(), libre, 0);
+        long[] occupe = pro.getOccupation().getJour(jour);
+        if (occupe != null) {
+            for (int mot = 0; mot < libre.length; mot++) {
+                libre[mot] &= ~occupe[mot];
+            }
+        }
+        long[] occupePatient = patient == null ? null : patient.getDossierMedical().getOccupation().getJour(jour);
+        if (occupePatient != null) {
+            for (int mot = 0; mot < libre.length; mot++) {
+                libre[mot] &= ~occupePatient[mot];
+            }
+        }
+    }
+
+    /**
+     * Premier créneau de [debut, fin[ où le professionnel et le patient sont libres, ou null
+     */
+    public LocalDateTime premierCreneauLibre(ProfessionnelSante pro, Patient patient,
+                                             LocalDateTime debut, LocalDateTime fin, int dureeMinutes) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (debut.isBefore(maintenant)) {
+            debut = maintenant;
+        }
+        int longueur = GrilleCreneaux.creneauFin(dureeMinutes);
+        long[] libre = new long[GrilleCreneaux.MOTS_PAR_JOUR];
+        for (LocalDate jour = debut.toLocalDate(); !jour.isAfter(fin.toLocalDate()); jour = jour.plusDays(1)) {
+            int premierCreneau = jour.equals(debut.toLocalDate())
+                    ? GrilleCreneaux.creneauFin(debut.getHour() * 60 + debut.getMinute()) : 0;
+            int dernierCreneau = jour.equals(fin.toLocalDate())
+                    ? GrilleCreneaux.creneauDebut(fin.toLocalTime()) : GrilleCreneaux.CRENEAUX_PAR_JOUR;
+            masqueLibre(libre, pro, patient, jour);
+
+            int position = premierCreneau;
+            while (position < dernierCreneau) {
+                int debutPlage = GrilleCreneaux.prochainUn(libre, 0, position);
+                if (debutPlage >= dernierCreneau) break;
+                int finPlage = Math.min(GrilleCreneaux.prochainZero(libre, 0, debutPlage), dernierCreneau);
+                if (debutPlage + longueur <= finPlage) {
+                    return jour.atStartOfDay().plusMinutes((long) debutPlage * GrilleCreneaux.MINUTES_PAR_CRENEAU);
+                }
+                position = finPlage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Programme une consultation avec le professionnel le moins chargé d'une spécialité,
+     * au premier créneau de la fenêtre où il est libre ainsi que le patient.
+     * La charge est celle de la semaine du début de la fenêtre (minutes réservées), tenue à jour
+     * en continu ; les professionnels sont essayés du moins au plus chargé.
+     * @return la consultation créée, ou null si personne n'est disponible
+     */
+    public Consultation programmerParSpecialite(List<ProfessionnelSante> professionnels, String specialite,
+                                                LocalDateTime debutFenetre, LocalDateTime finFenetre,
+                                                int dureeMinutes, String motif, Patient patient) {
+        if (professionnels == null || professionnels.isEmpty() || patient == null
+                || debutFenetre == null || finFenetre == null) {
+            System.err.println("❌ Paramètres invalides");
+            return null;
+        }
+        for (ProfessionnelSante pro : repartiteur.ordreDeCharge(professionnels, specialite, debutFenetre.toLocalDate())) {
+            LocalDateTime creneau = premierCreneauLibre(pro, patient, debutFenetre, finFenetre, dureeMinutes);
+            if (creneau != null) {
+                Consultation c = reserverConsultation(creneau, motif, pro, patient, dureeMinutes);
+                if (c != null) {
+                    repartiteur.affectation(pro, debutFenetre.toLocalDate());
+                    return c;
+                }
+            }
+        }
+        System.err.println("❌ Aucun professionnel disponible sur cette fenêtre");
+        return null;
+    }
+
+    /**
+     * Charge des professionnels par semaine
+     */
+    public RepartiteurCharge getRepartiteur() {
+        return repartiteur;
+    }
+
+    /**
+     * Vérifie si un patient est disponible pour une consultation
+     * (test sur le calendrier d'occupation du dossier)
+     */
+    private boolean patientEstDisponible(Patient patient, Consultation nouvelleConsultation) {
+        return patient.getDossierMedical().getOccupation()
+                .estLibre(nouvelleConsultation.getDateHeure(), nouvelleConsultation.getDureeMinutes());
     }
 
     /**
@@ -131,6 +558,57 @@ public class ConsultationService {
                 .findFirst().orElse(null);
     }
 
+    public void setArchive(SegmentArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Archive des anciennes consultations closes, ou null si elle n'a pas pu être ouverte
+     */
+    public SegmentArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Déplace dans l'archive les consultations closes (effectuées ou annulées) terminées avant le seuil.
+     * Elles quittent la liste du service, les plannings et les dossiers, mais restent lues par
+     * l'historique des dossiers, les statistiques, l'occupation et les exports.
+     * @return le nombre de consultations archivées, ou -1 en cas d'erreur
+     */
+    public int archiverConsultations(LocalDateTime seuil) {
+        if (archive == null) {
+            System.err.println("❌ Archive indisponible");
+            return -1;
+        }
+        List<Consultation> closes = consultations.stream()
+                .filter(c -> c.estCloseAvant(seuil) && c.getProfessionnel() != null && c.getPatient() != null)
+                .collect(Collectors.toList());
+        if (!archive.ajouter(closes)) {
+            return -1;
+        }
+
+        Set<Consultation> archivees = Collections.newSetFromMap(new IdentityHashMap<>());
+        archivees.addAll(closes);
+        Set<ProfessionnelSante> pros = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<DossierMedical> dossiers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Consultation c : closes) {
+            pros.add(c.getProfessionnel());
+            dossiers.add(c.getPatient().getDossierMedical());
+        }
+        consultations.removeIf(archivees::contains);
+        pros.forEach(p -> p.retirerArchivees(archivees));
+        dossiers.forEach(d -> d.retirerArchivees(archivees));
+        cachePlanning.vider();
+        return closes.size();
+    }
+
+    /**
+     * Consultations inscrites (hors archive) en colonnes, pour les parcours sans objets
+     */
+    public ColonnesConsultations getColonnes() {
+        return colonnes;
+    }
+
     /**
      * Récupère toutes les consultations
      */
@@ -154,6 +632,71 @@ public class ConsultationService {
         return new ArrayList<>(professionnel.getPlanning());
     }
 
+    /**
+     * Page du planning d'un professionnel (consultations non annulées, par date croissante)
+     * @param curseur curseur de la page précédente, null pour la première page
+     */
+    public Page<Consultation> pagePlanning(ProfessionnelSante professionnel, String curseur, int taille) {
+        return pageConsultations(professionnel.getPlanning(), curseur, taille, false);
+    }
+
+    /**
+     * Page de l'historique d'un patient (toutes ses consultations, par date croissante)
+     * @param curseur curseur de la page précédente, null pour la première page
+     */
+    public Page<Consultation> pageHistorique(Patient patient, String curseur, int taille) {
+        return pageConsultations(patient.getDossierMedical().getConsultations(), curseur, taille, true);
+    }
+
+    /**
+     * Pagination par curseur "date#id" sur une liste triée par date : la reprise se fait par
+     * dichotomie sur la date puis en passant les consultations de même date jusqu'à l'id du curseur.
+     */
+    private static Page<Consultation> pageConsultations(List<Consultation> triees, String curseur,
+                                                        int taille, boolean avecAnnulees) {
+        int i = 0;
+        if (curseur != null) {
+            int separateur = curseur.lastIndexOf('#');
+            LocalDateTime date;
+            int id;
+            try {
+                date = LocalDateTime.parse(curseur.substring(0, separateur));
+                id = Integer.parseInt(curseur.substring(separateur + 1));
+            } catch (RuntimeException e) {
+                System.err.println("❌ Curseur invalide: " + curseur);
+                return new Page<>(new ArrayList<>(), null);
+            }
+            int debutMemeDate = Consultation.indexPremiere(triees, date);
+            int finMemeDate = Consultation.indexPremiere(triees, date.plusNanos(1));
+            // Consultation du curseur supprimée entre-temps : reprise aux ids plus récents
+            i = finMemeDate;
+            for (int k = finMemeDate - 1; k >= debutMemeDate; k--) {
+                int idK = triees.get(k).getIdConsultation();
+                if (idK == id) {
+                    i = k + 1;
+                    break;
+                }
+                if (idK > id) i = k;
+            }
+        }
+
+        List<Consultation> elements = new ArrayList<>(Math.max(taille, 0));
+        for (; i < triees.size() && elements.size() < taille; i++) {
+            Consultation c = triees.get(i);
+            if (avecAnnulees || !"annulée".equalsIgnoreCase(c.getStatut())) {
+                elements.add(c);
+            }
+        }
+        // Une page suivante existe s'il reste une consultation à afficher
+        while (i < triees.size() && !avecAnnulees && "annulée".equalsIgnoreCase(triees.get(i).getStatut())) i++;
+        String suivant = null;
+        if (i < triees.size() && !elements.isEmpty()) {
+            Consultation dernier = elements.get(elements.size() - 1);
+            suivant = dernier.getDateHeure() + "#" + dernier.getIdConsultation();
+        }
+        return new Page<>(elements, suivant);
+    }
+
     /**
      * Récupère les consultations entre deux dates
      */
@@ -190,68 +733,74 @@ public class ConsultationService {
      */
     public String afficherPlanningPeriode(ProfessionnelSante professionnel, 
                                          LocalDateTime debut, LocalDateTime fin) {
-        List<Consultation> consultationsPeriode = consultations.stream()
-            .filter(c -> c.getProfessionnel().getLoginID().equals(professionnel.getLoginID()))
-            .filter(c -> !c.getDateHeure().isBefore(debut) && c.getDateHeure().isBefore(fin))
-            .filter(c -> !"annulée".equalsIgnoreCase(c.getStatut()))
-            .sorted((c1, c2) -> c1.getDateHeure().compareTo(c2.getDateHeure()))
-            .collect(Collectors.toList());
-
         StringBuilder sb = new StringBuilder();
-        sb.append("=== PLANNING DE ").append(professionnel.getNom()).append(" ")
-          .append(professionnel.getPrenom()).append(" ===\n");
-        sb.append("Période : ").append(debut.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")))
-          .append(" au ").append(fin.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))).append("\n\n");
+        ecrirePlanningPeriode(sb, professionnel, debut, fin);
+        return sb.toString();
+    }
 
-        if (consultationsPeriode.isEmpty()) {
-            sb.append("Aucune consultation programmée sur cette période\n");
-        } else {
-            // Grouper par jour
-            Map<LocalDate, List<Consultation>> parJour = consultationsPeriode.stream()
-                .collect(Collectors.groupingBy(c -> c.getDateHeure().toLocalDate()));
-
-            // Afficher jour par jour
-            parJour.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> {
-                    LocalDate jour = entry.getKey();
-                    List<Consultation> consultationsJour = entry.getValue();
-                    
-                    sb.append("--- ").append(jour.format(DateTimeFormatter.ofPattern("EEEE dd MMMM yyyy", Locale.FRENCH)))
-                      .append(" ---\n");
-                    
-                    consultationsJour.forEach(c -> {
-                        sb.append(String.format("  %s - %s : %s %s (%s)\n",
-                            c.getDateHeure().format(DateTimeFormatter.ofPattern("HH:mm")),
-                            c.getFinConsultation().format(DateTimeFormatter.ofPattern("HH:mm")),
-                            c.getPatient().getNom(),
-                            c.getPatient().getPrenom(),
-                            c.getMotif()
-                        ));
-                    });
-                    sb.append("\n");
-                });
+    /**
+     * Écrit le planning d'un professionnel sur une période directement dans la sortie donnée
+     * (System.out, fichier...), sans construire le texte complet en mémoire
+     */
+    public void ecrirePlanningPeriode(Appendable out, ProfessionnelSante professionnel,
+                                      LocalDateTime debut, LocalDateTime fin) {
+        try {
+            RenduPlanning.ecrire(out, professionnel, series, debut, fin);
+        } catch (IOException e) {
+            System.err.println("❌ Erreur d'écriture du planning: " + e.getMessage());
         }
-        
-        return sb.toString();
     }
 
     /**
      * Affiche le planning d'un professionnel pour une semaine
      */
     public String afficherPlanningSemaine(ProfessionnelSante professionnel, LocalDate dateDebut) {
+        return cachePlanning.semaine(professionnel, dateDebut, () -> {
+            LocalDateTime debut = dateDebut.atStartOfDay();
+            return afficherPlanningPeriode(professionnel, debut, debut.plusWeeks(1));
+        });
+    }
+
+    /**
+     * Écrit le planning d'un professionnel pour une semaine dans la sortie donnée
+     * (vue en cache, sinon écrite au fil de l'eau)
+     */
+    public void ecrirePlanningSemaine(Appendable out, ProfessionnelSante professionnel, LocalDate dateDebut) {
         LocalDateTime debut = dateDebut.atStartOfDay();
-        LocalDateTime fin = debut.plusWeeks(1);
-        return afficherPlanningPeriode(professionnel, debut, fin);
+        try {
+            cachePlanning.ecrireSemaine(out, professionnel, dateDebut,
+                    o -> RenduPlanning.ecrire(o, professionnel, series, debut, debut.plusWeeks(1)));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur d'écriture du planning: " + e.getMessage());
+        }
     }
 
     /**
      * Affiche le planning d'un professionnel pour un mois
      */
     public String afficherPlanningMois(ProfessionnelSante professionnel, int annee, int mois) {
+        return cachePlanning.mois(professionnel, annee, mois, () -> {
+            LocalDateTime debut = LocalDateTime.of(annee, mois, 1, 0, 0);
+            return afficherPlanningPeriode(professionnel, debut, debut.plusMonths(1));
+        });
+    }
+
+    /**
+     * Écrit le planning d'un professionnel pour un mois dans la sortie donnée
+     * (vue en cache, sinon écrite au fil de l'eau)
+     */
+    public void ecrirePlanningMois(Appendable out, ProfessionnelSante professionnel, int annee, int mois) {
         LocalDateTime debut = LocalDateTime.of(annee, mois, 1, 0, 0);
-        LocalDateTime fin = debut.plusMonths(1);
-        return afficherPlanningPeriode(professionnel, debut, fin);
+        try {
+            cachePlanning.ecrireMois(out, professionnel, annee, mois,
+                    o -> RenduPlanning.ecrire(o, professionnel, series, debut, debut.plusMonths(1)));
+        } catch (IOException e) {
+            System.err.println("❌ Erreur d'écriture du planning: " + e.getMessage());
+        }
+    }
+
+    public CachePlanning getCachePlanning() {
+        return cachePlanning;
     }
 
     /**
@@ -310,22 +859,17 @@ public class ConsultationService {
      * Obtient le nombre de consultations annulées
      */
     public int getNombreConsultationsAnnulees() {
-        return (int) consultations.stream()
-                .filter(c -> "annulée".equalsIgnoreCase(c.getStatut()))
-                .count();
+        return colonnes.compterStatut("annulée");
     }
 
     /**
      * Calcule le taux de consultations effectuées
      */
     public double getTauxConsultationsEffectuees() {
-        if (consultations.isEmpty()) return 0.0;
-        
-        long effectuees = consultations.stream()
-                .filter(c -> "effectuée".equalsIgnoreCase(c.getStatut()))
-                .count();
-        
-        return (double) effectuees / consultations.size() * 100;
+        int total = colonnes.taille();
+        if (total == 0) return 0.0;
+
+        return (double) colonnes.compterStatut("effectuée") / total * 100;
     }
 
     /**
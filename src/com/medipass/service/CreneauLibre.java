@@ -0,0 +1,35 @@
+package com.medipass.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Créneau libre proposé par la recherche de disponibilités
+ */
+public class CreneauLibre {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final ProfessionnelSante professionnel;
+    private final LocalDateTime debut;
+    private final int dureeMinutes;
+
+    public CreneauLibre(ProfessionnelSante professionnel, LocalDateTime debut, int dureeMinutes) {
+        this.professionnel = professionnel;
+        this.debut = debut;
+        this.dureeMinutes = dureeMinutes;
+    }
+
+    public ProfessionnelSante getProfessionnel() { return professionnel; }
+    public LocalDateTime getDebut() { return debut; }
+    public int getDureeMinutes() { return dureeMinutes; }
+    public LocalDateTime getFin() { return debut.plusMinutes(dureeMinutes); }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d min) - Dr.%s %s [%s]",
+                debut.format(FORMAT), dureeMinutes,
+                professionnel.getNom(), professionnel.getPrenom(), professionnel.getLoginID());
+    }
+}
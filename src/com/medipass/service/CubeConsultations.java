@@ -0,0 +1,385 @@
+package com.medipass.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Cube de consultations pré-agrégé : nombre et minutes par (jour, professionnel, spécialité, statut).
+ *
+ * Une cellule est un couple (professionnel, statut) ; la spécialité se déduit du professionnel
+ * et une ligne "tous professionnels" par statut sert aux totaux. Chaque cellule garde :
+ * - ses valeurs par jour, dans une table de hachage à clés primitives partagée ;
+ * - un arbre de Fenwick par semaine, qui donne la somme d'une plage de semaines en O(log n).
+ * Une période quelconque = jours de la semaine de début + semaines pleines + jours de la semaine
+ * de fin, soit au plus 14 lectures de jours et deux préfixes par cellule, quelle que soit la durée.
+ */
+public class CubeConsultations {
+
+    public enum Granularite { JOUR, SEMAINE, MOIS, ANNEE }
+
+    private static final int MAX_STATUTS = 8;
+    private static final int TOUS = 0;
+
+    // Dictionnaires des dimensions
+    private final Map<String, Integer> indexProfessionnel = new HashMap<>();
+    private final List<String> nomsProfessionnels = new ArrayList<>();
+    private final List<Integer> specialiteDuProfessionnel = new ArrayList<>();
+    private final Map<String, Integer> indexSpecialite = new HashMap<>();
+    private final List<String> specialites = new ArrayList<>();
+    private final Map<String, Integer> indexStatut = new HashMap<>();
+    private final List<String> statuts = new ArrayList<>();
+
+    // Cellules : id = professionnel * MAX_STATUTS + statut
+    private final List<SemainesFenwick> semaines = new ArrayList<>();
+    private final List<Integer> cellulesActives = new ArrayList<>();
+    private final JoursCompacts jours = new JoursCompacts();
+
+    public CubeConsultations() {
+        nomsProfessionnels.add("Tous");
+        specialiteDuProfessionnel.add(-1);
+    }
+
+    /**
+     * Ajoute (ou retire, avec des valeurs négatives) des consultations dans une cellule
+     */
+    public synchronized void ajouter(ProfessionnelSante professionnel, String statut, LocalDate jour,
+                                     int nombre, long minutes) {
+        int s = statut(statut);
+        long epoch = jour.toEpochDay();
+        if (professionnel != null) {
+            ajouterCellule(professionnel(professionnel) * MAX_STATUTS + s, epoch, nombre, minutes);
+        }
+        ajouterCellule(TOUS * MAX_STATUTS + s, epoch, nombre, minutes);
+    }
+
+    /**
+     * Nombre et minutes de la période [debut, fin] (bornes incluses)
+     */
+    public synchronized long[] total(LocalDate debut, LocalDate fin) {
+        long[] somme = new long[2];
+        for (int s = 0; s < statuts.size(); s++) {
+            cumuler(TOUS * MAX_STATUTS + s, debut, fin, somme);
+        }
+        return somme;
+    }
+
+    /**
+     * Nombre et minutes par statut sur la période
+     */
+    public synchronized Map<String, long[]> parStatut(LocalDate debut, LocalDate fin) {
+        Map<String, long[]> resultat = new TreeMap<>();
+        for (int s = 0; s < statuts.size(); s++) {
+            long[] somme = new long[2];
+            cumuler(TOUS * MAX_STATUTS + s, debut, fin, somme);
+            if (somme[0] != 0) resultat.put(statuts.get(s), somme);
+        }
+        return resultat;
+    }
+
+    /**
+     * Nombre et minutes par professionnel ("Nom Prénom") sur la période
+     */
+    public synchronized Map<String, long[]> parProfessionnel(LocalDate debut, LocalDate fin) {
+        long[][] sommes = parProfessionnelIndex(debut, fin);
+        Map<String, long[]> resultat = new TreeMap<>();
+        for (int p = 1; p < sommes.length; p++) {
+            if (sommes[p][0] != 0) resultat.merge(nomsProfessionnels.get(p), sommes[p], CubeConsultations::additionner);
+        }
+        return resultat;
+    }
+
+    /**
+     * Nombre et minutes par spécialité sur la période
+     */
+    public synchronized Map<String, long[]> parSpecialite(LocalDate debut, LocalDate fin) {
+        long[][] sommes = parProfessionnelIndex(debut, fin);
+        Map<String, long[]> resultat = new TreeMap<>();
+        for (int p = 1; p < sommes.length; p++) {
+            if (sommes[p][0] != 0) {
+                resultat.merge(specialites.get(specialiteDuProfessionnel.get(p)), sommes[p], CubeConsultations::additionner);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Totaux agrégés par jour, semaine, mois ou année sur la période (compartiments non vides)
+     */
+    public synchronized Map<LocalDate, long[]> cumul(Granularite granularite, LocalDate debut, LocalDate fin) {
+        Map<LocalDate, long[]> resultat = new LinkedHashMap<>();
+        LocalDate compartiment = debutCompartiment(granularite, debut);
+        while (!compartiment.isAfter(fin)) {
+            LocalDate suivant = compartimentSuivant(granularite, compartiment);
+            LocalDate de = compartiment.isBefore(debut) ? debut : compartiment;
+            LocalDate a = suivant.minusDays(1).isAfter(fin) ? fin : suivant.minusDays(1);
+            long[] somme = total(de, a);
+            if (somme[0] != 0) resultat.put(compartiment, somme);
+            compartiment = suivant;
+        }
+        return resultat;
+    }
+
+    private long[][] parProfessionnelIndex(LocalDate debut, LocalDate fin) {
+        long[][] sommes = new long[nomsProfessionnels.size()][2];
+        for (int cellule : cellulesActives) {
+            int p = cellule / MAX_STATUTS;
+            if (p != TOUS) cumuler(cellule, debut, fin, sommes[p]);
+        }
+        return sommes;
+    }
+
+    private static long[] additionner(long[] a, long[] b) {
+        return new long[]{a[0] + b[0], a[1] + b[1]};
+    }
+
+    private static LocalDate debutCompartiment(Granularite g, LocalDate jour) {
+        return switch (g) {
+            case JOUR -> jour;
+            case SEMAINE -> jour.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MOIS -> jour.withDayOfMonth(1);
+            case ANNEE -> jour.withDayOfYear(1);
+        };
+    }
+
+    private static LocalDate compartimentSuivant(Granularite g, LocalDate compartiment) {
+        return switch (g) {
+            case JOUR -> compartiment.plusDays(1);
+            case SEMAINE -> compartiment.plusWeeks(1);
+            case MOIS -> compartiment.plusMonths(1);
+            case ANNEE -> compartiment.plusYears(1);
+        };
+    }
+
+    /* ---------- Cellules ---------- */
+
+    private void ajouterCellule(int cellule, long jour, int nombre, long minutes) {
+        while (semaines.size() <= cellule) semaines.add(null);
+        SemainesFenwick f = semaines.get(cellule);
+        if (f == null) {
+            f = new SemainesFenwick();
+            semaines.set(cellule, f);
+            cellulesActives.add(cellule);
+        }
+        f.ajouter(semaine(jour), nombre, minutes);
+        jours.ajouter(cleJour(jour, cellule), nombre, minutes);
+    }
+
+    /**
+     * Ajoute à somme le nombre et les minutes de la cellule sur [debut, fin]
+     */
+    private void cumuler(int cellule, LocalDate debut, LocalDate fin, long[] somme) {
+        SemainesFenwick f = cellule < semaines.size() ? semaines.get(cellule) : null;
+        if (f == null || fin.isBefore(debut)) return;
+        long d1 = debut.toEpochDay();
+        long d2 = fin.toEpochDay();
+        long s1 = semaine(d1);
+        long s2 = semaine(d2);
+        if (s1 == s2) {
+            cumulerJours(cellule, d1, d2, somme);
+            return;
+        }
+        // Fin de la première semaine, semaines pleines, début de la dernière semaine
+        cumulerJours(cellule, d1, premierJour(s1 + 1) - 1, somme);
+        f.cumuler(s1 + 1, s2 - 1, somme);
+        cumulerJours(cellule, premierJour(s2), d2, somme);
+    }
+
+    private void cumulerJours(int cellule, long de, long a, long[] somme) {
+        for (long j = de; j <= a; j++) {
+            jours.cumuler(cleJour(j, cellule), somme);
+        }
+    }
+
+    private int professionnel(ProfessionnelSante pro) {
+        Integer index = indexProfessionnel.get(pro.getLoginID());
+        if (index == null) {
+            index = nomsProfessionnels.size();
+            indexProfessionnel.put(pro.getLoginID(), index);
+            nomsProfessionnels.add(pro.getNom() + " " + pro.getPrenom());
+            String specialite = pro.getSpecialite() == null ? "" : pro.getSpecialite();
+            Integer spec = indexSpecialite.get(specialite);
+            if (spec == null) {
+                spec = specialites.size();
+                indexSpecialite.put(specialite, spec);
+                specialites.add(specialite);
+            }
+            specialiteDuProfessionnel.add(spec);
+        }
+        return index;
+    }
+
+    private int statut(String statut) {
+        String cle = statut == null ? "" : statut.toLowerCase();
+        Integer index = indexStatut.get(cle);
+        if (index == null) {
+            // Les statuts sont validés par Consultation : au-delà, regroupés dans le dernier
+            if (statuts.size() == MAX_STATUTS) return MAX_STATUTS - 1;
+            index = statuts.size();
+            indexStatut.put(cle, index);
+            statuts.add(cle);
+        }
+        return index;
+    }
+
+    // Semaines commençant le lundi (le jour epoch 0 est un jeudi)
+    private static long semaine(long jour) {
+        return Math.floorDiv(jour + 3, 7);
+    }
+
+    private static long premierJour(long semaine) {
+        return semaine * 7 - 3;
+    }
+
+    private static long cleJour(long jour, int cellule) {
+        return (jour << 24) | cellule;
+    }
+
+    /**
+     * Arbre de Fenwick (nombre, minutes) sur les semaines d'une cellule.
+     * La plage couverte s'étend par doublement quand une semaine arrive hors plage.
+     */
+    private static class SemainesFenwick {
+        private long base;
+        private long[] nombre;
+        private long[] minutes;
+
+        void ajouter(long semaine, long n, long m) {
+            if (nombre == null) {
+                base = semaine - 8;
+                nombre = new long[33];
+                minutes = new long[33];
+            }
+            while (semaine < base || semaine - base >= nombre.length - 1) {
+                agrandir(semaine);
+            }
+            for (int i = (int) (semaine - base) + 1; i < nombre.length; i += i & -i) {
+                nombre[i] += n;
+                minutes[i] += m;
+            }
+        }
+
+        void cumuler(long de, long a, long[] somme) {
+            if (nombre == null || a < de) return;
+            long haut = Math.min(a - base, nombre.length - 2);
+            long bas = Math.max(de - base, 0) - 1;
+            if (haut < 0 || haut <= bas) return;
+            prefixe((int) haut, somme, 1);
+            if (bas >= 0) prefixe((int) bas, somme, -1);
+        }
+
+        /**
+         * Ajoute à somme (multiplié par signe) le préfixe [0, index] en positions relatives
+         */
+        private void prefixe(int index, long[] somme, int signe) {
+            for (int i = index + 1; i > 0; i -= i & -i) {
+                somme[0] += signe * nombre[i];
+                somme[1] += signe * minutes[i];
+            }
+        }
+
+        /**
+         * Double la plage du côté de la semaine demandée et reconstruit l'arbre en O(n)
+         */
+        private void agrandir(long semaine) {
+            int taille = nombre.length - 1;
+            long[] valeursN = new long[taille];
+            long[] valeursM = new long[taille];
+            long[] s = new long[2];
+            long[] precedent = new long[2];
+            for (int i = 0; i < taille; i++) {
+                s[0] = 0;
+                s[1] = 0;
+                prefixe(i, s, 1);
+                valeursN[i] = s[0] - precedent[0];
+                valeursM[i] = s[1] - precedent[1];
+                precedent[0] = s[0];
+                precedent[1] = s[1];
+            }
+            long nouvelleBase = semaine < base ? base - taille : base;
+            int decalage = (int) (base - nouvelleBase);
+            nombre = new long[2 * taille + 1];
+            minutes = new long[2 * taille + 1];
+            for (int i = 0; i < taille; i++) {
+                nombre[i + decalage + 1] = valeursN[i];
+                minutes[i + decalage + 1] = valeursM[i];
+            }
+            for (int i = 1; i < nombre.length; i++) {
+                int parent = i + (i & -i);
+                if (parent < nombre.length) {
+                    nombre[parent] += nombre[i];
+                    minutes[parent] += minutes[i];
+                }
+            }
+            base = nouvelleBase;
+        }
+    }
+
+    /**
+     * Table de hachage à adressage ouvert : clé (jour, cellule) -> nombre et minutes
+     */
+    private static class JoursCompacts {
+        private long[] cles = new long[1024];
+        private long[] nombre = new long[1024];
+        private long[] minutes = new long[1024];
+        private boolean[] occupees = new boolean[1024];
+        private int taille;
+
+        void ajouter(long cle, long n, long m) {
+            if (2 * (taille + 1) > cles.length) agrandir();
+            int i = position(cle);
+            if (!occupees[i]) {
+                occupees[i] = true;
+                cles[i] = cle;
+                taille++;
+            }
+            nombre[i] += n;
+            minutes[i] += m;
+        }
+
+        void cumuler(long cle, long[] somme) {
+            int i = position(cle);
+            if (occupees[i]) {
+                somme[0] += nombre[i];
+                somme[1] += minutes[i];
+            }
+        }
+
+        private int position(long cle) {
+            int masque = cles.length - 1;
+            int i = Long.hashCode(cle * 0x9E3779B97F4A7C15L) & masque;
+            while (occupees[i] && cles[i] != cle) {
+                i = (i + 1) & masque;
+            }
+            return i;
+        }
+
+        private void agrandir() {
+            long[] anciennesCles = cles;
+            long[] anciensN = nombre;
+            long[] anciensM = minutes;
+            boolean[] anciennesOccupees = occupees;
+            cles = new long[anciennesCles.length * 2];
+            nombre = new long[cles.length];
+            minutes = new long[cles.length];
+            occupees = new boolean[cles.length];
+            for (int k = 0; k < anciennesCles.length; k++) {
+                if (anciennesOccupees[k]) {
+                    int i = position(anciennesCles[k]);
+                    occupees[i] = true;
+                    cles[i] = anciennesCles[k];
+                    nombre[i] = anciensN[k];
+                    minutes[i] = anciensM[k];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.medipass.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quantiles approchés d'un flux de valeurs positives (DDSketch).
+ *
+ * Les valeurs sont rangées dans des compartiments géométriques de raison
+ * gamma = (1 + α) / (1 - α) : tout quantile renvoyé est à moins de α (erreur relative)
+ * de la vraie valeur de même rang. Pour des durées en minutes, quelques centaines de
+ * compartiments suffisent. Deux résumés de même α se fusionnent sans perte de précision.
+ */
+public class DDSketch {
+
+    private final double alpha;
+    private final double gamma;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> compartiments = new TreeMap<>();
+    private long zeros;
+    private long nombre;
+
+    public DDSketch(double alpha) {
+        this.alpha = alpha;
+        this.gamma = (1 + alpha) / (1 - alpha);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void ajouter(double valeur) {
+        if (valeur < 0) return;
+        nombre++;
+        if (valeur == 0) {
+            zeros++;
+            return;
+        }
+        compartiments.merge((int) Math.ceil(Math.log(valeur) / logGamma), 1L, Long::sum);
+    }
+
+    /**
+     * Valeur au quantile q (0 = minimum, 0.5 = médiane, 1 = maximum), NaN si vide
+     */
+    public double quantile(double q) {
+        if (nombre == 0) return Double.NaN;
+        long rang = (long) Math.floor(Math.max(0, Math.min(1, q)) * (nombre - 1));
+        if (rang < zeros) return 0;
+        long cumul = zeros;
+        for (Map.Entry<Integer, Long> e : compartiments.entrySet()) {
+            cumul += e.getValue();
+            if (cumul > rang) {
+                // Milieu (relatif) du compartiment ]gamma^(i-1), gamma^i]
+                return 2 * Math.pow(gamma, e.getKey()) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, compartiments.lastKey()) / (gamma + 1);
+    }
+
+    public void fusionner(DDSketch autre) {
+        if (autre.alpha != alpha) {
+            System.err.println("❌ Fusion impossible : précisions différentes");
+            return;
+        }
+        autre.compartiments.forEach((i, n) -> compartiments.merge(i, n, Long::sum));
+        zeros += autre.zeros;
+        nombre += autre.nombre;
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Erreur relative maximale des quantiles
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+}
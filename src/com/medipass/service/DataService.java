@@ -1,10 +1,18 @@
 package com.medipass.service;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
 
 import com.medipass.model.*;
 import com.medipass.user.*;
@@ -18,6 +26,13 @@ public class DataService {
     private static final String PROS_FILE = "pros.csv";
     private static final String CONSULTATIONS_FILE = "consultations.csv";
     private static final String ANTECEDENTS_FILE = "antecedents.csv";
+    private static final String SERIES_FILE = "series.csv";
+    private static final String ATTENTE_FILE = "attente.csv";
+    private static final String INDEX_TEXTE_FILE = "index_texte.dat";
+    private static final String ARCHIVE_FILE = "archive_consultations.seg";
+    private static final String NOTES_FILE = "notes.dat";
+
+    private final List<String> consultationsOrphelines = new ArrayList<>();
 
     // ========== PATIENTS ==========
 
@@ -80,16 +95,17 @@ public class DataService {
 
     public void saveProfessionnels(List<ProfessionnelSante> pros) {
         try (PrintWriter writer = new PrintWriter(new FileWriter(PROS_FILE))) {
-            writer.println("login;password;nom;prenom;specialite;numeroOrdre;horairesDisponibilite");
+            writer.println("login;password;nom;prenom;specialite;numeroOrdre;horairesDisponibilite;masqueHoraires");
             for (ProfessionnelSante p : pros) {
-                writer.printf("%s;%s;%s;%s;%s;%s;%s\n",
+                writer.printf("%s;%s;%s;%s;%s;%s;%s;%s\n",
                         p.getLoginID(),
                         p.getPassword(),
                         p.getNom(),
                         p.getPrenom(),
                         p.getSpecialite(),
                         p.getNumeroOrdre(),
-                        p.getHorairesDisponibilite()
+                        p.getHorairesDisponibilite(),
+                        p.getHoraires().encoder()
                 );
             }
         } catch (IOException e) {
@@ -119,7 +135,14 @@ public class DataService {
                                 parts[0], parts[1], "PRO", parts[2], parts[3], parts[4], parts[5]
                         );
                         if (parts.length > 6 && !parts[6].isEmpty()) {
-                            p.setHorairesDisponibilite(parts[6]);
+                            // Colonne masqueHoraires optionnelle (anciens fichiers : horaires texte seulement)
+                            HorairesHebdomadaires masque = parts.length > 7 && !parts[7].isEmpty()
+                                    ? HorairesHebdomadaires.decoder(parts[7]) : null;
+                            if (masque != null) {
+                                p.setHorairesDisponibilite(parts[6], masque);
+                            } else {
+                                p.setHorairesDisponibilite(parts[6]);
+                            }
                         }
                         pros.add(p);
                     } catch (Exception e) {
@@ -136,8 +159,9 @@ public class DataService {
     // ========== CONSULTATIONS ==========
 
     public void saveConsultations(List<Consultation> consultations) {
+        NotesTexte.synchroniser();
         try (PrintWriter writer = new PrintWriter(new FileWriter(CONSULTATIONS_FILE))) {
-            writer.println("dateHeure;motif;professionnelLogin;patientId;dureeMinutes;statut;observations;diagnostic");
+            writer.println("dateHeure;motif;professionnelLogin;patientId;dureeMinutes;statut;refObservations;refDiagnostic");
             for (Consultation c : consultations) {
                 writer.printf("%s;%s;%s;%d;%d;%s;%s;%s\n",
                         c.getDateHeure().toString(),
@@ -146,8 +170,8 @@ public class DataService {
                         c.getPatient().getId(),
                         c.getDureeMinutes(),
                         c.getStatut(),
-                        c.getObservations() != null ? c.getObservations().replace(";", ",") : "",
-                        c.getDiagnostic() != null ? c.getDiagnostic().replace(";", ",") : ""
+                        NotesTexte.formater(c.getReferenceObservations()),
+                        NotesTexte.formater(c.getReferenceDiagnostic())
                 );
             }
         } catch (IOException e) {
@@ -155,19 +179,52 @@ public class DataService {
         }
     }
 
+    /**
+     * Lignes du fichier des consultations ignorées au dernier chargement
+     * (professionnel ou patient inconnu, ligne illisible), pour l'audit
+     */
+    public List<String> getConsultationsOrphelines() {
+        return consultationsOrphelines;
+    }
+
     public List<Consultation> loadConsultations(List<Patient> patients, List<ProfessionnelSante> pros) {
+        return loadConsultations(patients, pros, null);
+    }
+
+    /**
+     * Comme loadConsultations, en ignorant les lignes déjà présentes dans l'archive
+     * (archivage fait sans sauvegarde ensuite)
+     */
+    public List<Consultation> loadConsultations(List<Patient> patients, List<ProfessionnelSante> pros,
+                                                SegmentArchive archive) {
         List<Consultation> consultations = new ArrayList<>();
+        consultationsOrphelines.clear();
+        migrerTextes(CONSULTATIONS_FILE, "refObservations",
+                "dateHeure;motif;professionnelLogin;patientId;dureeMinutes;statut;refObservations;refDiagnostic", 6, 7);
         File file = new File(CONSULTATIONS_FILE);
         if (!file.exists()) {
             return consultations;
         }
 
+        Map<String, ProfessionnelSante> prosParLogin = new HashMap<>();
+        for (ProfessionnelSante p : pros) {
+            prosParLogin.putIfAbsent(p.getLoginID(), p);
+        }
+        Map<Integer, Patient> patientsParId = new HashMap<>();
+        for (Patient p : patients) {
+            patientsParId.putIfAbsent(p.getId(), p);
+        }
+
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
             boolean isHeader = true;
+            boolean references = false;
+            int numeroLigne = 0;
             while ((line = reader.readLine()) != null) {
+                numeroLigne++;
                 if (isHeader) {
                     isHeader = false;
+                    references = line.contains("refObservations");
                     continue;
                 }
                 String[] parts = line.split(";");
@@ -178,14 +235,19 @@ public class DataService {
                         String proLogin = parts[2];
                         int patientId = Integer.parseInt(parts[3]);
 
-                        ProfessionnelSante pro = pros.stream()
-                                .filter(p -> p.getLoginID().equals(proLogin))
-                                .findFirst().orElse(null);
-
-                        Patient patient = patients.stream()
-                                .filter(p -> p.getId() == patientId)
-                                .findFirst().orElse(null);
+                        ProfessionnelSante pro = prosParLogin.get(proLogin);
+                        Patient patient = patientsParId.get(patientId);
 
+                        if (pro == null) {
+                            consultationsOrphelines.add("Ligne " + numeroLigne + " : professionnel inconnu '" + proLogin + "'");
+                        }
+                        if (patient == null) {
+                            consultationsOrphelines.add("Ligne " + numeroLigne + " : patient inconnu " + patientId);
+                        }
+                        if (pro != null && patient != null && archive != null
+                                && archive.contient(proLogin, date, patientId)) {
+                            continue;
+                        }
                         if (pro != null && patient != null) {
                             Consultation c = new Consultation(date, motif, pro, patient);
                             if (parts.length > 4 && !parts[4].isEmpty()) {
@@ -194,44 +256,268 @@ public class DataService {
                             if (parts.length > 5 && !parts[5].isEmpty()) {
                                 c.setStatut(parts[5]);
                             }
-                            if (parts.length > 6 && !parts[6].isEmpty()) {
-                                c.setObservations(parts[6]);
-                            }
-                            if (parts.length > 7 && !parts[7].isEmpty()) {
-                                c.setDiagnostic(parts[7]);
+                            long observations = note(parts, 6, references);
+                            long diagnostic = note(parts, 7, references);
+                            if (observations != NotesTexte.AUCUNE || diagnostic != NotesTexte.AUCUNE) {
+                                c.restaurerNotes(observations, diagnostic);
                             }
 
                             consultations.add(c);
-
-                            // Re-link to objects
-                            pro.ajouterConsultation(c);
-                            patient.getDossierMedical().ajouterConsultation(c);
                         }
                     } catch (Exception e) {
                         System.err.println("Erreur parsing consultation: " + e.getMessage());
+                        consultationsOrphelines.add("Ligne " + numeroLigne + " : illisible (" + e.getMessage() + ")");
                     }
+                } else if (!line.isBlank()) {
+                    consultationsOrphelines.add("Ligne " + numeroLigne + " : colonnes manquantes");
                 }
             }
         } catch (Exception e) {
             System.err.println("Erreur chargement consultations: " + e.getMessage());
         }
+
+        // Re-link to objects, par date : chaque insertion se fait en fin de planning et de dossier
+        // (le fichier n'est pas forcément trié ; un tri unique évite les insertions au milieu)
+        List<Consultation> parDate = new ArrayList<>(consultations);
+        parDate.sort(Comparator.comparing(Consultation::getDateHeure));
+        for (Consultation c : parDate) {
+            c.getProfessionnel().ajouterConsultation(c);
+            c.getPatient().getDossierMedical().ajouterConsultation(c);
+        }
         return consultations;
     }
 
+    // ========== SÉRIES DE CONSULTATIONS ==========
+
+    /**
+     * Sauvegarde les séries récurrentes (règle + index des occurrences détachées).
+     * Les occurrences matérialisées sont sauvegardées comme consultations normales.
+     */
+    public void saveSeries(List<SerieConsultations> series) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(SERIES_FILE))) {
+            writer.println("idSerie;premiere;motif;professionnelLogin;patientId;dureeMinutes;regle;detachees");
+            for (SerieConsultations s : series) {
+                StringBuilder detachees = new StringBuilder();
+                BitSet bits = s.getDetachees();
+                for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                    if (detachees.length() > 0) detachees.append(',');
+                    detachees.append(i);
+                }
+                writer.printf("%d;%s;%s;%s;%d;%d;%s;%s\n",
+                        s.getIdSerie(),
+                        s.getPremiere(),
+                        s.getMotif(),
+                        s.getProfessionnel().getLoginID(),
+                        s.getPatient().getId(),
+                        s.getDureeMinutes(),
+                        s.getRegle().encoder(),
+                        detachees
+                );
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur sauvegarde séries: " + e.getMessage());
+        }
+    }
+
+    public List<SerieConsultations> loadSeries(List<Patient> patients, List<ProfessionnelSante> pros) {
+        List<SerieConsultations> series = new ArrayList<>();
+        File file = new File(SERIES_FILE);
+        if (!file.exists()) {
+            return series;
+        }
+
+        Map<String, ProfessionnelSante> prosParLogin = new HashMap<>();
+        for (ProfessionnelSante p : pros) {
+            prosParLogin.putIfAbsent(p.getLoginID(), p);
+        }
+        Map<Integer, Patient> patientsParId = new HashMap<>();
+        for (Patient p : patients) {
+            patientsParId.putIfAbsent(p.getId(), p);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            boolean isHeader = true;
+            while ((line = reader.readLine()) != null) {
+                if (isHeader) {
+                    isHeader = false;
+                    continue;
+                }
+                String[] parts = line.split(";");
+                if (parts.length >= 7) {
+                    try {
+                        String proLogin = parts[3];
+                        int patientId = Integer.parseInt(parts[4]);
+
+                        ProfessionnelSante pro = prosParLogin.get(proLogin);
+                        Patient patient = patientsParId.get(patientId);
+
+                        if (pro != null && patient != null) {
+                            SerieConsultations s = new SerieConsultations(
+                                    Integer.parseInt(parts[0]),
+                                    LocalDateTime.parse(parts[1]),
+                                    parts[2], pro, patient,
+                                    Integer.parseInt(parts[5]),
+                                    RegleRecurrence.decoder(parts[6]));
+                            if (parts.length > 7 && !parts[7].isEmpty()) {
+                                for (String index : parts[7].split(",")) {
+                                    s.detacher(Integer.parseInt(index.trim()));
+                                }
+                            }
+                            series.add(s);
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Erreur parsing série: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur chargement séries: " + e.getMessage());
+        }
+        return series;
+    }
+
+    // ========== LISTE D'ATTENTE ==========
+
+    public void saveListeAttente(List<DemandeAttente> demandes) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(ATTENTE_FILE))) {
+            writer.println("patientId;professionnelLogin;specialite;motif;dureeMinutes;urgence;dateDemande");
+            for (DemandeAttente d : demandes) {
+                writer.printf("%d;%s;%s;%s;%d;%d;%s\n",
+                        d.getPatient().getId(),
+                        d.getProfessionnel() != null ? d.getProfessionnel().getLoginID() : "",
+                        d.getSpecialite() != null ? d.getSpecialite() : "",
+                        d.getMotif() != null ? d.getMotif().replace(";", ",") : "",
+                        d.getDureeMinutes(),
+                        d.getUrgence(),
+                        d.getDateDemande()
+                );
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur sauvegarde liste d'attente: " + e.getMessage());
+        }
+    }
+
+    public List<DemandeAttente> loadListeAttente(List<Patient> patients, List<ProfessionnelSante> pros) {
+        List<DemandeAttente> demandes = new ArrayList<>();
+        File file = new File(ATTENTE_FILE);
+        if (!file.exists()) {
+            return demandes;
+        }
+
+        Map<String, ProfessionnelSante> prosParLogin = new HashMap<>();
+        for (ProfessionnelSante p : pros) {
+            prosParLogin.putIfAbsent(p.getLoginID(), p);
+        }
+        Map<Integer, Patient> patientsParId = new HashMap<>();
+        for (Patient p : patients) {
+            patientsParId.putIfAbsent(p.getId(), p);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            boolean isHeader = true;
+            while ((line = reader.readLine()) != null) {
+                if (isHeader) {
+                    isHeader = false;
+                    continue;
+                }
+                String[] parts = line.split(";", -1);
+                if (parts.length >= 7) {
+                    try {
+                        int patientId = Integer.parseInt(parts[0]);
+                        String proLogin = parts[1];
+
+                        Patient patient = patientsParId.get(patientId);
+                        ProfessionnelSante pro = proLogin.isEmpty() ? null : prosParLogin.get(proLogin);
+
+                        if (patient != null && (pro != null || !parts[2].isEmpty())) {
+                            demandes.add(new DemandeAttente(patient, pro, parts[2], parts[3],
+                                    Integer.parseInt(parts[4]), Integer.parseInt(parts[5]),
+                                    LocalDateTime.parse(parts[6])));
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Erreur parsing liste d'attente: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur chargement liste d'attente: " + e.getMessage());
+        }
+        return demandes;
+    }
+
+    // ========== CAMPAGNES ==========
+
+    /**
+     * Charge un fichier de demandes à placer par l'optimiseur.
+     * Format : patientId;specialite;motif;dureeMinutes;fenetres
+     * avec fenetres = debut>fin séparées par | (dates ISO), par ordre de préférence.
+     */
+    public List<DemandePlanification> loadDemandesPlanification(String fichier, List<Patient> patients) {
+        List<DemandePlanification> demandes = new ArrayList<>();
+        File file = new File(fichier);
+        if (!file.exists()) {
+            System.err.println("❌ Fichier introuvable : " + fichier);
+            return demandes;
+        }
+
+        Map<Integer, Patient> parId = new HashMap<>();
+        for (Patient p : patients) {
+            parId.put(p.getId(), p);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            boolean isHeader = true;
+            while ((line = reader.readLine()) != null) {
+                if (isHeader) {
+                    isHeader = false;
+                    continue;
+                }
+                String[] parts = line.split(";", -1);
+                if (parts.length >= 5) {
+                    try {
+                        Patient patient = parId.get(Integer.parseInt(parts[0].trim()));
+                        if (patient == null) {
+                            System.err.println("Demande ignorée, patient inconnu : " + parts[0]);
+                            continue;
+                        }
+                        DemandePlanification d = new DemandePlanification(patient, parts[1].trim(), parts[2],
+                                Integer.parseInt(parts[3].trim()));
+                        for (String fenetre : parts[4].split("\\|")) {
+                            String[] bornes = fenetre.split(">");
+                            if (bornes.length == 2) {
+                                d.ajouterFenetre(LocalDateTime.parse(bornes[0].trim()), LocalDateTime.parse(bornes[1].trim()));
+                            }
+                        }
+                        demandes.add(d);
+                    } catch (Exception e) {
+                        System.err.println("Erreur parsing demande de campagne: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur chargement demandes de campagne: " + e.getMessage());
+        }
+        return demandes;
+    }
+
     // ========== ANTÉCÉDENTS ==========
 
     /**
      * Sauvegarde les antécédents de tous les patients
      */
     public void saveAntecedents(List<Patient> patients) {
+        NotesTexte.synchroniser();
         try (PrintWriter writer = new PrintWriter(new FileWriter(ANTECEDENTS_FILE))) {
-            writer.println("patientId;type;description;date;gravite;actif");
+            writer.println("patientId;type;refDescription;date;gravite;actif");
             for (Patient p : patients) {
                 for (Antecedent a : p.getDossierMedical().getAntecedents()) {
                     writer.printf("%d;%s;%s;%s;%s;%s\n",
                         p.getId(),
                         a.getType(),
-                        a.getDescription() != null ? a.getDescription().replace(";", ",") : "",
+                        NotesTexte.formater(a.getReferenceDescription()),
                         a.getDate(),
                         a.getGravite(),
                         a.isActif()
@@ -247,31 +533,35 @@ public class DataService {
      * Charge les antécédents depuis le fichier CSV
      */
     public void loadAntecedents(List<Patient> patients) {
+        migrerTextes(ANTECEDENTS_FILE, "refDescription", "patientId;type;refDescription;date;gravite;actif", 2);
         File file = new File(ANTECEDENTS_FILE);
         if (!file.exists()) {
             return;
         }
+        Map<Integer, Patient> patientsParId = new HashMap<>();
+        for (Patient p : patients) {
+            patientsParId.putIfAbsent(p.getId(), p);
+        }
 
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
             boolean isHeader = true;
+            boolean references = false;
             while ((line = reader.readLine()) != null) {
                 if (isHeader) {
                     isHeader = false;
+                    references = line.contains("refDescription");
                     continue;
                 }
                 String[] parts = line.split(";");
                 if (parts.length >= 5) {
                     try {
-                        int patientId = Integer.parseInt(parts[0]);
-                        Patient patient = patients.stream()
-                            .filter(p -> p.getId() == patientId)
-                            .findFirst().orElse(null);
+                        Patient patient = patientsParId.get(Integer.parseInt(parts[0]));
                         
                         if (patient != null) {
                             Antecedent ant = new Antecedent(
                                 parts[1], // type
-                                parts[2], // description
+                                note(parts, 2, references), // description
                                 LocalDate.parse(parts[3]), // date
                                 parts[4], // gravité
                                 parts.length > 5 ? Boolean.parseBoolean(parts[5]) : true // actif
@@ -287,4 +577,116 @@ public class DataService {
             System.err.println("Erreur chargement antécédents: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // ========== INDEX PLEIN TEXTE ==========
+
+    /**
+     * Sauvegarde l'index texte, après les fichiers de données dont il porte l'empreinte
+     */
+    public void saveIndexTexte(IndexTexte index, List<Consultation> consultations, List<Patient> patients) {
+        index.sauvegarder(new File(INDEX_TEXTE_FILE), empreinteDonnees(), consultations, patients);
+    }
+
+    /**
+     * Recharge l'index texte s'il a été sauvegardé avec les fichiers de données actuels
+     * @return false si l'index doit être reconstruit
+     */
+    public boolean loadIndexTexte(IndexTexte index, List<Consultation> consultations, List<Patient> patients) {
+        return index.charger(new File(INDEX_TEXTE_FILE), empreinteDonnees(), consultations, patients);
+    }
+
+    // ========== TEXTES LIBRES ==========
+
+    /**
+     * Ouvre le fichier des textes libres (observations, diagnostics, descriptions d'antécédents) ;
+     * à appeler avant tout chargement
+     */
+    public boolean ouvrirNotes() {
+        return NotesTexte.ouvrir(Path.of(NOTES_FILE));
+    }
+
+    /**
+     * Référence NotesTexte d'un champ texte d'une ligne CSV. Les fichiers actuels portent la référence
+     * (en-tête "ref...") ; les anciens portent le texte lui-même, rangé alors dans NotesTexte.
+     */
+    private static long note(String[] parts, int index, boolean references) {
+        if (parts.length <= index || parts[index].isEmpty()) return NotesTexte.AUCUNE;
+        return references ? NotesTexte.referenceDe(parts[index]) : NotesTexte.ecrire(parts[index]);
+    }
+
+    /**
+     * Convertit une fois pour toutes un ancien fichier CSV (textes en clair) : les textes des colonnes
+     * données passent dans NotesTexte et le fichier est réécrit avec leurs références. Sans cela,
+     * chaque chargement rangerait à nouveau les mêmes textes à la fin du fichier des notes.
+     */
+    private void migrerTextes(String nomFichier, String marqueur, String entete, int... colonnes) {
+        File file = new File(nomFichier);
+        if (!file.exists() || NotesTexte.getFichier() == null) return;
+        File temp = new File(nomFichier + ".tmp");
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            if (line == null || line.contains(marqueur)) return;
+            try (PrintWriter writer = new PrintWriter(new FileWriter(temp))) {
+                writer.println(entete);
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(";", -1);
+                    for (int colonne : colonnes) {
+                        if (colonne < parts.length) {
+                            parts[colonne] = NotesTexte.formater(NotesTexte.ecrire(parts[colonne]));
+                        }
+                    }
+                    writer.println(String.join(";", parts));
+                }
+                if (writer.checkError()) throw new IOException("écriture de " + temp.getName());
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur conversion " + nomFichier + ": " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        NotesTexte.synchroniser();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Erreur conversion " + nomFichier + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    // ========== ARCHIVE DES CONSULTATIONS ==========
+
+    /**
+     * Ouvre l'archive des consultations closes (vide si elle n'existe pas encore)
+     * @return null si le fichier d'archive est illisible
+     */
+    public SegmentArchive ouvrirArchive(List<Patient> patients, List<ProfessionnelSante> pros) {
+        return SegmentArchive.ouvrir(Path.of(ARCHIVE_FILE), pros, patients);
+    }
+
+    /**
+     * CRC32 des fichiers patients, professionnels, consultations et antécédents,
+     * plus la taille et la date de l'archive (réécrite en entier à chaque ajout)
+     */
+    private long empreinteDonnees() {
+        CRC32 crc = new CRC32();
+        File archive = new File(ARCHIVE_FILE);
+        if (archive.exists()) {
+            crc.update(Long.toString(archive.length() ^ archive.lastModified()).getBytes());
+        }
+        byte[] tampon = new byte[1 << 16];
+        for (String nom : new String[]{PATIENTS_FILE, PROS_FILE, CONSULTATIONS_FILE, ANTECEDENTS_FILE}) {
+            File file = new File(nom);
+            if (!file.exists()) continue;
+            try (InputStream in = new FileInputStream(file)) {
+                int n;
+                while ((n = in.read(tampon)) > 0) {
+                    crc.update(tampon, 0, n);
+                }
+            } catch (IOException e) {
+                System.err.println("Erreur lecture " + nom + ": " + e.getMessage());
+                return -1;
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,59 @@
+package com.medipass.service;
+
+import java.time.LocalDateTime;
+
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Patient en liste d'attente, pour un professionnel précis ou pour une spécialité.
+ * Priorité : urgence décroissante, puis date de demande croissante.
+ */
+public class DemandeAttente implements Comparable<DemandeAttente> {
+    private static long counter = 1;
+    private final long idDemande;
+    private final Patient patient;
+    private final ProfessionnelSante professionnel; // null si la demande porte sur une spécialité
+    private final String specialite;
+    private final String motif;
+    private final int dureeMinutes;
+    private final int urgence; // 1 (faible) à 5 (maximale)
+    private final LocalDateTime dateDemande;
+
+    public DemandeAttente(Patient patient, ProfessionnelSante professionnel, String specialite,
+                          String motif, int dureeMinutes, int urgence, LocalDateTime dateDemande) {
+        this.idDemande = counter++;
+        this.patient = patient;
+        this.professionnel = professionnel;
+        this.specialite = professionnel != null ? professionnel.getSpecialite() : specialite;
+        this.motif = motif;
+        this.dureeMinutes = dureeMinutes > 0 ? dureeMinutes : 30;
+        this.urgence = Math.max(1, Math.min(5, urgence));
+        this.dateDemande = dateDemande != null ? dateDemande : LocalDateTime.now();
+    }
+
+    // Getters
+    public long getIdDemande() { return idDemande; }
+    public Patient getPatient() { return patient; }
+    public ProfessionnelSante getProfessionnel() { return professionnel; }
+    public String getSpecialite() { return specialite; }
+    public String getMotif() { return motif; }
+    public int getDureeMinutes() { return dureeMinutes; }
+    public int getUrgence() { return urgence; }
+    public LocalDateTime getDateDemande() { return dateDemande; }
+
+    @Override
+    public int compareTo(DemandeAttente autre) {
+        if (urgence != autre.urgence) return Integer.compare(autre.urgence, urgence);
+        int c = dateDemande.compareTo(autre.dateDemande);
+        return c != 0 ? c : Long.compare(idDemande, autre.idDemande);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%d] %s %s - %s (%d min) - urgence %d - %s - demandé le %s",
+                idDemande, patient.getNom(), patient.getPrenom(),
+                professionnel != null ? "Dr." + professionnel.getNom() : specialite,
+                dureeMinutes, urgence, motif, dateDemande.toLocalDate());
+    }
+}
@@ -0,0 +1,54 @@
+package com.medipass.service;
+
+import java.time.LocalDateTime;
+
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Demande de rendez-vous à traiter dans un lot de réservations.
+ * Regroupe les paramètres habituels de programmerConsultation.
+ */
+public class DemandeConsultation {
+    private final LocalDateTime dateHeure;
+    private final String motif;
+    private final ProfessionnelSante professionnel;
+    private final Patient patient;
+    private final int dureeMinutes;
+
+    public DemandeConsultation(LocalDateTime dateHeure, String motif,
+                               ProfessionnelSante professionnel, Patient patient, int dureeMinutes) {
+        this.dateHeure = dateHeure;
+        this.motif = motif;
+        this.professionnel = professionnel;
+        this.patient = patient;
+        this.dureeMinutes = dureeMinutes > 0 ? dureeMinutes : 30;
+    }
+
+    public DemandeConsultation(LocalDateTime dateHeure, String motif,
+                               ProfessionnelSante professionnel, Patient patient) {
+        this(dateHeure, motif, professionnel, patient, 30);
+    }
+
+    // Getters
+    public LocalDateTime getDateHeure() { return dateHeure; }
+    public String getMotif() { return motif; }
+    public ProfessionnelSante getProfessionnel() { return professionnel; }
+    public Patient getPatient() { return patient; }
+    public int getDureeMinutes() { return dureeMinutes; }
+
+    /**
+     * Calcule l'heure de fin demandée
+     */
+    public LocalDateTime getFin() {
+        return dateHeure.plusMinutes(dureeMinutes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d min) - %s - %s / %s",
+                dateHeure, dureeMinutes, motif,
+                professionnel != null ? professionnel.getLoginID() : "?",
+                patient != null ? String.valueOf(patient.getId()) : "?");
+    }
+}
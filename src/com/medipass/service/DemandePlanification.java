@@ -0,0 +1,61 @@
+package com.medipass.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.medipass.model.Patient;
+
+/**
+ * Demande à placer par l'optimiseur (campagne de vaccination, journée de dépistage...) :
+ * un patient, une spécialité, une durée et des fenêtres de préférence.
+ * Sans fenêtre, la demande n'est pas plaçable.
+ */
+public class DemandePlanification {
+    private final Patient patient;
+    private final String specialite;
+    private final String motif;
+    private final int dureeMinutes;
+    private final List<LocalDateTime[]> fenetres = new ArrayList<>();
+
+    public DemandePlanification(Patient patient, String specialite, String motif, int dureeMinutes) {
+        this.patient = patient;
+        this.specialite = specialite;
+        this.motif = motif;
+        this.dureeMinutes = dureeMinutes > 0 ? dureeMinutes : 30;
+    }
+
+    /**
+     * Ajoute une fenêtre de préférence [debut, fin[ (par ordre de préférence)
+     */
+    public DemandePlanification ajouterFenetre(LocalDateTime debut, LocalDateTime fin) {
+        if (debut != null && fin != null && debut.isBefore(fin)) {
+            fenetres.add(new LocalDateTime[]{debut, fin});
+        }
+        return this;
+    }
+
+    public Patient getPatient() { return patient; }
+    public String getSpecialite() { return specialite; }
+    public String getMotif() { return motif; }
+    public int getDureeMinutes() { return dureeMinutes; }
+    public List<LocalDateTime[]> getFenetres() { return fenetres; }
+
+    /**
+     * Minutes couvertes par les fenêtres (plus c'est petit, plus la demande est contrainte)
+     */
+    long getMinutesFenetres() {
+        long total = 0;
+        for (LocalDateTime[] f : fenetres) {
+            total += Duration.between(f[0], f[1]).toMinutes();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s - %s (%d min) - %s",
+                patient.getNom(), patient.getPrenom(), specialite, dureeMinutes, motif);
+    }
+}
@@ -0,0 +1,283 @@
+package com.medipass.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.SegmentArchive;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Exports lisibles par machine (CSV ou JSON, gzip en option) pour la comptabilité et les autorités.
+ *
+ * Le registre est lu dans l'ordre chronologique par fusion des plannings (déjà triés) :
+ * un curseur par professionnel (et un par professionnel dans l'archive), placé par dichotomie
+ * au début de la période, et une file de priorité sur la consultation courante de chaque curseur. Chaque ligne est écrite dès qu'elle
+ * est lue (voir SortieExport) : aucune liste intermédiaire, mémoire indépendante du volume.
+ * Pas de données médicales (motif, diagnostic, observations) dans les exports.
+ */
+public class ExportRapports {
+
+    public enum Format { CSV, JSON }
+
+    private static final DateTimeFormatter DATE_HEURE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final String[] COLONNES_REGISTRE =
+            {"id", "debut", "duree_minutes", "statut", "professionnel", "specialite", "patient_id"};
+    private static final String[] COLONNES_STATISTIQUES = {"dimension", "cle", "consultations", "minutes"};
+
+    /**
+     * Position dans le planning d'un professionnel, ou dans ses lignes d'archive (ordre professionnel, date)
+     */
+    private static class Curseur {
+        final List<Consultation> planning;
+        final SegmentArchive archive;
+        final int fin;
+        int index;
+        Consultation courante;
+
+        Curseur(List<Consultation> planning, int index) {
+            this(planning, null, index, planning.size());
+        }
+
+        Curseur(SegmentArchive archive, int index, int fin) {
+            this(null, archive, index, fin);
+        }
+
+        private Curseur(List<Consultation> planning, SegmentArchive archive, int index, int fin) {
+            this.planning = planning;
+            this.archive = archive;
+            this.index = index;
+            this.fin = fin;
+        }
+
+        /**
+         * Lit la consultation à la position courante
+         * @return false si le curseur a dépassé la fin de la période
+         */
+        boolean lire(LocalDateTime borneFin) {
+            if (index >= fin) return false;
+            courante = planning != null ? planning.get(index) : archive.consultation(archive.ligneProfessionnel(index));
+            return courante.getDateHeure().isBefore(borneFin);
+        }
+    }
+
+    /**
+     * Écrit le registre des consultations dont le jour est dans [debut, fin], dans l'ordre des dates
+     * @return le bilan de l'export, ou null en cas d'erreur d'écriture
+     */
+    public ResultatExport exporterRegistre(List<ProfessionnelSante> pros, LocalDate debut, LocalDate fin,
+                                           Path fichier, Format format, boolean gzip) {
+        return exporterRegistre(pros, null, debut, fin, fichier, format, gzip);
+    }
+
+    /**
+     * Idem, en incluant les consultations de l'archive (si elle n'est pas null)
+     */
+    public ResultatExport exporterRegistre(List<ProfessionnelSante> pros, SegmentArchive archive,
+                                           LocalDate debut, LocalDate fin,
+                                           Path fichier, Format format, boolean gzip) {
+        long depart = System.currentTimeMillis();
+        LocalDateTime borneFin = fin.plusDays(1).atStartOfDay();
+        PriorityQueue<Curseur> file = new PriorityQueue<>(Math.max(2 * pros.size(), 1),
+                Comparator.comparing((Curseur c) -> c.courante.getDateHeure())
+                          .thenComparingInt(c -> c.courante.getIdConsultation()));
+        for (ProfessionnelSante p : pros) {
+            Curseur curseur = new Curseur(p.getPlanning(), p.indexPremiereConsultation(debut.atStartOfDay()));
+            if (curseur.lire(borneFin)) file.add(curseur);
+            if (archive != null) {
+                int[] plage = archive.plageProfessionnel(p.getLoginID());
+                curseur = new Curseur(archive, archive.premiereAPartirDe(plage, false, debut.atStartOfDay()), plage[1]);
+                if (curseur.lire(borneFin)) file.add(curseur);
+            }
+        }
+
+        long lignes = 0;
+        SortieExport out = null;
+        try {
+            out = new SortieExport(fichier, gzip);
+            entete(out, format, COLONNES_REGISTRE);
+            StringBuilder valeur = new StringBuilder(32);
+            while (!file.isEmpty()) {
+                Curseur curseur = file.poll();
+                Consultation c = curseur.courante;
+                ProfessionnelSante pro = c.getProfessionnel();
+
+                debutLigne(out, format, lignes);
+                champ(out, format, 0, COLONNES_REGISTRE, Integer.toString(c.getIdConsultation()), false);
+                valeur.setLength(0);
+                DATE_HEURE.formatTo(c.getDateHeure(), valeur);
+                champ(out, format, 1, COLONNES_REGISTRE, valeur, true);
+                champ(out, format, 2, COLONNES_REGISTRE, Integer.toString(c.getDureeMinutes()), false);
+                champ(out, format, 3, COLONNES_REGISTRE, c.getStatut(), true);
+                champ(out, format, 4, COLONNES_REGISTRE, pro == null ? "" : pro.getLoginID(), true);
+                champ(out, format, 5, COLONNES_REGISTRE, pro == null ? "" : pro.getSpecialite(), true);
+                champ(out, format, 6, COLONNES_REGISTRE,
+                        c.getPatient() == null ? "" : Integer.toString(c.getPatient().getId()), false);
+                finLigne(out, format);
+                lignes++;
+
+                curseur.index++;
+                if (curseur.lire(borneFin)) {
+                    file.add(curseur);
+                }
+            }
+            fin(out, format, lignes);
+            out.close();
+        } catch (IOException e) {
+            System.err.println("❌ Erreur export registre : " + e.getMessage());
+            fermer(out);
+            return null;
+        }
+        return new ResultatExport(fichier, lignes, out.getOctetsEcrits(), System.currentTimeMillis() - depart);
+    }
+
+    /**
+     * Écrit les statistiques de la période [debut, fin] lues dans le cube pré-agrégé :
+     * total, puis une ligne par statut, spécialité, professionnel et mois
+     * @return le bilan de l'export, ou null en cas d'erreur d'écriture
+     */
+    public ResultatExport exporterStatistiques(CubeConsultations cube, LocalDate debut, LocalDate fin,
+                                               Path fichier, Format format, boolean gzip) {
+        long depart = System.currentTimeMillis();
+        long[] lignes = {0};
+        SortieExport out = null;
+        try {
+            out = new SortieExport(fichier, gzip);
+            entete(out, format, COLONNES_STATISTIQUES);
+            ligneStatistique(out, format, lignes, "total", debut + "/" + fin, cube.total(debut, fin));
+            for (Map.Entry<String, long[]> e : cube.parStatut(debut, fin).entrySet()) {
+                ligneStatistique(out, format, lignes, "statut", e.getKey(), e.getValue());
+            }
+            for (Map.Entry<String, long[]> e : cube.parSpecialite(debut, fin).entrySet()) {
+                ligneStatistique(out, format, lignes, "specialite", e.getKey(), e.getValue());
+            }
+            for (Map.Entry<String, long[]> e : cube.parProfessionnel(debut, fin).entrySet()) {
+                ligneStatistique(out, format, lignes, "professionnel", e.getKey(), e.getValue());
+            }
+            for (Map.Entry<LocalDate, long[]> e : cube.cumul(CubeConsultations.Granularite.MOIS, debut, fin).entrySet()) {
+                ligneStatistique(out, format, lignes, "mois", e.getKey().toString(), e.getValue());
+            }
+            fin(out, format, lignes[0]);
+            out.close();
+        } catch (IOException e) {
+            System.err.println("❌ Erreur export statistiques : " + e.getMessage());
+            fermer(out);
+            return null;
+        }
+        return new ResultatExport(fichier, lignes[0], out.getOctetsEcrits(), System.currentTimeMillis() - depart);
+    }
+
+    private static void ligneStatistique(SortieExport out, Format format, long[] lignes,
+                                         String dimension, String cle, long[] valeurs) throws IOException {
+        debutLigne(out, format, lignes[0]);
+        champ(out, format, 0, COLONNES_STATISTIQUES, dimension, true);
+        champ(out, format, 1, COLONNES_STATISTIQUES, cle, true);
+        champ(out, format, 2, COLONNES_STATISTIQUES, Long.toString(valeurs[0]), false);
+        champ(out, format, 3, COLONNES_STATISTIQUES, Long.toString(valeurs[1]), false);
+        finLigne(out, format);
+        lignes[0]++;
+    }
+
+    /* ---------- Mise en forme CSV / JSON ---------- */
+
+    private static void entete(SortieExport out, Format format, String[] colonnes) throws IOException {
+        if (format == Format.CSV) {
+            out.append(String.join(";", colonnes)).append('\n');
+        } else {
+            out.append("[");
+        }
+    }
+
+    private static void debutLigne(SortieExport out, Format format, long numero) throws IOException {
+        if (format == Format.JSON) {
+            out.append(numero == 0 ? "\n{" : ",\n{");
+        }
+    }
+
+    /**
+     * Écrit la i-ème valeur d'une ligne ; texte indique une chaîne (entre guillemets en JSON)
+     */
+    private static void champ(SortieExport out, Format format, int i, String[] colonnes,
+                              CharSequence valeur, boolean texte) throws IOException {
+        if (valeur == null) valeur = "";
+        if (format == Format.CSV) {
+            if (i > 0) out.append(';');
+            echapperCsv(out, valeur);
+        } else {
+            if (i > 0) out.append(',');
+            out.append('"').append(colonnes[i]).append("\":");
+            if (texte) {
+                echapperJson(out, valeur);
+            } else {
+                out.append(valeur);
+            }
+        }
+    }
+
+    private static void finLigne(SortieExport out, Format format) throws IOException {
+        out.append(format == Format.CSV ? '\n' : '}');
+    }
+
+    private static void fin(SortieExport out, Format format, long lignes) throws IOException {
+        if (format == Format.JSON) {
+            out.append(lignes == 0 ? "]\n" : "\n]\n");
+        }
+    }
+
+    private static void echapperCsv(SortieExport out, CharSequence valeur) throws IOException {
+        boolean guillemets = false;
+        for (int i = 0; i < valeur.length() && !guillemets; i++) {
+            char c = valeur.charAt(i);
+            guillemets = c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!guillemets) {
+            out.append(valeur);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static void echapperJson(SortieExport out, CharSequence valeur) throws IOException {
+        out.append('"');
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private static void fermer(SortieExport out) {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // L'erreur d'origine a déjà été signalée
+        }
+    }
+}
@@ -0,0 +1,729 @@
+package com.medipass.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import com.medipass.model.Antecedent;
+import com.medipass.model.Consultation;
+import com.medipass.model.ConsultationListener;
+import com.medipass.model.DossierListener;
+import com.medipass.model.DossierMedical;
+import com.medipass.model.Patient;
+import com.medipass.model.SegmentArchive;
+
+/**
+ * Index plein texte (index inversé en mémoire) des antécédents (type, description) et des
+ * consultations (observations, diagnostic).
+ *
+ * Analyse française : minuscules, accents retirés, mots vides et élisions ignorés,
+ * racinisation légère (pluriels, -er, -e final, consonne doublée). Chaque terme garde la
+ * liste des documents qui le contiennent, avec les positions pour les requêtes d'expressions.
+ * Les résultats sont classés par BM25.
+ *
+ * Syntaxe : mots (tous requis), "expression exacte", -mot ou SAUF mot (exclu), OU entre deux
+ * groupes. Exemple : allergie penicilline OU "choc anaphylactique" SAUF ancien
+ *
+ * L'index est tenu à jour par les événements des dossiers et des consultations, et sauvegardé
+ * dans un fichier à côté des CSV (voir DataService) pour ne pas être reconstruit au démarrage.
+ */
+public class IndexTexte implements ConsultationListener, DossierListener {
+
+    private static final int MAGIC = 0x4D504958; // "MPIX"
+    private static final int VERSION = 1;
+    private static final byte ANTECEDENT = 1;
+    private static final byte CONSULTATION = 2;
+    private static final byte CONSULTATION_ARCHIVEE = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Set<String> MOTS_VIDES = Set.of(
+            "le", "la", "les", "un", "une", "des", "du", "de", "et", "ou", "en", "au", "aux", "avec",
+            "pour", "par", "sur", "sous", "dans", "ce", "ces", "cet", "cette", "son", "sa", "ses", "leur",
+            "leurs", "il", "elle", "ils", "elles", "on", "qui", "que", "dont", "est", "sont", "pas", "ne",
+            "plus", "tres", "se", "lui", "mais", "donc", "car", "ni");
+
+    /**
+     * Document indexé : un antécédent ou une consultation d'un patient
+     * (en mémoire, ou ligne d'une archive relue à la demande)
+     */
+    private static class Document {
+        final Patient patient;
+        final Antecedent antecedent;
+        final Consultation consultation;
+        final SegmentArchive archive;
+        final int ligne;
+        final int longueur;
+
+        Document(Patient patient, Antecedent antecedent, Consultation consultation, int longueur) {
+            this(patient, antecedent, consultation, null, -1, longueur);
+        }
+
+        Document(Patient patient, SegmentArchive archive, int ligne, int longueur) {
+            this(patient, null, null, archive, ligne, longueur);
+        }
+
+        private Document(Patient patient, Antecedent antecedent, Consultation consultation,
+                         SegmentArchive archive, int ligne, int longueur) {
+            this.patient = patient;
+            this.antecedent = antecedent;
+            this.consultation = consultation;
+            this.archive = archive;
+            this.ligne = ligne;
+            this.longueur = longueur;
+        }
+
+        /**
+         * Objet modifiable suivi par l'index (null pour une ligne d'archive)
+         */
+        Object cle() {
+            return antecedent != null ? antecedent : consultation;
+        }
+
+        Consultation consultation() {
+            return consultation != null || archive == null ? consultation : archive.consultation(ligne);
+        }
+    }
+
+    /**
+     * Liste d'occurrences d'un terme : suite de [document, fréquence, positions...],
+     * documents croissants (un document réindexé reçoit un nouveau numéro).
+     * Les documents retirés y restent jusqu'au prochain compactage (documents les compte aussi).
+     */
+    private static class Occurrences {
+        int[] donnees = new int[8];
+        int taille;
+        int documents;
+
+        void ajouter(int doc, List<Integer> positions) {
+            int besoin = taille + 2 + positions.size();
+            if (besoin > donnees.length) donnees = Arrays.copyOf(donnees, Math.max(besoin, donnees.length * 2));
+            donnees[taille++] = doc;
+            donnees[taille++] = positions.size();
+            for (int p : positions) donnees[taille++] = p;
+            documents++;
+        }
+
+        /**
+         * Retire les documents supprimés de la liste et recompte les documents
+         */
+        void compacter(BitSet supprimes) {
+            int n = 0;
+            documents = 0;
+            for (int i = 0; i < taille; ) {
+                int longueur = 2 + donnees[i + 1];
+                if (!supprimes.get(donnees[i])) {
+                    System.arraycopy(donnees, i, donnees, n, longueur);
+                    n += longueur;
+                    documents++;
+                }
+                i += longueur;
+            }
+            taille = n;
+            if (donnees.length > 2 * taille + 8) donnees = Arrays.copyOf(donnees, taille + 8);
+        }
+    }
+
+    /**
+     * Élément de requête : un mot, ou une expression (termes à des positions relatives fixes)
+     */
+    private static class Expression {
+        final List<String> termes = new ArrayList<>();
+        final List<Integer> positions = new ArrayList<>();
+    }
+
+    /**
+     * Document trouvé, avec son score de pertinence
+     */
+    public static class Resultat {
+        private final Patient patient;
+        private final Antecedent antecedent;
+        private final Consultation consultation;
+        private final double score;
+
+        Resultat(Document d, double score) {
+            this.patient = d.patient;
+            this.antecedent = d.antecedent;
+            this.consultation = d.consultation();
+            this.score = score;
+        }
+
+        public Patient getPatient() { return patient; }
+        public Antecedent getAntecedent() { return antecedent; }
+        public Consultation getConsultation() { return consultation; }
+        public double getScore() { return score; }
+
+        @Override
+        public String toString() {
+            String source = antecedent != null
+                    ? "Antécédent " + antecedent.getType() + " : " + antecedent.getDescription()
+                    : "Consultation du " + consultation.getDateHeure().format(FORMAT) + " : "
+                      + texteConsultation(consultation);
+            return String.format("%.2f  Patient %d %s %s - %s", score, patient.getId(),
+                    patient.getNom(), patient.getPrenom(), source);
+        }
+    }
+
+    private final List<Document> documents = new ArrayList<>();
+    private final BitSet supprimes = new BitSet();
+    private final Map<Object, Integer> documentParObjet = new IdentityHashMap<>();
+    private final Map<String, Occurrences> termes = new HashMap<>();
+    private long longueurTotale;
+    private int documentsActifs;
+    // Documents retirés encore présents dans les listes d'occurrences
+    private int retiresNonCompactes;
+    private boolean suspendu;
+    private SegmentArchive archive;
+
+    public IndexTexte() {
+        Consultation.ajouterListener(this);
+        DossierMedical.ajouterListener(this);
+    }
+
+    /* ---------- Analyse du texte ---------- */
+
+    /**
+     * Termes d'un texte, dans l'ordre, après normalisation et racinisation
+     */
+    public static List<String> analyser(String texte) {
+        List<String> termes = new ArrayList<>();
+        analyser(texte, termes, new ArrayList<>());
+        return termes;
+    }
+
+    /**
+     * Termes d'un texte et leur position ; les mots ignorés gardent leur place,
+     * pour que "douleur et thoracique" ne réponde pas à "douleur thoracique"
+     */
+    private static void analyser(String texte, List<String> termes, List<Integer> positions) {
+        if (texte == null) return;
+        String plat = Normalizer.normalize(texte, Normalizer.Form.NFD)
+                                .replaceAll("\\p{M}+", "")
+                                .toLowerCase();
+        StringBuilder mot = new StringBuilder();
+        int position = 0;
+        for (int i = 0; i <= plat.length(); i++) {
+            char c = i < plat.length() ? plat.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                mot.append(c);
+            } else if (mot.length() > 0) {
+                // Les lettres isolées (élisions l', d', qu'...) et les mots vides sont ignorés
+                if (mot.length() > 1 && !MOTS_VIDES.contains(mot.toString())) {
+                    termes.add(raciner(mot.toString()));
+                    positions.add(position);
+                }
+                position++;
+                mot.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Racinisation légère : allergies -> allergi, penicilline -> penicillin, generaux -> general
+     */
+    static String raciner(String mot) {
+        if (mot.length() <= 3 || Character.isDigit(mot.charAt(0))) return mot;
+        if (mot.endsWith("aux") && mot.length() > 4) {
+            mot = mot.substring(0, mot.length() - 3) + "al";
+        } else if (mot.endsWith("s") || mot.endsWith("x")) {
+            mot = mot.substring(0, mot.length() - 1);
+        }
+        if (mot.length() > 4 && mot.endsWith("r")) mot = mot.substring(0, mot.length() - 1);
+        if (mot.length() > 4 && mot.endsWith("e")) mot = mot.substring(0, mot.length() - 1);
+        if (mot.length() > 4 && mot.endsWith("e")) mot = mot.substring(0, mot.length() - 1);
+        int n = mot.length();
+        if (n > 4 && mot.charAt(n - 1) == mot.charAt(n - 2) && Character.isLetter(mot.charAt(n - 1))) {
+            mot = mot.substring(0, n - 1);
+        }
+        return mot;
+    }
+
+    private static String texteConsultation(Consultation c) {
+        String obs = c.getObservations() == null ? "" : c.getObservations();
+        String diag = c.getDiagnostic() == null ? "" : c.getDiagnostic();
+        return diag.isEmpty() ? obs : obs.isEmpty() ? diag : diag + " - " + obs;
+    }
+
+    /* ---------- Mise à jour ---------- */
+
+    @Override
+    public synchronized void antecedentAjoute(DossierMedical dossier, Antecedent antecedent) {
+        if (suspendu) return;
+        indexer(dossier.getPatient(), antecedent, null);
+    }
+
+    @Override
+    public synchronized void consultationInscrite(Consultation c) {
+        if (suspendu || c.getPatient() == null) return;
+        indexer(c.getPatient(), null, c);
+    }
+
+    @Override
+    public synchronized void consultationAnnotee(Consultation c) {
+        if (suspendu || c.getPatient() == null) return;
+        retirer(c);
+        indexer(c.getPatient(), null, c);
+    }
+
+    /**
+     * La consultation n'est plus en mémoire : son document pointe désormais sur sa ligne d'archive
+     */
+    @Override
+    public synchronized void consultationArchivee(Consultation c, SegmentArchive archive, int ligne) {
+        Integer doc = documentParObjet.remove(c);
+        if (doc == null || supprimes.get(doc)) return;
+        Document d = documents.get(doc);
+        documents.set(doc, new Document(d.patient, archive, ligne, d.longueur));
+    }
+
+    /**
+     * Archive dont les lignes sont indexées (reconstruction et relecture de l'index)
+     */
+    public synchronized void setArchive(SegmentArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Retire de l'index les documents d'un patient supprimé
+     */
+    public synchronized void retirerPatient(Patient patient) {
+        for (int d = 0; d < documents.size(); d++) {
+            Document doc = documents.get(d);
+            if (doc.patient == patient && !supprimes.get(d)) {
+                if (doc.cle() != null) documentParObjet.remove(doc.cle());
+                retirerDocument(d);
+            }
+        }
+    }
+
+    private void indexer(Patient patient, Antecedent antecedent, Consultation consultation) {
+        indexer(antecedent != null
+                ? Objects.toString(antecedent.getType(), "") + " " + Objects.toString(antecedent.getDescription(), "")
+                : texteConsultation(consultation),
+                longueur -> new Document(patient, antecedent, consultation, longueur));
+    }
+
+    private void indexer(String texte, IntFunction<Document> document) {
+        List<String> mots = new ArrayList<>();
+        List<Integer> rangs = new ArrayList<>();
+        analyser(texte, mots, rangs);
+        if (mots.isEmpty()) return;
+
+        int doc = documents.size();
+        Document d = document.apply(mots.size());
+        documents.add(d);
+        if (d.cle() != null) documentParObjet.put(d.cle(), doc);
+        longueurTotale += mots.size();
+        documentsActifs++;
+
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < mots.size(); i++) {
+            positions.computeIfAbsent(mots.get(i), k -> new ArrayList<>()).add(rangs.get(i));
+        }
+        positions.forEach((terme, pos) -> termes.computeIfAbsent(terme, k -> new Occurrences()).ajouter(doc, pos));
+    }
+
+    private void retirer(Object objet) {
+        Integer doc = documentParObjet.remove(objet);
+        if (doc != null) retirerDocument(doc);
+    }
+
+    private void retirerDocument(int doc) {
+        if (supprimes.get(doc)) return;
+        supprimes.set(doc);
+        longueurTotale -= documents.get(doc).longueur;
+        documentsActifs--;
+        // Au-delà d'un huitième de documents retirés, les listes sont compactées : les nombres de
+        // documents par terme (IDF du BM25) redeviennent exacts et les termes disparus sont oubliés
+        if (++retiresNonCompactes > documentsActifs / 8) {
+            compacter();
+        }
+    }
+
+    private void compacter() {
+        Iterator<Occurrences> it = termes.values().iterator();
+        while (it.hasNext()) {
+            Occurrences occ = it.next();
+            occ.compacter(supprimes);
+            if (occ.documents == 0) it.remove();
+        }
+        retiresNonCompactes = 0;
+    }
+
+    /**
+     * Suspend la mise à jour (chargement des données) jusqu'à charger() ou reconstruire()
+     */
+    public synchronized void suspendre() {
+        suspendu = true;
+    }
+
+    /**
+     * Réindexe tous les antécédents et consultations, puis reprend la mise à jour
+     */
+    public synchronized void reconstruire(List<Consultation> consultations, List<Patient> patients) {
+        vider();
+        for (Patient p : patients) {
+            for (Antecedent a : p.getDossierMedical().getAntecedents()) {
+                indexer(p, a, null);
+            }
+        }
+        for (Consultation c : consultations) {
+            if (c.getPatient() != null) indexer(c.getPatient(), null, c);
+        }
+        for (int ligne = 0; archive != null && ligne < archive.taille(); ligne++) {
+            Patient patient = archive.getPatient(ligne);
+            if (patient == null) continue;
+            int l = ligne;
+            indexer(texteConsultation(archive.consultation(ligne)), longueur -> new Document(patient, archive, l, longueur));
+        }
+        suspendu = false;
+    }
+
+    private void vider() {
+        documents.clear();
+        supprimes.clear();
+        documentParObjet.clear();
+        termes.clear();
+        longueurTotale = 0;
+        documentsActifs = 0;
+        retiresNonCompactes = 0;
+    }
+
+    public synchronized int getNombreDocuments() {
+        return documentsActifs;
+    }
+
+    public synchronized int getNombreTermes() {
+        return termes.size();
+    }
+
+    /* ---------- Recherche ---------- */
+
+    /**
+     * Documents correspondant à la requête, les plus pertinents d'abord
+     */
+    public synchronized List<Resultat> rechercher(String requete, int limite) {
+        List<Expression> inclus = new ArrayList<>();
+        int[] trouves = new int[0];
+
+        for (String groupe : requete.split("\\s+(?:OU|ou|OR|\\|)\\s+")) {
+            List<Expression> positifs = new ArrayList<>();
+            List<Expression> negatifs = new ArrayList<>();
+            lireGroupe(groupe, positifs, negatifs);
+            if (positifs.isEmpty()) continue;
+
+            int[] docs = null;
+            for (Expression element : positifs) {
+                int[] d = documentsAvec(element);
+                docs = docs == null ? d : intersection(docs, d);
+            }
+            for (Expression element : negatifs) {
+                docs = difference(docs, documentsAvec(element));
+            }
+            trouves = union(trouves, docs);
+            inclus.addAll(positifs);
+        }
+
+        // Score BM25 sur les termes demandés
+        double[] scores = new double[trouves.length];
+        double longueurMoyenne = documentsActifs == 0 ? 1 : (double) longueurTotale / documentsActifs;
+        Set<String> vus = new HashSet<>();
+        for (Expression element : inclus) {
+            for (String terme : element.termes) {
+                Occurrences occ = termes.get(terme);
+                if (occ == null || !vus.add(terme)) continue;
+                double idf = Math.log(1 + (documentsActifs - occ.documents + 0.5) / (occ.documents + 0.5));
+                int k = 0;
+                for (int i = 0; i < occ.taille && k < trouves.length; i += 2 + occ.donnees[i + 1]) {
+                    int doc = occ.donnees[i];
+                    while (k < trouves.length && trouves[k] < doc) k++;
+                    if (k < trouves.length && trouves[k] == doc) {
+                        int tf = occ.donnees[i + 1];
+                        double norme = K1 * (1 - B + B * documents.get(doc).longueur / longueurMoyenne);
+                        scores[k] += idf * tf * (K1 + 1) / (tf + norme);
+                    }
+                }
+            }
+        }
+
+        List<Resultat> resultats = new ArrayList<>(trouves.length);
+        for (int k = 0; k < trouves.length; k++) {
+            resultats.add(new Resultat(documents.get(trouves[k]), scores[k]));
+        }
+        resultats.sort((a, b) -> Double.compare(b.score, a.score));
+        return new ArrayList<>(resultats.subList(0, Math.min(limite, resultats.size())));
+    }
+
+    /**
+     * Découpe un groupe en éléments requis et exclus ; un élément est un mot ou une expression
+     */
+    private static void lireGroupe(String groupe, List<Expression> positifs, List<Expression> negatifs) {
+        boolean exclure = false;
+        int i = 0;
+        while (i < groupe.length()) {
+            char c = groupe.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '-') {
+                exclure = true;
+                i++;
+                continue;
+            }
+            String brut;
+            if (c == '"') {
+                int fin = groupe.indexOf('"', i + 1);
+                if (fin < 0) fin = groupe.length();
+                brut = groupe.substring(i + 1, fin);
+                i = fin + 1;
+            } else {
+                int fin = i;
+                while (fin < groupe.length() && !Character.isWhitespace(groupe.charAt(fin))) fin++;
+                brut = groupe.substring(i, fin);
+                i = fin;
+                if (brut.equals("SAUF") || brut.equals("NON")) {
+                    exclure = true;
+                    continue;
+                }
+            }
+            Expression element = new Expression();
+            analyser(brut, element.termes, element.positions);
+            if (!element.termes.isEmpty()) {
+                (exclure ? negatifs : positifs).add(element);
+            }
+            exclure = false;
+        }
+    }
+
+    /**
+     * Documents actifs contenant le terme, ou l'expression (termes aux mêmes écarts que dans la requête), triés
+     */
+    private int[] documentsAvec(Expression expression) {
+        Occurrences[] occ = new Occurrences[expression.termes.size()];
+        int[] ecarts = new int[occ.length];
+        for (int t = 0; t < occ.length; t++) {
+            occ[t] = termes.get(expression.termes.get(t));
+            ecarts[t] = expression.positions.get(t) - expression.positions.get(0);
+            if (occ[t] == null) return new int[0];
+        }
+        int[] resultat = new int[occ[0].documents];
+        int n = 0;
+        int[] curseurs = new int[occ.length];
+        for (int i = 0; i < occ[0].taille; i += 2 + occ[0].donnees[i + 1]) {
+            int doc = occ[0].donnees[i];
+            if (supprimes.get(doc)) continue;
+            boolean present = true;
+            for (int t = 1; t < occ.length && present; t++) {
+                int[] d = occ[t].donnees;
+                while (curseurs[t] < occ[t].taille && d[curseurs[t]] < doc) curseurs[t] += 2 + d[curseurs[t] + 1];
+                present = curseurs[t] < occ[t].taille && d[curseurs[t]] == doc;
+            }
+            if (present && (occ.length == 1 || expressionPresente(occ, ecarts, curseurs, i))) {
+                resultat[n++] = doc;
+            }
+        }
+        return Arrays.copyOf(resultat, n);
+    }
+
+    private static boolean expressionPresente(Occurrences[] occ, int[] ecarts, int[] curseurs, int debut) {
+        int[] premier = occ[0].donnees;
+        for (int p = 0; p < premier[debut + 1]; p++) {
+            int position = premier[debut + 2 + p];
+            boolean suite = true;
+            for (int t = 1; t < occ.length && suite; t++) {
+                int[] d = occ[t].donnees;
+                int c = curseurs[t];
+                suite = Arrays.binarySearch(d, c + 2, c + 2 + d[c + 1], position + ecarts[t]) >= 0;
+            }
+            if (suite) return true;
+        }
+        return false;
+    }
+
+    private static int[] intersection(int[] a, int[] b) {
+        int[] r = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { r[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(r, n);
+    }
+
+    private static int[] difference(int[] a, int[] b) {
+        int[] r = new int[a.length];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length; i++) {
+            while (j < b.length && b[j] < a[i]) j++;
+            if (j >= b.length || b[j] != a[i]) r[n++] = a[i];
+        }
+        return Arrays.copyOf(r, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] r = new int[a.length + b.length];
+        int n = 0, i = 0, j = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] < b[j])) r[n++] = a[i++];
+            else if (i >= a.length || b[j] < a[i]) r[n++] = b[j++];
+            else { r[n++] = a[i++]; j++; }
+        }
+        return Arrays.copyOf(r, n);
+    }
+
+    /* ---------- Persistance ---------- */
+
+    /**
+     * Écrit l'index. Les documents sont repérés par leur rang dans les fichiers de données :
+     * position de la consultation dans la liste sauvegardée, ligne de l'archive,
+     * ou (patient, rang de l'antécédent).
+     * @param empreinte empreinte des fichiers de données correspondants
+     */
+    public synchronized boolean sauvegarder(File fichier, long empreinte,
+                                            List<Consultation> consultations, List<Patient> patients) {
+        Map<Object, int[]> references = new IdentityHashMap<>();
+        for (int i = 0; i < consultations.size(); i++) {
+            references.put(consultations.get(i), new int[]{i, 0});
+        }
+        for (Patient p : patients) {
+            List<Antecedent> antecedents = p.getDossierMedical().getAntecedents();
+            for (int i = 0; i < antecedents.size(); i++) {
+                references.put(antecedents.get(i), new int[]{p.getId(), i});
+            }
+        }
+
+        // Numérotation compacte des documents actifs
+        int[] nouveau = new int[documents.size()];
+        int actifs = 0;
+        for (int d = 0; d < documents.size(); d++) {
+            Document doc = documents.get(d);
+            boolean connu = doc.cle() == null ? doc.archive == archive : references.containsKey(doc.cle());
+            nouveau[d] = supprimes.get(d) || !connu ? -1 : actifs++;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fichier), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(empreinte);
+            out.writeInt(actifs);
+            for (int d = 0; d < documents.size(); d++) {
+                if (nouveau[d] < 0) continue;
+                Document doc = documents.get(d);
+                int[] ref = doc.cle() == null ? new int[]{doc.ligne, 0} : references.get(doc.cle());
+                out.writeByte(doc.antecedent != null ? ANTECEDENT
+                        : doc.consultation != null ? CONSULTATION : CONSULTATION_ARCHIVEE);
+                out.writeInt(ref[0]);
+                out.writeInt(ref[1]);
+                out.writeInt(doc.longueur);
+            }
+            out.writeInt(termes.size());
+            for (Map.Entry<String, Occurrences> e : termes.entrySet()) {
+                Occurrences occ = e.getValue();
+                int documentsActifsTerme = 0, taille = 0;
+                for (int i = 0; i < occ.taille; i += 2 + occ.donnees[i + 1]) {
+                    if (nouveau[occ.donnees[i]] >= 0) {
+                        documentsActifsTerme++;
+                        taille += 2 + occ.donnees[i + 1];
+                    }
+                }
+                out.writeUTF(e.getKey());
+                out.writeInt(documentsActifsTerme);
+                out.writeInt(taille);
+                for (int i = 0; i < occ.taille; i += 2 + occ.donnees[i + 1]) {
+                    if (nouveau[occ.donnees[i]] < 0) continue;
+                    out.writeInt(nouveau[occ.donnees[i]]);
+                    for (int k = 1; k < 2 + occ.donnees[i + 1]; k++) out.writeInt(occ.donnees[i + k]);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur sauvegarde index texte: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Relit l'index sauvegardé s'il correspond aux données chargées, puis reprend la mise à jour
+     * @return false si le fichier est absent, illisible ou d'une autre empreinte (index à reconstruire)
+     */
+    public synchronized boolean charger(File fichier, long empreinte,
+                                        List<Consultation> consultations, List<Patient> patients) {
+        if (!fichier.exists()) return false;
+        Map<Integer, Patient> patientsParId = new HashMap<>();
+        for (Patient p : patients) patientsParId.put(p.getId(), p);
+
+        vider();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fichier), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != empreinte) {
+                return false;
+            }
+            int nombre = in.readInt();
+            for (int d = 0; d < nombre; d++) {
+                byte type = in.readByte();
+                int ref = in.readInt();
+                int rang = in.readInt();
+                int longueur = in.readInt();
+                Document doc;
+                if (type == ANTECEDENT) {
+                    Patient p = patientsParId.get(ref);
+                    if (p == null || rang >= p.getDossierMedical().getAntecedents().size()) return echec();
+                    doc = new Document(p, p.getDossierMedical().getAntecedents().get(rang), null, longueur);
+                } else if (type == CONSULTATION_ARCHIVEE) {
+                    Patient p = archive == null || ref >= archive.taille() ? null : archive.getPatient(ref);
+                    if (p == null) return echec();
+                    doc = new Document(p, archive, ref, longueur);
+                } else {
+                    if (ref >= consultations.size() || consultations.get(ref).getPatient() == null) return echec();
+                    Consultation c = consultations.get(ref);
+                    doc = new Document(c.getPatient(), null, c, longueur);
+                }
+                documents.add(doc);
+                if (doc.cle() != null) documentParObjet.put(doc.cle(), d);
+                longueurTotale += longueur;
+            }
+            documentsActifs = nombre;
+            int nbTermes = in.readInt();
+            for (int t = 0; t < nbTermes; t++) {
+                String terme = in.readUTF();
+                Occurrences occ = new Occurrences();
+                occ.documents = in.readInt();
+                occ.taille = in.readInt();
+                occ.donnees = new int[Math.max(occ.taille, 1)];
+                for (int i = 0; i < occ.taille; i++) occ.donnees[i] = in.readInt();
+                termes.put(terme, occ);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erreur chargement index texte: " + e.getMessage());
+            return echec();
+        }
+        suspendu = false;
+        return true;
+    }
+
+    private boolean echec() {
+        vider();
+        return false;
+    }
+}
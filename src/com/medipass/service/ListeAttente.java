@@ -0,0 +1,176 @@
+package com.medipass.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.ConsultationListener;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Liste d'attente prioritaire par professionnel et par spécialité.
+ * Quand une consultation est annulée (par le service ou par le professionnel),
+ * le créneau libéré est proposé au premier patient compatible et réservé automatiquement.
+ *
+ * Index : clé (professionnel ou spécialité) -> durée demandée -> demandes triées par priorité.
+ * Une annulation ne consulte que les durées qui tiennent dans le créneau libéré, et dans
+ * chacune seulement les demandes prioritaires jusqu'au premier patient disponible.
+ */
+public class ListeAttente implements ConsultationListener {
+    private final ConsultationService consultationService;
+    private final Map<String, TreeMap<Integer, TreeSet<DemandeAttente>>> index = new HashMap<>();
+    private int taille = 0;
+    // Dernière annulation et réservations faites sur son créneau, en attente d'être signalées
+    private Consultation derniereAnnulee;
+    private List<Consultation> dernieresReservations = new ArrayList<>();
+
+    public ListeAttente(ConsultationService consultationService) {
+        this.consultationService = consultationService;
+    }
+
+    /**
+     * Ajoute une demande à la liste d'attente
+     */
+    public boolean ajouter(DemandeAttente demande) {
+        if (demande == null || demande.getPatient() == null
+                || (demande.getProfessionnel() == null && demande.getSpecialite() == null)) {
+            return false;
+        }
+        index.computeIfAbsent(cle(demande), k -> new TreeMap<>())
+             .computeIfAbsent(demande.getDureeMinutes(), d -> new TreeSet<>())
+             .add(demande);
+        taille++;
+        return true;
+    }
+
+    /**
+     * Retire une demande (patient servi autrement, renoncement...)
+     */
+    public boolean retirer(DemandeAttente demande) {
+        TreeMap<Integer, TreeSet<DemandeAttente>> parDuree = index.get(cle(demande));
+        if (parDuree == null) return false;
+        TreeSet<DemandeAttente> file = parDuree.get(demande.getDureeMinutes());
+        if (file == null || !file.remove(demande)) return false;
+        if (file.isEmpty()) parDuree.remove(demande.getDureeMinutes());
+        if (parDuree.isEmpty()) index.remove(cle(demande));
+        taille--;
+        return true;
+    }
+
+    public DemandeAttente findDemandeById(long id) {
+        for (DemandeAttente d : getDemandes()) {
+            if (d.getIdDemande() == id) return d;
+        }
+        return null;
+    }
+
+    /**
+     * Toutes les demandes, par ordre de priorité
+     */
+    public List<DemandeAttente> getDemandes() {
+        TreeSet<DemandeAttente> toutes = new TreeSet<>();
+        for (TreeMap<Integer, TreeSet<DemandeAttente>> parDuree : index.values()) {
+            for (TreeSet<DemandeAttente> file : parDuree.values()) {
+                toutes.addAll(file);
+            }
+        }
+        return new ArrayList<>(toutes);
+    }
+
+    public int getTaille() {
+        return taille;
+    }
+
+    /**
+     * Consultations réservées automatiquement sur le créneau libéré par l'annulation de la
+     * consultation donnée ; rendues une seule fois, pour que l'interface les signale
+     */
+    public List<Consultation> reservationsApresAnnulation(Consultation annulee) {
+        if (annulee == null || annulee != derniereAnnulee) return new ArrayList<>();
+        List<Consultation> reservees = dernieresReservations;
+        derniereAnnulee = null;
+        dernieresReservations = new ArrayList<>();
+        return reservees;
+    }
+
+    @Override
+    public void consultationModifiee(Consultation c, String ancienStatut, int ancienneDuree) {
+        if ("annulée".equalsIgnoreCase(c.getStatut()) && !"annulée".equalsIgnoreCase(ancienStatut)) {
+            derniereAnnulee = c;
+            dernieresReservations = creneauLibere(c.getProfessionnel(), c.getDateHeure(), c.getDureeMinutes());
+        }
+    }
+
+    /**
+     * Attribue un créneau libéré aux demandes en attente, dans l'ordre de priorité.
+     * Le créneau est rempli tant qu'il reste du temps pour une demande compatible.
+     * @return les consultations réservées automatiquement
+     */
+    public List<Consultation> creneauLibere(ProfessionnelSante professionnel, LocalDateTime debut, int dureeMinutes) {
+        List<Consultation> reservees = new ArrayList<>();
+        // Un créneau déjà commencé n'est pas réattribué
+        if (professionnel == null || taille == 0 || debut.isBefore(LocalDateTime.now())) return reservees;
+
+        LocalDateTime fin = debut.plusMinutes(dureeMinutes);
+        LocalDateTime curseur = debut;
+        while (curseur.isBefore(fin)) {
+            int restant = (int) ChronoUnit.MINUTES.between(curseur, fin);
+            DemandeAttente choisie = meilleureDemande(cleProfessionnel(professionnel), curseur, restant, null);
+            choisie = meilleureDemande(cleSpecialite(professionnel.getSpecialite()), curseur, restant, choisie);
+            if (choisie == null) break;
+
+            retirer(choisie);
+            Consultation c = consultationService.reserverConsultation(curseur, choisie.getMotif(), professionnel,
+                    choisie.getPatient(), choisie.getDureeMinutes());
+            if (c != null) {
+                reservees.add(c);
+                curseur = c.getFinConsultation();
+            } else {
+                // Refus inattendu (horaires...) : la demande garde sa place
+                ajouter(choisie);
+                break;
+            }
+        }
+        return reservees;
+    }
+
+    /**
+     * Meilleure demande de la clé qui tient dans la durée disponible et dont le patient est libre,
+     * comparée à la meilleure trouvée jusqu'ici.
+     */
+    private DemandeAttente meilleureDemande(String cle, LocalDateTime debut, int disponible, DemandeAttente meilleure) {
+        TreeMap<Integer, TreeSet<DemandeAttente>> parDuree = index.get(cle);
+        if (parDuree == null) return meilleure;
+        NavigableMap<Integer, TreeSet<DemandeAttente>> compatibles = parDuree.headMap(disponible, true);
+        for (TreeSet<DemandeAttente> file : compatibles.values()) {
+            for (DemandeAttente d : file) {
+                // Les suivantes de cette file sont moins prioritaires : inutile d'aller plus loin
+                if (meilleure != null && d.compareTo(meilleure) >= 0) break;
+                if (d.getPatient().getDossierMedical().getOccupation().estLibre(debut, d.getDureeMinutes())) {
+                    meilleure = d;
+                    break;
+                }
+            }
+        }
+        return meilleure;
+    }
+
+    private static String cle(DemandeAttente d) {
+        return d.getProfessionnel() != null ? cleProfessionnel(d.getProfessionnel()) : cleSpecialite(d.getSpecialite());
+    }
+
+    private static String cleProfessionnel(ProfessionnelSante p) {
+        return "PRO:" + p.getLoginID().toLowerCase();
+    }
+
+    private static String cleSpecialite(String specialite) {
+        return "SPE:" + (specialite == null ? "" : specialite.toLowerCase());
+    }
+}
@@ -0,0 +1,268 @@
+package com.medipass.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.medipass.model.GrilleCreneaux;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Optimiseur de planning en masse (campagnes de vaccination, journées de dépistage).
+ *
+ * Les demandes sont regroupées par spécialité et chaque groupe est résolu en parallèle.
+ * Dans un groupe : placement glouton "best-fit" (la plage libre la plus serrée qui contient
+ * la demande, pour limiter les temps morts), en commençant par les demandes les plus
+ * contraintes, puis redémarrages avec un ordre perturbé jusqu'à épuisement du budget de temps.
+ * La meilleure solution (plus de demandes placées, puis moins de temps mort) est conservée.
+ *
+ * Le calcul travaille sur des copies des masques de disponibilité (horaires ET NON occupation) ;
+ * rien n'est réservé tant que la solution n'est pas validée par valider(), qui passe par la
+ * réservation en lot habituelle (qui revérifie les conflits, y compris entre spécialités).
+ */
+public class OptimiseurPlanning {
+    private final ConsultationService consultationService;
+
+    public OptimiseurPlanning(ConsultationService consultationService) {
+        this.consultationService = consultationService;
+    }
+
+    /**
+     * Calcule une solution dans le budget de temps donné
+     * @param demandes demandes à placer
+     * @param professionnels professionnels mobilisables (toutes spécialités confondues)
+     * @param budgetMillis temps de calcul maximal
+     */
+    public ResultatOptimisation optimiser(List<DemandePlanification> demandes,
+                                          List<ProfessionnelSante> professionnels, long budgetMillis) {
+        long debut = System.currentTimeMillis();
+        long echeance = debut + Math.max(budgetMillis, 1);
+
+        Map<String, List<DemandePlanification>> parSpecialite = new HashMap<>();
+        for (DemandePlanification d : demandes) {
+            parSpecialite.computeIfAbsent(cle(d.getSpecialite()), k -> new ArrayList<>()).add(d);
+        }
+        Map<String, List<ProfessionnelSante>> prosParSpecialite = new HashMap<>();
+        for (ProfessionnelSante p : professionnels) {
+            prosParSpecialite.computeIfAbsent(cle(p.getSpecialite()), k -> new ArrayList<>()).add(p);
+        }
+
+        Map<String, ResultatOptimisation> resultats = new ConcurrentHashMap<>();
+        parSpecialite.entrySet().parallelStream().forEach(e -> resultats.put(e.getKey(),
+                new Groupe(e.getValue(), prosParSpecialite.getOrDefault(e.getKey(), List.of())).resoudre(echeance)));
+
+        ResultatOptimisation total = new ResultatOptimisation();
+        for (ResultatOptimisation r : resultats.values()) {
+            total.ajouter(r);
+        }
+        total.setDureeCalculMillis(System.currentTimeMillis() - debut);
+        return total;
+    }
+
+    /**
+     * Réserve une solution par le chemin de réservation en lot (une seule sauvegarde)
+     */
+    public List<ResultatReservation> valider(ResultatOptimisation solution, DataService dataService) {
+        return consultationService.programmerConsultations(solution.getPlacements(), dataService);
+    }
+
+    private static String cle(String specialite) {
+        return specialite == null ? "" : specialite.trim().toLowerCase();
+    }
+
+    /**
+     * Résolution d'une spécialité : état local (copies des masques), aucun partage entre threads
+     */
+    private static class Groupe {
+        private final List<DemandePlanification> demandes;
+        private final List<ProfessionnelSante> pros;
+        // Masques de base (non modifiés), construits à la demande
+        private final Map<Long, long[]> basePro = new HashMap<>();
+        private final Map<Long, long[]> basePatient = new HashMap<>();
+
+        Groupe(List<DemandePlanification> demandes, List<ProfessionnelSante> pros) {
+            this.demandes = demandes;
+            this.pros = pros;
+        }
+
+        ResultatOptimisation resoudre(long echeance) {
+            List<DemandePlanification> ordre = new ArrayList<>(demandes);
+            // Les plus contraintes d'abord : fenêtres courtes, puis durées longues
+            ordre.sort(Comparator.comparingLong(DemandePlanification::getMinutesFenetres)
+                    .thenComparing(Comparator.comparingInt(DemandePlanification::getDureeMinutes).reversed()));
+
+            Random aleatoire = new Random(ordre.size());
+            ResultatOptimisation meilleure = null;
+            int iterations = 0;
+            do {
+                ResultatOptimisation essai = placer(ordre, echeance, meilleure == null);
+                if (essai == null) break;
+                iterations++;
+                if (essai.meilleureQue(meilleure)) {
+                    meilleure = essai;
+                }
+                if (meilleure.getNonPlacees().isEmpty() && meilleure.getMinutesInactives() == 0) break;
+                // Perturbation : quelques échanges dans l'ordre de placement
+                ordre = new ArrayList<>(ordre);
+                for (int k = 0; k < Math.max(1, ordre.size() / 10); k++) {
+                    Collections.swap(ordre, aleatoire.nextInt(ordre.size()), aleatoire.nextInt(ordre.size()));
+                }
+            } while (System.currentTimeMillis() < echeance && ordre.size() > 1);
+            meilleure.setIterations(iterations);
+            return meilleure;
+        }
+
+        /**
+         * Un essai de placement glouton dans l'ordre donné. À l'échéance, le premier essai rend
+         * sa solution partielle (les demandes restantes sont non placées) ; un essai suivant est
+         * abandonné (null) au profit de la meilleure solution déjà trouvée.
+         */
+        private ResultatOptimisation placer(List<DemandePlanification> ordre, long echeance, boolean premierEssai) {
+            ResultatOptimisation resultat = new ResultatOptimisation();
+            Map<Long, long[]> libresPro = new HashMap<>();
+            Map<Long, long[]> occupesPatient = new HashMap<>();
+            LocalDateTime maintenant = LocalDateTime.now();
+            long[] libre = new long[GrilleCreneaux.MOTS_PAR_JOUR];
+
+            for (int n = 0; n < ordre.size(); n++) {
+                if (System.currentTimeMillis() >= echeance) {
+                    if (!premierEssai) return null;
+                    resultat.getNonPlacees().addAll(ordre.subList(n, ordre.size()));
+                    break;
+                }
+                DemandePlanification d = ordre.get(n);
+                int longueur = GrilleCreneaux.creneauFin(d.getDureeMinutes());
+                int meilleurReste = Integer.MAX_VALUE;
+                int meilleurPro = -1;
+                LocalDate meilleurJour = null;
+                int meilleurCreneau = -1;
+
+                for (LocalDateTime[] fenetre : d.getFenetres()) {
+                    LocalDateTime debut = fenetre[0].isBefore(maintenant) ? maintenant : fenetre[0];
+                    for (LocalDate jour = debut.toLocalDate(); !jour.isAfter(fenetre[1].toLocalDate()); jour = jour.plusDays(1)) {
+                        int premier = jour.equals(debut.toLocalDate())
+                                ? GrilleCreneaux.creneauFin(debut.getHour() * 60 + debut.getMinute()) : 0;
+                        int dernier = jour.equals(fenetre[1].toLocalDate())
+                                ? GrilleCreneaux.creneauDebut(fenetre[1].toLocalTime()) : GrilleCreneaux.CRENEAUX_PAR_JOUR;
+                        long[] occPatient = masquePatient(occupesPatient, d.getPatient(), jour);
+
+                        for (int i = 0; i < pros.size(); i++) {
+                            long[] proLibre = masquePro(libresPro, i, jour);
+                            for (int mot = 0; mot < libre.length; mot++) {
+                                libre[mot] = proLibre[mot] & ~occPatient[mot];
+                            }
+                            // Best-fit : plage libre la plus serrée qui contient la demande dans la fenêtre
+                            int position = premier;
+                            while (position < dernier) {
+                                int debutPlage = GrilleCreneaux.prochainUn(libre, 0, position);
+                                if (debutPlage >= dernier) break;
+                                int finPlage = GrilleCreneaux.prochainZero(libre, 0, debutPlage);
+                                int debutUtile = Math.max(debutPlage, premier);
+                                int finUtile = Math.min(finPlage, dernier);
+                                int reste = (finPlage - debutPlage) - longueur;
+                                if (finUtile - debutUtile >= longueur && reste < meilleurReste) {
+                                    meilleurReste = reste;
+                                    meilleurPro = i;
+                                    meilleurJour = jour;
+                                    // Collé au début de la plage si possible, sinon au début de la fenêtre
+                                    meilleurCreneau = debutUtile;
+                                }
+                                position = finPlage;
+                            }
+                            if (meilleurReste == 0) break;
+                        }
+                        if (meilleurReste == 0) break;
+                    }
+                    if (meilleurReste == 0) break;
+                }
+
+                if (meilleurPro < 0) {
+                    resultat.getNonPlacees().add(d);
+                    continue;
+                }
+                GrilleCreneaux.vider(masquePro(libresPro, meilleurPro, meilleurJour), 0,
+                        meilleurCreneau, meilleurCreneau + longueur);
+                GrilleCreneaux.remplir(masquePatient(occupesPatient, d.getPatient(), meilleurJour), 0,
+                        meilleurCreneau, meilleurCreneau + longueur);
+                resultat.getPlacements().add(new DemandeConsultation(
+                        meilleurJour.atStartOfDay().plusMinutes((long) meilleurCreneau * GrilleCreneaux.MINUTES_PAR_CRENEAU),
+                        d.getMotif(), pros.get(meilleurPro), d.getPatient(), d.getDureeMinutes()));
+            }
+            resultat.setMinutesInactives(tempsMort(libresPro));
+            return resultat;
+        }
+
+        /**
+         * Temps mort : créneaux libres situés entre deux créneaux non libres d'une même journée
+         * (seulement les journées touchées par la solution)
+         */
+        private long tempsMort(Map<Long, long[]> libresPro) {
+            long creneaux = 0;
+            for (Map.Entry<Long, long[]> e : libresPro.entrySet()) {
+                long[] libre = e.getValue();
+                long[] base = basePro.get(e.getKey());
+                // Occupé = travaillé mais plus libre ; on compte les trous entre le premier et le dernier occupé
+                long[] occupe = new long[libre.length];
+                for (int mot = 0; mot < libre.length; mot++) {
+                    occupe[mot] = base[mot] & ~libre[mot];
+                }
+                int premier = GrilleCreneaux.prochainUn(occupe, 0, 0);
+                if (premier >= GrilleCreneaux.CRENEAUX_PAR_JOUR) continue;
+                int position = premier;
+                int dernier = premier;
+                while (position < GrilleCreneaux.CRENEAUX_PAR_JOUR) {
+                    int d = GrilleCreneaux.prochainUn(occupe, 0, position);
+                    if (d >= GrilleCreneaux.CRENEAUX_PAR_JOUR) break;
+                    dernier = GrilleCreneaux.prochainZero(occupe, 0, d);
+                    position = dernier;
+                }
+                for (int c = premier; c < dernier; c++) {
+                    if ((libre[c >>> 6] & (1L << c)) != 0) creneaux++;
+                }
+            }
+            return creneaux * GrilleCreneaux.MINUTES_PAR_CRENEAU;
+        }
+
+        private long[] masquePro(Map<Long, long[]> libresPro, int index, LocalDate jour) {
+            long cle = ((long) index << 32) | (jour.toEpochDay() & 0xFFFFFFFFL);
+            long[] masque = libresPro.get(cle);
+            if (masque == null) {
+                long[] base = basePro.computeIfAbsent(cle, k -> {
+                    ProfessionnelSante pro = pros.get(index);
+                    long[] m = new long[GrilleCreneaux.MOTS_PAR_JOUR];
+                    pro.getHoraires().copierJour(jour.getDayOfWeek(), m, 0);
+                    long[] occupe = pro.getOccupation().getJour(jour);
+                    if (occupe != null) {
+                        for (int mot = 0; mot < m.length; mot++) m[mot] &= ~occupe[mot];
+                    }
+                    return m;
+                });
+                masque = base.clone();
+                libresPro.put(cle, masque);
+            }
+            return masque;
+        }
+
+        private long[] masquePatient(Map<Long, long[]> occupesPatient, Patient patient, LocalDate jour) {
+            long cle = ((long) patient.getId() << 32) | (jour.toEpochDay() & 0xFFFFFFFFL);
+            long[] masque = occupesPatient.get(cle);
+            if (masque == null) {
+                long[] base = basePatient.computeIfAbsent(cle, k -> {
+                    long[] occupe = patient.getDossierMedical().getOccupation().getJour(jour);
+                    return occupe != null ? occupe.clone() : new long[GrilleCreneaux.MOTS_PAR_JOUR];
+                });
+                masque = base.clone();
+                occupesPatient.put(cle, masque);
+            }
+            return masque;
+        }
+    }
+}
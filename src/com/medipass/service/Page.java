@@ -0,0 +1,29 @@
+package com.medipass.service;
+
+import java.util.List;
+
+/**
+ * Page de résultats d'une recherche paginée par curseur.
+ * Le curseur suivant est la clé du dernier élément de la page : la page suivante
+ * reprend juste après lui dans l'index trié, quel que soit le numéro de page.
+ */
+public class Page<T> {
+    private final List<T> elements;
+    private final String curseurSuivant;
+
+    public Page(List<T> elements, String curseurSuivant) {
+        this.elements = elements;
+        this.curseurSuivant = curseurSuivant;
+    }
+
+    public List<T> getElements() { return elements; }
+
+    /**
+     * Curseur à passer pour obtenir la page suivante, null s'il n'y en a pas
+     */
+    public String getCurseurSuivant() { return curseurSuivant; }
+
+    public boolean aSuivante() {
+        return curseurSuivant != null;
+    }
+}
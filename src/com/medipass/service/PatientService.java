@@ -1,9 +1,17 @@
 package com.medipass.service;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
 import com.medipass.model.Antecedent;
+import com.medipass.model.Chronologie;
+import com.medipass.model.DrapeauRisque;
+import com.medipass.model.ElementChronologie;
 import com.medipass.model.Patient;
 
 /**
@@ -11,7 +19,19 @@ import com.medipass.model.Patient;
  * Permet de créer, rechercher, modifier et supprimer des patients.
  */
 public class PatientService {
+
+    /**
+     * Ordre de parcours des listes paginées
+     */
+    public enum Tri { ID, NOM }
+
     private final List<Patient> patients = new ArrayList<>();
+    // Index triés, tenus à jour à la création, modification et suppression
+    private final TreeMap<Integer, Patient> parId = new TreeMap<>();
+    private final TreeMap<String, Patient> parNom = new TreeMap<>();
+    private final CacheDossiers cacheDossiers = new CacheDossiers(4L * 1024 * 1024);
+    private final IndexTexte indexTexte = new IndexTexte();
+    private final RegistreRisques risques = new RegistreRisques();
 
     /**
      * Crée un nouveau patient
@@ -21,6 +41,9 @@ public class PatientService {
             return false;
         }
         patients.add(patient);
+        parId.put(patient.getId(), patient);
+        parNom.put(cleNom(patient), patient);
+        risques.mettreAJour(patient);
         return true;
     }
 
@@ -28,7 +51,7 @@ public class PatientService {
      * Recherche un patient par ID
      */
     public Patient findPatientById(int id) {
-        return patients.stream().filter(p -> p.getId() == id).findFirst().orElse(null);
+        return parId.get(id);
     }
 
     /**
@@ -55,11 +78,15 @@ public class PatientService {
         if (patient == null) {
             return false;
         }
+        parNom.remove(cleNom(patient));
+        boolean identite = false;
         if (nom != null && !nom.trim().isEmpty()) {
             patient.setNom(nom);
+            identite = true;
         }
         if (prenom != null && !prenom.trim().isEmpty()) {
             patient.setPrenom(prenom);
+            identite = true;
         }
         if (numeroSS != null) {
             patient.setNumeroSecuriteSociale(numeroSS);
@@ -67,6 +94,12 @@ public class PatientService {
         if (groupeSanguin != null) {
             patient.setGroupeSanguin(groupeSanguin);
         }
+        parNom.put(cleNom(patient), patient);
+        if (identite) {
+            patient.getDossierMedical().identiteModifiee();
+        } else {
+            patient.getDossierMedical().marquerModifie();
+        }
         return true;
     }
 
@@ -74,7 +107,57 @@ public class PatientService {
      * Supprime un patient
      */
     public boolean supprimerPatient(int id) {
-        return patients.removeIf(p -> p.getId() == id);
+        Patient patient = parId.remove(id);
+        if (patient == null) {
+            return false;
+        }
+        parNom.remove(cleNom(patient));
+        indexTexte.retirerPatient(patient);
+        risques.retirer(patient);
+        return patients.remove(patient);
+    }
+
+    /**
+     * Page de patients dans l'ordre demandé, à partir d'un curseur (null pour la première page).
+     * Le curseur est repris dans l'index trié : le coût ne dépend que de la taille de la page.
+     */
+    public Page<Patient> pagePatients(Tri tri, String curseur, int taille) {
+        NavigableMap<?, Patient> suite;
+        if (tri == Tri.NOM) {
+            suite = curseur == null ? parNom : parNom.tailMap(curseur, false);
+        } else {
+            try {
+                suite = curseur == null ? parId : parId.tailMap(Integer.parseInt(curseur), false);
+            } catch (NumberFormatException e) {
+                System.err.println("❌ Curseur invalide: " + curseur);
+                return new Page<>(new ArrayList<>(), null);
+            }
+        }
+
+        List<Patient> elements = new ArrayList<>(Math.max(taille, 0));
+        Iterator<Patient> it = suite.values().iterator();
+        while (it.hasNext() && elements.size() < taille) {
+            elements.add(it.next());
+        }
+        String suivant = null;
+        if (it.hasNext() && !elements.isEmpty()) {
+            Patient dernier = elements.get(elements.size() - 1);
+            suivant = tri == Tri.NOM ? cleNom(dernier) : String.valueOf(dernier.getId());
+        }
+        return new Page<>(elements, suivant);
+    }
+
+    /**
+     * Plus grand identifiant attribué (0 s'il n'y a aucun patient)
+     */
+    public int getIdMaximal() {
+        return parId.isEmpty() ? 0 : parId.lastKey();
+    }
+
+    private static String cleNom(Patient p) {
+        return (p.getNom() == null ? "" : p.getNom().toLowerCase()) + '\u0000'
+                + (p.getPrenom() == null ? "" : p.getPrenom().toLowerCase()) + '\u0000'
+                + String.format("%010d", p.getId());
     }
 
     /**
@@ -128,6 +211,71 @@ public class PatientService {
         if (patient == null) {
             return "Patient non trouvé";
         }
+        return cacheDossiers.obtenir(patient, "resume", () -> rendreInfoPatient(patient));
+    }
+
+    /**
+     * Rendus des dossiers en cache (résumés, pages d'historique)
+     */
+    public CacheDossiers getCacheDossiers() {
+        return cacheDossiers;
+    }
+
+    /**
+     * Page de la chronologie d'un dossier (consultations et antécédents, du plus récent au plus ancien).
+     * Seules les entrées de la page sont lues, quelle que soit la taille du dossier.
+     */
+    public Page<ElementChronologie> pageChronologie(Patient patient, String curseur, int taille) {
+        Chronologie chronologie = patient.getDossierMedical().chronologie(curseur);
+        if (chronologie == null) {
+            System.err.println("❌ Curseur invalide: " + curseur);
+            return new Page<>(new ArrayList<>(), null);
+        }
+        List<ElementChronologie> elements = new ArrayList<>(Math.max(taille, 0));
+        while (elements.size() < taille && chronologie.hasNext()) {
+            elements.add(chronologie.next());
+        }
+        String suivant = chronologie.hasNext() && !elements.isEmpty()
+                ? elements.get(elements.size() - 1).getCurseur() : null;
+        return new Page<>(elements, suivant);
+    }
+
+    /**
+     * Désactive un antécédent d'un patient (ses indicateurs de risque sont recalculés)
+     */
+    public boolean desactiverAntecedent(int patientId, int antecedentId) {
+        Patient patient = findPatientById(patientId);
+        if (patient == null) {
+            return false;
+        }
+        return patient.getDossierMedical().desactiverAntecedent(antecedentId);
+    }
+
+    /**
+     * Patients portant tous les indicateurs requis et aucun des exclus, par ID croissant
+     */
+    public List<Patient> filtrerParRisques(Set<DrapeauRisque> requis, Set<DrapeauRisque> exclus) {
+        BitSet ids = risques.filtrer(requis, exclus);
+        List<Patient> resultat = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Patient p = parId.get(id);
+            if (p != null) resultat.add(p);
+        }
+        return resultat;
+    }
+
+    public RegistreRisques getRegistreRisques() {
+        return risques;
+    }
+
+    /**
+     * Index plein texte des antécédents et des consultations
+     */
+    public IndexTexte getIndexTexte() {
+        return indexTexte;
+    }
+
+    private static String rendreInfoPatient(Patient patient) {
         StringBuilder sb = new StringBuilder();
         sb.append("=== DOSSIER PATIENT ===\n");
         sb.append("ID: ").append(patient.getId()).append("\n");
@@ -147,7 +295,12 @@ public class PatientService {
         sb.append("Numéro SS: ").append(patient.getNumeroSecuriteSociale()).append("\n");
         sb.append("Groupe sanguin: ").append(patient.getGroupeSanguin()).append("\n");
         sb.append("Antécédents: ").append(patient.getDossierMedical().getAntecedents().size()).append("\n");
-        sb.append("Consultations: ").append(patient.getDossierMedical().getConsultations().size()).append("\n");
+        int risques = patient.getDossierMedical().getDrapeauxRisque();
+        if (risques != 0) {
+            sb.append("⚠️ Risques: ").append(DrapeauRisque.libelles(risques)).append("\n");
+        }
+        sb.append("Consultations: ").append(patient.getDossierMedical().getConsultations().size()
+                + patient.getDossierMedical().getNombreConsultationsArchivees()).append("\n");
         return sb.toString();
     }
 }
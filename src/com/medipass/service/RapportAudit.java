@@ -0,0 +1,105 @@
+package com.medipass.service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.SerieConsultations;
+
+/**
+ * Rapport d'audit du planning : chevauchements de consultations (côté professionnel
+ * et côté patient) et lignes orphelines du fichier des consultations.
+ */
+public class RapportAudit {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /**
+     * Deux consultations actives (ou occurrences de série) qui se chevauchent pour un même
+     * professionnel ou patient. Pour une occurrence, getPremiere / getSeconde rendent null.
+     */
+    public static class Conflit {
+        private final String type;
+        private final String cle;
+        private final Consultation premiere;
+        private final Consultation seconde;
+        private final SerieConsultations.Occurrence occurrencePremiere;
+        private final SerieConsultations.Occurrence occurrenceSeconde;
+
+        Conflit(String type, String cle, Consultation premiere, Consultation seconde) {
+            this(type, cle, premiere, null, seconde, null);
+        }
+
+        Conflit(String type, String cle, Consultation premiere, SerieConsultations.Occurrence occurrencePremiere,
+                Consultation seconde, SerieConsultations.Occurrence occurrenceSeconde) {
+            this.type = type;
+            this.cle = cle;
+            this.premiere = premiere;
+            this.seconde = seconde;
+            this.occurrencePremiere = occurrencePremiere;
+            this.occurrenceSeconde = occurrenceSeconde;
+        }
+
+        public String getType() { return type; }
+        public String getCle() { return cle; }
+        public Consultation getPremiere() { return premiere; }
+        public Consultation getSeconde() { return seconde; }
+        public SerieConsultations.Occurrence getOccurrencePremiere() { return occurrencePremiere; }
+        public SerieConsultations.Occurrence getOccurrenceSeconde() { return occurrenceSeconde; }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s : %s chevauche %s", type, cle,
+                    decrire(premiere, occurrencePremiere), decrire(seconde, occurrenceSeconde));
+        }
+
+        private static String decrire(Consultation c, SerieConsultations.Occurrence o) {
+            if (c != null) {
+                return String.format("#%d (%s, %d min)", c.getIdConsultation(), c.getDateHeure().format(FORMAT), c.getDureeMinutes());
+            }
+            return String.format("série %d (%s, %d min)", o.getSerie().getIdSerie(), o.getDebut().format(FORMAT),
+                    o.getSerie().getDureeMinutes());
+        }
+    }
+
+    private final List<Conflit> conflits = new ArrayList<>();
+    private final List<String> orphelins = new ArrayList<>();
+    private long consultationsAnalysees;
+    private long dureeMillis;
+
+    public List<Conflit> getConflits() { return conflits; }
+    public List<String> getOrphelins() { return orphelins; }
+    public long getConsultationsAnalysees() { return consultationsAnalysees; }
+    public long getDureeMillis() { return dureeMillis; }
+
+    void setConsultationsAnalysees(long n) { this.consultationsAnalysees = n; }
+    void setDureeMillis(long millis) { this.dureeMillis = millis; }
+
+    public boolean estSain() {
+        return conflits.isEmpty() && orphelins.isEmpty();
+    }
+
+    /**
+     * Rapport texte, limité aux premiers éléments de chaque liste
+     */
+    public String afficher(int limite) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Audit : %d consultations analysées en %d ms%n", consultationsAnalysees, dureeMillis));
+        sb.append("Chevauchements : ").append(conflits.size()).append("\n");
+        for (int i = 0; i < Math.min(limite, conflits.size()); i++) {
+            sb.append("  ✗ ").append(conflits.get(i)).append("\n");
+        }
+        if (conflits.size() > limite) {
+            sb.append("  ... ").append(conflits.size() - limite).append(" autres\n");
+        }
+        sb.append("Références orphelines : ").append(orphelins.size()).append("\n");
+        for (int i = 0; i < Math.min(limite, orphelins.size()); i++) {
+            sb.append("  ✗ ").append(orphelins.get(i)).append("\n");
+        }
+        if (orphelins.size() > limite) {
+            sb.append("  ... ").append(orphelins.size() - limite).append(" autres\n");
+        }
+        return sb.toString();
+    }
+}
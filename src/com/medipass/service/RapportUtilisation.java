@@ -0,0 +1,150 @@
+package com.medipass.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rapport d'occupation sur une période : par professionnel, par spécialité et au total.
+ * Construit par UtilisationPlanning à partir de ses sommes cumulées par jour.
+ */
+public class RapportUtilisation {
+
+    /**
+     * Compteurs d'occupation d'un professionnel, d'une spécialité ou de l'ensemble
+     */
+    public static class Ligne {
+        private final String cle;
+        private long minutesDisponibles;
+        private long minutesReservees;
+        private long minutesInactives;
+        private long consultations;
+        private long echues;
+        private long absences;
+        private long annulations;
+        private final long[] intervalles = new long[UtilisationPlanning.BORNES_INTERVALLES.length + 1];
+
+        Ligne(String cle) {
+            this.cle = cle;
+        }
+
+        /**
+         * Ajoute les compteurs c (dans l'ordre de UtilisationPlanning), multipliés par sens
+         */
+        void ajouter(int[] c, int base, int sens) {
+            minutesDisponibles += sens * c[base + UtilisationPlanning.DISPONIBLES];
+            minutesReservees += sens * c[base + UtilisationPlanning.RESERVEES];
+            minutesInactives += sens * c[base + UtilisationPlanning.INACTIVES];
+            consultations += sens * c[base + UtilisationPlanning.CONSULTATIONS];
+            echues += sens * c[base + UtilisationPlanning.ECHUES];
+            absences += sens * c[base + UtilisationPlanning.ABSENCES];
+            annulations += sens * c[base + UtilisationPlanning.ANNULATIONS];
+            for (int i = 0; i < intervalles.length; i++) {
+                intervalles[i] += sens * c[base + UtilisationPlanning.INTERVALLES + i];
+            }
+        }
+
+        void ajouter(Ligne autre) {
+            minutesDisponibles += autre.minutesDisponibles;
+            minutesReservees += autre.minutesReservees;
+            minutesInactives += autre.minutesInactives;
+            consultations += autre.consultations;
+            echues += autre.echues;
+            absences += autre.absences;
+            annulations += autre.annulations;
+            for (int i = 0; i < intervalles.length; i++) {
+                intervalles[i] += autre.intervalles[i];
+            }
+        }
+
+        public String getCle() { return cle; }
+        public long getMinutesDisponibles() { return minutesDisponibles; }
+        public long getMinutesReservees() { return minutesReservees; }
+        public long getMinutesInactives() { return minutesInactives; }
+        public long getConsultations() { return consultations; }
+        public long getAbsences() { return absences; }
+        public long getAnnulations() { return annulations; }
+
+        /**
+         * Nombre de plages libres (dans les horaires) par tranche de durée, voir BORNES_INTERVALLES
+         */
+        public long[] getIntervalles() { return intervalles.clone(); }
+
+        /**
+         * Minutes réservées / minutes disponibles (peut dépasser 1 hors horaires)
+         */
+        public double getTauxOccupation() {
+            return minutesDisponibles == 0 ? 0 : (double) minutesReservees / minutesDisponibles;
+        }
+
+        /**
+         * Consultations passées restées "programmée" / consultations passées non annulées
+         */
+        public double getTauxAbsence() {
+            return echues == 0 ? 0 : (double) absences / echues;
+        }
+
+        /**
+         * Consultations annulées / consultations inscrites
+         */
+        public double getTauxAnnulation() {
+            long inscrites = consultations + annulations;
+            return inscrites == 0 ? 0 : (double) annulations / inscrites;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s occupation %5.1f %% (%d h / %d h), inactif %d h, absences %4.1f %%, annulations %4.1f %%",
+                    cle, 100 * getTauxOccupation(), minutesReservees / 60, minutesDisponibles / 60,
+                    minutesInactives / 60, 100 * getTauxAbsence(), 100 * getTauxAnnulation());
+        }
+    }
+
+    private final LocalDate debut;
+    private final LocalDate fin;
+    private final List<Ligne> professionnels = new ArrayList<>();
+    private final Map<String, Ligne> specialites = new TreeMap<>();
+    private final Ligne total = new Ligne("Total");
+
+    RapportUtilisation(LocalDate debut, LocalDate fin) {
+        this.debut = debut;
+        this.fin = fin;
+    }
+
+    void ajouterProfessionnel(Ligne ligne, String specialite) {
+        professionnels.add(ligne);
+        specialites.computeIfAbsent(specialite, Ligne::new).ajouter(ligne);
+        total.ajouter(ligne);
+    }
+
+    public LocalDate getDebut() { return debut; }
+    public LocalDate getFin() { return fin; }
+    public List<Ligne> getProfessionnels() { return professionnels; }
+    public Map<String, Ligne> getSpecialites() { return specialites; }
+    public Ligne getTotal() { return total; }
+
+    public String afficher() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n=== OCCUPATION DU ").append(debut).append(" AU ").append(fin).append(" ===\n");
+        sb.append(total).append("\n");
+
+        sb.append("\n--- Par spécialité ---\n");
+        specialites.values().forEach(l -> sb.append(l).append("\n"));
+
+        sb.append("\n--- Par professionnel ---\n");
+        professionnels.forEach(l -> sb.append(l).append("\n"));
+
+        sb.append("\n--- Plages libres dans les horaires ---\n");
+        long[] n = total.intervalles;
+        int[] bornes = UtilisationPlanning.BORNES_INTERVALLES;
+        for (int i = 0; i < n.length; i++) {
+            String tranche = i == 0 ? "< " + bornes[0] + " min"
+                    : i == bornes.length ? ">= " + bornes[i - 1] + " min"
+                    : bornes[i - 1] + "-" + bornes[i] + " min";
+            sb.append(String.format("- %-12s : %d%n", tranche, n[i]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.medipass.service;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import com.medipass.model.DossierListener;
+import com.medipass.model.DossierMedical;
+import com.medipass.model.DrapeauRisque;
+import com.medipass.model.Patient;
+
+/**
+ * Indicateurs de risque de toute la population : un bitmap par DrapeauRisque, indexé par
+ * identifiant de patient. Un filtre (indicateurs requis et exclus) se résout par ET / ET NON
+ * mot à mot sur les bitmaps, sans ouvrir les dossiers.
+ * Tenu à jour par les événements des dossiers (voir DossierListener).
+ */
+public class RegistreRisques implements DossierListener {
+
+    private final BitSet[] parDrapeau = new BitSet[DrapeauRisque.values().length];
+    private final BitSet patients = new BitSet();
+
+    public RegistreRisques() {
+        for (int i = 0; i < parDrapeau.length; i++) {
+            parDrapeau[i] = new BitSet();
+        }
+        DossierMedical.ajouterListener(this);
+    }
+
+    @Override
+    public synchronized void risquesModifies(DossierMedical dossier, int anciensDrapeaux) {
+        Patient patient = dossier.getPatient();
+        if (patient != null && patients.get(patient.getId())) {
+            mettreAJour(patient);
+        }
+    }
+
+    /**
+     * Enregistre un patient avec les indicateurs actuels de son dossier
+     */
+    public synchronized void mettreAJour(Patient patient) {
+        int id = patient.getId();
+        if (id < 0) return;
+        int drapeaux = patient.getDossierMedical().getDrapeauxRisque();
+        patients.set(id);
+        for (DrapeauRisque d : DrapeauRisque.values()) {
+            parDrapeau[d.ordinal()].set(id, d.estDans(drapeaux));
+        }
+    }
+
+    public synchronized void retirer(Patient patient) {
+        int id = patient.getId();
+        if (id < 0) return;
+        patients.clear(id);
+        for (BitSet b : parDrapeau) {
+            b.clear(id);
+        }
+    }
+
+    /**
+     * Identifiants des patients portant tous les indicateurs requis et aucun des exclus
+     */
+    public synchronized BitSet filtrer(Set<DrapeauRisque> requis, Set<DrapeauRisque> exclus) {
+        BitSet resultat = (BitSet) patients.clone();
+        for (DrapeauRisque d : requis) {
+            resultat.and(parDrapeau[d.ordinal()]);
+        }
+        for (DrapeauRisque d : exclus) {
+            resultat.andNot(parDrapeau[d.ordinal()]);
+        }
+        return resultat;
+    }
+
+    public synchronized int compter(DrapeauRisque drapeau) {
+        return parDrapeau[drapeau.ordinal()].cardinality();
+    }
+}
@@ -0,0 +1,138 @@
+package com.medipass.service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.DrapeauRisque;
+import com.medipass.model.Patient;
+import com.medipass.model.SerieConsultations;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Rendu texte du planning d'un professionnel, écrit directement dans un Appendable
+ * (PrintStream, Writer, StringBuilder) en une seule passe.
+ *
+ * Le planning du professionnel est déjà trié : on se place au début de la période par
+ * dichotomie, puis on fusionne avec un curseur par série récurrente du professionnel.
+ * Aucune liste intermédiaire : la mémoire utilisée ne dépend pas du nombre de consultations.
+ */
+public final class RenduPlanning {
+
+    private static final DateTimeFormatter HEURE = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter JOUR = DateTimeFormatter.ofPattern("EEEE dd MMMM yyyy", Locale.FRENCH);
+
+    private RenduPlanning() {
+    }
+
+    /**
+     * Écrit le planning de la période [debut, fin[ jour par jour
+     * @param series séries récurrentes (seules celles du professionnel sont prises en compte)
+     */
+    public static void ecrire(Appendable out, ProfessionnelSante professionnel, List<SerieConsultations> series,
+                              LocalDateTime debut, LocalDateTime fin) throws IOException {
+        out.append("=== PLANNING DE ").append(professionnel.getNom()).append(" ")
+           .append(professionnel.getPrenom()).append(" ===\n");
+        out.append("Période : ");
+        DATE.formatTo(debut, out);
+        out.append(" au ");
+        DATE.formatTo(fin, out);
+        out.append("\n\n");
+
+        // Curseurs des séries du professionnel : index de la prochaine occurrence non détachée
+        int nbSeries = 0;
+        for (SerieConsultations s : series) {
+            if (s.getProfessionnel().getLoginID().equals(professionnel.getLoginID())) nbSeries++;
+        }
+        SerieConsultations[] serieCurseur = new SerieConsultations[nbSeries];
+        int[] indexCurseur = new int[nbSeries];
+        int k = 0;
+        for (SerieConsultations s : series) {
+            if (s.getProfessionnel().getLoginID().equals(professionnel.getLoginID())) {
+                serieCurseur[k] = s;
+                indexCurseur[k] = avancer(s, s.getRegle().indexAuPlusTot(s.getPremiere(), debut));
+                k++;
+            }
+        }
+
+        List<Consultation> planning = professionnel.getPlanning();
+        int i = professionnel.indexPremiereConsultation(debut);
+        LocalDate jourCourant = null;
+
+        while (true) {
+            // Prochaine consultation active de la période
+            while (i < planning.size() && "annulée".equalsIgnoreCase(planning.get(i).getStatut())) i++;
+            Consultation c = i < planning.size() && planning.get(i).getDateHeure().isBefore(fin) ? planning.get(i) : null;
+
+            // Série dont la prochaine occurrence est la plus tôt
+            int serie = -1;
+            LocalDateTime dateSerie = null;
+            for (int s = 0; s < nbSeries; s++) {
+                if (indexCurseur[s] >= serieCurseur[s].getNombreOccurrences()) continue;
+                LocalDateTime date = serieCurseur[s].getOccurrence(indexCurseur[s]);
+                if (date.isBefore(fin) && (dateSerie == null || date.isBefore(dateSerie))) {
+                    serie = s;
+                    dateSerie = date;
+                }
+            }
+
+            if (c == null && serie < 0) break;
+            boolean prendreSerie = serie >= 0 && (c == null || dateSerie.isBefore(c.getDateHeure()));
+            LocalDateTime date = prendreSerie ? dateSerie : c.getDateHeure();
+
+            LocalDate jour = date.toLocalDate();
+            if (!jour.equals(jourCourant)) {
+                if (jourCourant != null) out.append("\n");
+                out.append("--- ");
+                JOUR.formatTo(jour, out);
+                out.append(" ---\n");
+                jourCourant = jour;
+            }
+
+            if (prendreSerie) {
+                SerieConsultations s = serieCurseur[serie];
+                ligne(out, date, date.plusMinutes(s.getDureeMinutes()), s.getPatient(), s.getMotif());
+                out.append(" [Série ").append(String.valueOf(s.getIdSerie())).append("]\n");
+                indexCurseur[serie] = avancer(s, indexCurseur[serie] + 1);
+            } else {
+                ligne(out, date, c.getFinConsultation(), c.getPatient(), c.getMotif());
+                out.append("\n");
+                i++;
+            }
+        }
+
+        if (jourCourant == null) {
+            out.append("Aucune consultation programmée sur cette période\n");
+        } else {
+            out.append("\n");
+        }
+    }
+
+    private static void ligne(Appendable out, LocalDateTime debut, LocalDateTime fin,
+                              Patient patient, String motif) throws IOException {
+        out.append("  ");
+        HEURE.formatTo(debut, out);
+        out.append(" - ");
+        HEURE.formatTo(fin, out);
+        out.append(" : ").append(patient.getNom()).append(" ").append(patient.getPrenom())
+           .append(" (").append(motif).append(")");
+        // Indicateurs de risque lus en O(1) sur le dossier
+        int risques = patient.getDossierMedical().getDrapeauxRisque();
+        if (risques != 0) {
+            out.append(" ⚠ ").append(DrapeauRisque.libelles(risques));
+        }
+    }
+
+    /**
+     * Premier index non détaché à partir de index
+     */
+    private static int avancer(SerieConsultations serie, int index) {
+        while (index < serie.getNombreOccurrences() && serie.estDetachee(index)) index++;
+        return index;
+    }
+}
@@ -0,0 +1,152 @@
+package com.medipass.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.ConsultationListener;
+import com.medipass.model.SerieConsultations;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Charge des professionnels (minutes réservées par semaine), tenue à jour par les événements
+ * de consultation et de série, et tas par (spécialité, semaine) pour choisir le moins chargé sans recalcul.
+ *
+ * Politique d'équité : moins de minutes réservées dans la semaine, puis affectation la plus
+ * ancienne (rotation entre ex æquo), puis login.
+ */
+public class RepartiteurCharge implements ConsultationListener {
+
+    /**
+     * Charge d'un professionnel pour une semaine
+     */
+    static class Charge {
+        final ProfessionnelSante professionnel;
+        final long semaine;
+        int minutes;
+        long derniereAffectation;
+
+        Charge(ProfessionnelSante professionnel, long semaine) {
+            this.professionnel = professionnel;
+            this.semaine = semaine;
+        }
+    }
+
+    private static final Comparator<Charge> ORDRE = Comparator
+            .comparingInt((Charge c) -> c.minutes)
+            .thenComparingLong(c -> c.derniereAffectation)
+            .thenComparing(c -> c.professionnel.getLoginID());
+
+    // semaine (jour epoch du lundi) -> login -> charge
+    private final Map<Long, Map<String, Charge>> charges = new HashMap<>();
+    // spécialité + semaine -> tas ordonné des charges
+    private final Map<String, TreeSet<Charge>> tas = new HashMap<>();
+    private long compteurAffectations = 0;
+
+    @Override
+    public void consultationInscrite(Consultation c) {
+        if (!"annulée".equalsIgnoreCase(c.getStatut())) {
+            ajuster(c.getProfessionnel(), c.getDateHeure(), c.getDureeMinutes());
+        }
+    }
+
+    @Override
+    public void consultationModifiee(Consultation c, String ancienStatut, int ancienneDuree) {
+        int avant = "annulée".equalsIgnoreCase(ancienStatut) ? 0 : ancienneDuree;
+        int apres = "annulée".equalsIgnoreCase(c.getStatut()) ? 0 : c.getDureeMinutes();
+        if (avant != apres) {
+            ajuster(c.getProfessionnel(), c.getDateHeure(), apres - avant);
+        }
+    }
+
+    @Override
+    public void occurrenceReservee(SerieConsultations.Occurrence o, boolean reservee) {
+        SerieConsultations s = o.getSerie();
+        ajuster(s.getProfessionnel(), o.getDebut(), reservee ? s.getDureeMinutes() : -s.getDureeMinutes());
+    }
+
+    /**
+     * Minutes réservées pour un professionnel dans la semaine contenant la date
+     */
+    public int getMinutesReservees(ProfessionnelSante professionnel, LocalDate date) {
+        Map<String, Charge> semaine = charges.get(semaine(date));
+        Charge c = semaine == null ? null : semaine.get(professionnel.getLoginID());
+        return c == null ? 0 : c.minutes;
+    }
+
+    /**
+     * Professionnels du groupe, du moins chargé au plus chargé, pour la semaine de la date donnée
+     */
+    public List<ProfessionnelSante> ordreDeCharge(List<ProfessionnelSante> groupe, String specialite, LocalDate date) {
+        long semaine = semaine(date);
+        TreeSet<Charge> file = tas.computeIfAbsent(cleTas(specialite, semaine), k -> new TreeSet<>(ORDRE));
+
+        // Les professionnels apparus depuis la création du tas y sont ajoutés
+        if (file.size() < groupe.size()) {
+            Set<String> presents = new HashSet<>();
+            for (Charge c : file) presents.add(c.professionnel.getLoginID());
+            for (ProfessionnelSante p : groupe) {
+                if (presents.add(p.getLoginID())) {
+                    file.add(charge(p, semaine));
+                }
+            }
+        }
+
+        Set<String> logins = new HashSet<>();
+        for (ProfessionnelSante p : groupe) logins.add(p.getLoginID());
+        List<ProfessionnelSante> ordre = new ArrayList<>(groupe.size());
+        for (Charge c : file) {
+            if (logins.contains(c.professionnel.getLoginID())) {
+                ordre.add(c.professionnel);
+            }
+        }
+        return ordre;
+    }
+
+    /**
+     * Enregistre une affectation, pour faire tourner les ex æquo
+     */
+    public void affectation(ProfessionnelSante professionnel, LocalDate date) {
+        long semaine = semaine(date);
+        Charge c = charge(professionnel, semaine);
+        mettreAJour(c, () -> c.derniereAffectation = ++compteurAffectations);
+    }
+
+    private void ajuster(ProfessionnelSante professionnel, LocalDateTime date, int delta) {
+        if (professionnel == null || delta == 0) return;
+        Charge c = charge(professionnel, semaine(date.toLocalDate()));
+        mettreAJour(c, () -> c.minutes += delta);
+    }
+
+    /**
+     * Applique une modification en retirant puis réinsérant la charge dans son tas
+     */
+    private void mettreAJour(Charge c, Runnable modification) {
+        TreeSet<Charge> file = tas.get(cleTas(c.professionnel.getSpecialite(), c.semaine));
+        boolean present = file != null && file.remove(c);
+        modification.run();
+        if (present) file.add(c);
+    }
+
+    private Charge charge(ProfessionnelSante p, long semaine) {
+        return charges.computeIfAbsent(semaine, s -> new HashMap<>())
+                      .computeIfAbsent(p.getLoginID(), l -> new Charge(p, semaine));
+    }
+
+    private static long semaine(LocalDate date) {
+        return date.with(DayOfWeek.MONDAY).toEpochDay();
+    }
+
+    private static String cleTas(String specialite, long semaine) {
+        return (specialite == null ? "" : specialite.toLowerCase()) + "#" + semaine;
+    }
+}
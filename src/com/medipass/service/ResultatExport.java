@@ -0,0 +1,35 @@
+package com.medipass.service;
+
+import java.nio.file.Path;
+
+/**
+ * Bilan d'un export : fichier produit, nombre de lignes, taille et débit
+ */
+public class ResultatExport {
+    private final Path fichier;
+    private final long lignes;
+    private final long octets;
+    private final long dureeMillis;
+
+    ResultatExport(Path fichier, long lignes, long octets, long dureeMillis) {
+        this.fichier = fichier;
+        this.lignes = lignes;
+        this.octets = octets;
+        this.dureeMillis = dureeMillis;
+    }
+
+    public Path getFichier() { return fichier; }
+    public long getLignes() { return lignes; }
+    public long getOctets() { return octets; }
+    public long getDureeMillis() { return dureeMillis; }
+
+    public long getLignesParSeconde() {
+        return lignes * 1000 / Math.max(dureeMillis, 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s : %d lignes, %d Ko en %d ms (%d lignes/s)",
+                fichier, lignes, octets / 1024, dureeMillis, getLignesParSeconde());
+    }
+}
@@ -0,0 +1,48 @@
+package com.medipass.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solution proposée par l'optimiseur de planning : demandes placées (sous forme de
+ * demandes de consultation prêtes à réserver) et demandes restées sans créneau.
+ */
+public class ResultatOptimisation {
+    private final List<DemandeConsultation> placements = new ArrayList<>();
+    private final List<DemandePlanification> nonPlacees = new ArrayList<>();
+    private long minutesInactives;
+    private int iterations;
+    private long dureeCalculMillis;
+
+    public List<DemandeConsultation> getPlacements() { return placements; }
+    public List<DemandePlanification> getNonPlacees() { return nonPlacees; }
+    public long getMinutesInactives() { return minutesInactives; }
+    public int getIterations() { return iterations; }
+    public long getDureeCalculMillis() { return dureeCalculMillis; }
+
+    void ajouter(ResultatOptimisation partiel) {
+        placements.addAll(partiel.placements);
+        nonPlacees.addAll(partiel.nonPlacees);
+        minutesInactives += partiel.minutesInactives;
+        iterations += partiel.iterations;
+    }
+
+    void setMinutesInactives(long minutes) { this.minutesInactives = minutes; }
+    void setIterations(int iterations) { this.iterations = iterations; }
+    void setDureeCalculMillis(long millis) { this.dureeCalculMillis = millis; }
+
+    /**
+     * Vrai si cette solution est meilleure : plus de demandes placées, puis moins de temps mort
+     */
+    boolean meilleureQue(ResultatOptimisation autre) {
+        if (autre == null) return true;
+        if (placements.size() != autre.placements.size()) return placements.size() > autre.placements.size();
+        return minutesInactives < autre.minutesInactives;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Placées : %d, non placées : %d, temps mort entre rendez-vous : %d min (%d essais, %d ms)",
+                placements.size(), nonPlacees.size(), minutesInactives, iterations, dureeCalculMillis);
+    }
+}
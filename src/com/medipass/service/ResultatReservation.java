@@ -0,0 +1,43 @@
+package com.medipass.service;
+
+import com.medipass.model.Consultation;
+
+/**
+ * Résultat du traitement d'une demande dans un lot de réservations :
+ * acceptée (avec la consultation créée) ou refusée (avec la raison).
+ */
+public class ResultatReservation {
+    private final DemandeConsultation demande;
+    private Consultation consultation;
+    private String raison;
+
+    ResultatReservation(DemandeConsultation demande) {
+        this.demande = demande;
+    }
+
+    public DemandeConsultation getDemande() { return demande; }
+    public Consultation getConsultation() { return consultation; }
+    public String getRaison() { return raison; }
+
+    public boolean estAcceptee() {
+        return raison == null;
+    }
+
+    void refuser(String raison) {
+        if (this.raison == null) {
+            this.raison = raison;
+        }
+    }
+
+    void accepter(Consultation consultation) {
+        this.consultation = consultation;
+    }
+
+    @Override
+    public String toString() {
+        if (estAcceptee()) {
+            return "✓ " + demande + (consultation != null ? " -> Consultation[" + consultation.getIdConsultation() + "]" : "");
+        }
+        return "❌ " + demande + " : " + raison;
+    }
+}
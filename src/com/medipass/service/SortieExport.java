@@ -0,0 +1,113 @@
+package com.medipass.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Écriture texte (UTF-8) vers un fichier à travers deux tampons de taille fixe :
+ * les caractères sont encodés par blocs et chaque bloc d'octets part directement
+ * sur le canal du fichier (ou dans le flux gzip). La mémoire ne dépend pas du volume exporté.
+ */
+class SortieExport implements Appendable, Closeable {
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final FileChannel canal;
+    private final GZIPOutputStream gzip;
+    private final CharsetEncoder encodeur = StandardCharsets.UTF_8.newEncoder();
+    private final CharBuffer caracteres = CharBuffer.allocate(TAILLE_TAMPON / 4);
+    private final ByteBuffer octets = ByteBuffer.allocate(TAILLE_TAMPON);
+    private long tailleFinale = -1;
+
+    SortieExport(Path fichier, boolean compresser) throws IOException {
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.gzip = compresser ? new GZIPOutputStream(Channels.newOutputStream(canal), TAILLE_TAMPON) : null;
+    }
+
+    @Override
+    public SortieExport append(CharSequence texte) throws IOException {
+        return append(texte, 0, texte.length());
+    }
+
+    @Override
+    public SortieExport append(CharSequence texte, int debut, int fin) throws IOException {
+        for (int i = debut; i < fin; ) {
+            if (!caracteres.hasRemaining()) encoder(false);
+            int n = Math.min(fin - i, caracteres.remaining());
+            caracteres.append(texte, i, i + n);
+            i += n;
+        }
+        return this;
+    }
+
+    @Override
+    public SortieExport append(char c) throws IOException {
+        if (!caracteres.hasRemaining()) encoder(false);
+        caracteres.put(c);
+        return this;
+    }
+
+    SortieExport append(long nombre) throws IOException {
+        return append(Long.toString(nombre));
+    }
+
+    /**
+     * Encode les caractères en attente ; les octets sont écrits dès que leur tampon est plein
+     */
+    private void encoder(boolean finEntree) throws IOException {
+        caracteres.flip();
+        while (true) {
+            CoderResult r = encodeur.encode(caracteres, octets, finEntree);
+            if (r.isOverflow()) {
+                vider();
+            } else {
+                if (r.isError()) r.throwException();
+                break;
+            }
+        }
+        // Une paire de substitution coupée entre deux blocs attend le bloc suivant
+        caracteres.compact();
+    }
+
+    private void vider() throws IOException {
+        octets.flip();
+        if (gzip != null) {
+            gzip.write(octets.array(), 0, octets.limit());
+        } else {
+            while (octets.hasRemaining()) canal.write(octets);
+        }
+        octets.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            encoder(true);
+            while (encodeur.flush(octets).isOverflow()) vider();
+            vider();
+            if (gzip != null) gzip.finish();
+            canal.force(false);
+        } finally {
+            tailleFinale = canal.size();
+            if (gzip != null) gzip.close(); else canal.close();
+        }
+    }
+
+    /**
+     * Taille du fichier écrit (compressée le cas échéant), connue après close()
+     */
+    long getOctetsEcrits() {
+        return tailleFinale;
+    }
+}
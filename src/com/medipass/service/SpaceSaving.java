@@ -0,0 +1,167 @@
+package com.medipass.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Éléments les plus fréquents d'un flux (algorithme Space-Saving, k compteurs).
+ *
+ * Chaque compte estimé surestime le vrai compte d'au plus son erreur, elle-même bornée
+ * par N / k (N = nombre total d'éléments vus). Tout élément de fréquence supérieure à N / k
+ * est garanti d'être présent. Mémoire : k compteurs, quelle que soit la taille du flux.
+ * Les compteurs sont aussi rangés par compte croissant, pour trouver le minimum en O(log k).
+ */
+public class SpaceSaving {
+
+    /**
+     * Élément suivi : compte estimé et surestimation maximale
+     */
+    public static class Frequent {
+        private final String element;
+        private final long compte;
+        private final long erreur;
+
+        Frequent(String element, long compte, long erreur) {
+            this.element = element;
+            this.compte = compte;
+            this.erreur = erreur;
+        }
+
+        public String getElement() { return element; }
+        public long getCompte() { return compte; }
+        public long getErreur() { return erreur; }
+
+        /**
+         * Borne basse garantie du vrai compte
+         */
+        public long getCompteMinimal() { return compte - erreur; }
+    }
+
+    /**
+     * Compteur d'un élément suivi
+     */
+    private static class Compteur {
+        final String element;
+        long compte;
+        long erreur;
+
+        Compteur(String element, long compte, long erreur) {
+            this.element = element;
+            this.compte = compte;
+            this.erreur = erreur;
+        }
+    }
+
+    // Ordre croissant des comptes : le premier est celui qu'un nouvel élément remplace
+    private static final Comparator<Compteur> ORDRE = Comparator
+            .comparingLong((Compteur c) -> c.compte)
+            .thenComparing(c -> c.element);
+
+    private final int capacite;
+    private final Map<String, Compteur> compteurs = new HashMap<>();
+    private final TreeSet<Compteur> parCompte = new TreeSet<>(ORDRE);
+    private long total;
+
+    public SpaceSaving(int capacite) {
+        this.capacite = Math.max(capacite, 1);
+    }
+
+    public void ajouter(String element) {
+        ajouter(element, 1);
+    }
+
+    /**
+     * Ajoute un élément avec un poids, en O(log k)
+     */
+    public void ajouter(String element, long poids) {
+        total += poids;
+        Compteur c = compteurs.get(element);
+        if (c != null) {
+            parCompte.remove(c);
+            c.compte += poids;
+            parCompte.add(c);
+            return;
+        }
+        if (compteurs.size() < capacite) {
+            inserer(new Compteur(element, poids, 0));
+            return;
+        }
+        // Remplace le moins fréquent : le nouveau hérite de son compte comme erreur
+        Compteur minimum = parCompte.pollFirst();
+        compteurs.remove(minimum.element);
+        inserer(new Compteur(element, minimum.compte + poids, minimum.compte));
+    }
+
+    /**
+     * Les n éléments de plus grand compte estimé
+     */
+    public List<Frequent> plusFrequents(int n) {
+        List<Frequent> liste = new ArrayList<>(Math.min(Math.max(n, 0), compteurs.size()));
+        Iterator<Compteur> it = parCompte.descendingIterator();
+        while (it.hasNext() && liste.size() < n) {
+            Compteur c = it.next();
+            liste.add(new Frequent(c.element, c.compte, c.erreur));
+        }
+        return liste;
+    }
+
+    /**
+     * Fusion standard : un élément absent d'un des deux résumés y reçoit le compte minimal de
+     * ce résumé (compte et erreur), puis seuls les k plus grands comptes sont gardés.
+     * Après fusion, l'erreur reste bornée par (N1 + N2) / k.
+     */
+    public void fusionner(SpaceSaving autre) {
+        long minimum = minimum();
+        long minimumAutre = autre.minimum();
+        Map<String, Compteur> union = new HashMap<>();
+        for (Compteur c : compteurs.values()) {
+            union.put(c.element, new Compteur(c.element, c.compte + minimumAutre, c.erreur + minimumAutre));
+        }
+        for (Compteur c : autre.compteurs.values()) {
+            Compteur u = union.get(c.element);
+            if (u == null) {
+                union.put(c.element, new Compteur(c.element, c.compte + minimum, c.erreur + minimum));
+            } else {
+                u.compte += c.compte - minimumAutre;
+                u.erreur += c.erreur - minimumAutre;
+            }
+        }
+        total += autre.total;
+        compteurs.clear();
+        parCompte.clear();
+        for (Compteur c : union.values()) {
+            inserer(c);
+            if (compteurs.size() > capacite) {
+                compteurs.remove(parCompte.pollFirst().element);
+            }
+        }
+    }
+
+    /**
+     * Compte minimal suivi : surestimation possible d'un élément non suivi (0 tant qu'il reste des compteurs libres)
+     */
+    public long minimum() {
+        return compteurs.size() < capacite ? 0 : parCompte.first().compte;
+    }
+
+    private void inserer(Compteur c) {
+        compteurs.put(c.element, c);
+        parCompte.add(c);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Surestimation maximale d'un compte : N / k
+     */
+    public long getBorneErreur() {
+        return total / capacite;
+    }
+}
@@ -1,17 +1,70 @@
 package com.medipass.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 import com.medipass.model.Patient;
 import com.medipass.user.ProfessionnelSante;
+import com.medipass.user.Utilisateur;
 import com.medipass.model.Consultation;
+import com.medipass.model.ConsultationListener;
+import com.medipass.model.SegmentArchive;
+import com.medipass.model.SerieConsultations;
 
 /*
- * Service de statistiques basiques.
+ * Service de statistiques.
+ * Les agrégats (par spécialité, par professionnel, par statut, et le cube par jour) sont tenus à jour
+ * au fil des événements de consultation et de compte : une requête ne parcourt que les
+ * compartiments concernés, jamais la liste des consultations.
  */
-public class StatistiquesService {
+public class StatistiquesService implements ConsultationListener, CompteListener {
+
+    /**
+     * Nombre de consultations et minutes réservées d'un compartiment
+     */
+    private static class Agregat {
+        long nombre;
+        long minutes;
+    }
+
+    private final Map<String, Agregat> parStatut = new HashMap<>();
+    private final Map<String, Agregat> parSpecialite = new HashMap<>();
+    private final Map<String, Agregat> parProfessionnel = new HashMap<>();
+    // Par jour, professionnel, spécialité et statut, pour les requêtes sur une période
+    private final CubeConsultations cube = new CubeConsultations();
+    private final Agregat total = new Agregat();
+
+    // Résumés approchés (mémoire bornée, fusionnables) : patients distincts par professionnel,
+    // diagnostics fréquents, distribution des durées des consultations effectuées.
+    // Ils n'acceptent pas de retrait : une consultation n'y entre qu'une fois, à sa première clôture
+    // (durée de ce moment) et à son premier diagnostic non vide, repérée par son identifiant
+    private final Map<String, HyperLogLog> patientsParProfessionnel = new HashMap<>();
+    private final Map<String, String> specialiteParProfessionnel = new HashMap<>();
+    private final SpaceSaving diagnostics = new SpaceSaving(200);
+    private final DDSketch durees = new DDSketch(0.01);
+    private final Map<String, DDSketch> dureesParSpecialite = new HashMap<>();
+    private final BitSet cloturees = new BitSet();
+    private final BitSet diagnosticsComptes = new BitSet();
+    // Pendant le chargement, les diagnostics (textes lus dans NotesTexte) ne sont pas relus : les
+    // consultations effectuées chargées sont notées, et relues à la première analyse des diagnostics
+    private boolean diagnosticsSuspendus;
+    private List<Consultation> diagnosticsDifferes;
+    private SegmentArchive archiveDifferee;
+    private int lignesArchiveDifferees;
+
+    // Comptes
+    private final Map<String, Long> professionnelsParSpecialite = new HashMap<>();
+    private int nombreProfessionnels;
+    private int nombreProfessionnelsActifs;
+
+    public StatistiquesService() {
+        Consultation.ajouterListener(this);
+    }
 
     public int getNombrePatients(List<Patient> patients){
         return patients == null ? 0 : patients.size();
@@ -21,32 +74,309 @@ public class StatistiquesService {
         return pros == null ? 0 : pros.size();
     }
 
-    public Map<String, Long> getProfessionnelsParSpecialite(List<ProfessionnelSante> pros){
-        if(pros == null) return java.util.Collections.emptyMap();
-        return pros.stream().collect(Collectors.groupingBy(ProfessionnelSante::getSpecialite, Collectors.counting()));
+    /* ---------- Événements ---------- */
+
+    @Override
+    public synchronized void consultationInscrite(Consultation c) {
+        comptabiliser(c.getProfessionnel(), c.getDateHeure().toLocalDate(), c.getStatut(), c.getDureeMinutes(), 1);
+        if (c.getProfessionnel() != null && c.getPatient() != null) {
+            patientsParProfessionnel.computeIfAbsent(c.getProfessionnel().getLoginID(), k -> new HyperLogLog())
+                                    .ajouter(c.getPatient().getId());
+            specialiteParProfessionnel.put(c.getProfessionnel().getLoginID(), c.getProfessionnel().getSpecialite());
+        }
+        // Consultation déjà close au chargement
+        if ("effectuée".equalsIgnoreCase(c.getStatut())) {
+            cloturer(c);
+        }
+    }
+
+    @Override
+    public synchronized void consultationModifiee(Consultation c, String ancienStatut, int ancienneDuree) {
+        LocalDate jour = c.getDateHeure().toLocalDate();
+        comptabiliser(c.getProfessionnel(), jour, ancienStatut, ancienneDuree, -1);
+        comptabiliser(c.getProfessionnel(), jour, c.getStatut(), c.getDureeMinutes(), 1);
+        if ("effectuée".equalsIgnoreCase(c.getStatut()) && !"effectuée".equalsIgnoreCase(ancienStatut)) {
+            cloturer(c);
+        }
+    }
+
+    /**
+     * Occurrence de série : comptée comme une consultation programmée tant qu'elle n'est pas détachée
+     */
+    @Override
+    public synchronized void occurrenceReservee(SerieConsultations.Occurrence o, boolean reservee) {
+        SerieConsultations s = o.getSerie();
+        comptabiliser(s.getProfessionnel(), o.getDebut().toLocalDate(), "programmée", s.getDureeMinutes(), reservee ? 1 : -1);
+        if (reservee && s.getProfessionnel() != null && s.getPatient() != null) {
+            patientsParProfessionnel.computeIfAbsent(s.getProfessionnel().getLoginID(), k -> new HyperLogLog())
+                                    .ajouter(s.getPatient().getId());
+            specialiteParProfessionnel.put(s.getProfessionnel().getLoginID(), s.getProfessionnel().getSpecialite());
+        }
+    }
+
+    /**
+     * Diagnostic saisi après la clôture : compté s'il est le premier de la consultation
+     */
+    @Override
+    public synchronized void consultationAnnotee(Consultation c) {
+        if (!diagnosticsSuspendus && cloturees.get(c.getIdConsultation())) {
+            compterDiagnostic(c);
+        }
+    }
+
+    /**
+     * Consultation effectuée : diagnostic et durée alimentent les résumés approchés
+     * (une seule fois, même si elle repasse par un autre statut avant d'être de nouveau effectuée)
+     */
+    private void cloturer(Consultation c) {
+        if (cloturees.get(c.getIdConsultation())) return;
+        cloturees.set(c.getIdConsultation());
+        if (!diagnosticsSuspendus) {
+            compterDiagnostic(c);
+        } else if (!c.estArchivee()) {
+            // Les lignes d'archive sont relues depuis l'archive, sans garder d'objet
+            diagnosticsDifferes.add(c);
+        }
+        durees.ajouter(c.getDureeMinutes());
+        if (c.getProfessionnel() != null) {
+            dureesParSpecialite.computeIfAbsent(c.getProfessionnel().getSpecialite(), k -> new DDSketch(0.01))
+                               .ajouter(c.getDureeMinutes());
+        }
+    }
+
+    private void compterDiagnostic(Consultation c) {
+        if (diagnosticsComptes.get(c.getIdConsultation())) return;
+        String diagnostic = normaliserDiagnostic(c.getDiagnostic());
+        if (!diagnostic.isEmpty()) {
+            diagnostics.ajouter(diagnostic);
+            diagnosticsComptes.set(c.getIdConsultation());
+        }
+    }
+
+    /**
+     * Suspend la lecture des diagnostics (chargement des données) jusqu'à reprendreDiagnostics()
+     */
+    public synchronized void suspendreDiagnostics() {
+        diagnosticsSuspendus = true;
+        if (diagnosticsDifferes == null) diagnosticsDifferes = new ArrayList<>();
+    }
+
+    /**
+     * Reprend la lecture des diagnostics ; ceux des consultations chargées entre-temps (et des
+     * lignes de l'archive) ne seront lus qu'à la première analyse qui en a besoin
+     */
+    public synchronized void reprendreDiagnostics(SegmentArchive archive) {
+        diagnosticsSuspendus = false;
+        archiveDifferee = archive;
+        lignesArchiveDifferees = archive == null ? 0 : archive.taille();
+    }
+
+    private void relireDiagnosticsDifferes() {
+        if (diagnosticsSuspendus || diagnosticsDifferes == null) return;
+        for (Consultation c : diagnosticsDifferes) {
+            compterDiagnostic(c);
+        }
+        for (int ligne = 0; ligne < lignesArchiveDifferees; ligne++) {
+            Consultation c = archiveDifferee.consultation(ligne);
+            if ("effectuée".equalsIgnoreCase(c.getStatut())) {
+                compterDiagnostic(c);
+            }
+        }
+        diagnosticsDifferes = null;
+        archiveDifferee = null;
+        lignesArchiveDifferees = 0;
+    }
+
+    private static String normaliserDiagnostic(String diagnostic) {
+        return diagnostic == null ? "" : diagnostic.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    @Override
+    public synchronized void compteCree(Utilisateur utilisateur) {
+        if (utilisateur instanceof ProfessionnelSante pro) {
+            professionnelsParSpecialite.merge(pro.getSpecialite(), 1L, Long::sum);
+            nombreProfessionnels++;
+            if (pro.isActif()) nombreProfessionnelsActifs++;
+        }
+    }
+
+    @Override
+    public synchronized void compteSupprime(Utilisateur utilisateur) {
+        if (utilisateur instanceof ProfessionnelSante pro) {
+            professionnelsParSpecialite.computeIfPresent(pro.getSpecialite(), (s, n) -> n > 1 ? n - 1 : null);
+            nombreProfessionnels--;
+            if (pro.isActif()) nombreProfessionnelsActifs--;
+        }
+    }
+
+    @Override
+    public synchronized void compteModifie(Utilisateur utilisateur, boolean etaitActif) {
+        if (utilisateur instanceof ProfessionnelSante && etaitActif != utilisateur.isActif()) {
+            nombreProfessionnelsActifs += utilisateur.isActif() ? 1 : -1;
+        }
+    }
+
+    private void comptabiliser(ProfessionnelSante pro, LocalDate jour, String statut, int dureeMinutes, int sens) {
+        // Une consultation annulée reste comptée mais ne réserve plus de minutes
+        int duree = "annulée".equalsIgnoreCase(statut) ? 0 : dureeMinutes;
+        ajuster(total, duree, sens);
+        ajuster(parStatut.computeIfAbsent(statut == null ? "" : statut.toLowerCase(), k -> new Agregat()), duree, sens);
+        if (pro != null) {
+            ajuster(parSpecialite.computeIfAbsent(pro.getSpecialite(), k -> new Agregat()), duree, sens);
+            ajuster(parProfessionnel.computeIfAbsent(pro.getLoginID(), k -> new Agregat()), duree, sens);
+        }
+        cube.ajouter(pro, statut, jour, sens, (long) sens * duree);
+    }
+
+    private static void ajuster(Agregat a, int duree, int sens) {
+        a.nombre += sens;
+        a.minutes += (long) sens * duree;
+    }
+
+    /* ---------- Requêtes ---------- */
+
+    public synchronized long getNombreConsultations() {
+        return total.nombre;
+    }
+
+    public synchronized long getMinutesReservees() {
+        return total.minutes;
+    }
+
+    public synchronized Map<String, Long> getProfessionnelsParSpecialite() {
+        return new TreeMap<>(professionnelsParSpecialite);
+    }
+
+    public synchronized Map<String, Long> getConsultationsParStatut() {
+        return nombres(parStatut);
+    }
+
+    public synchronized Map<String, Long> getConsultationsParSpecialite() {
+        return nombres(parSpecialite);
+    }
+
+    /**
+     * Nombre de consultations par login de professionnel
+     */
+    public synchronized Map<String, Long> getConsultationsParProfessionnel() {
+        return nombres(parProfessionnel);
+    }
+
+    /**
+     * Nombre de consultations dont le jour est dans [debut, fin] (bornes incluses)
+     */
+    public synchronized long getConsultationsParPeriode(LocalDate debut, LocalDate fin) {
+        return cube.total(debut, fin)[0];
+    }
+
+    /**
+     * Cube pré-agrégé pour les ventilations d'une période (statut, professionnel, spécialité, cumuls)
+     */
+    public CubeConsultations getCube() {
+        return cube;
+    }
+
+    /* ---------- Requêtes approchées ---------- */
+
+    /**
+     * Patients distincts vus par un professionnel (erreur type ≈ 1,6 %, voir HyperLogLog)
+     */
+    public synchronized long estimerPatientsDistincts(ProfessionnelSante professionnel) {
+        HyperLogLog hll = patientsParProfessionnel.get(professionnel.getLoginID());
+        return hll == null ? 0 : hll.estimer();
+    }
+
+    /**
+     * Patients distincts vus dans une spécialité, par fusion des estimateurs de ses professionnels
+     */
+    public synchronized long estimerPatientsDistinctsSpecialite(String specialite) {
+        HyperLogLog union = new HyperLogLog();
+        patientsParProfessionnel.forEach((login, hll) -> {
+            if (specialite.equalsIgnoreCase(specialiteParProfessionnel.get(login))) union.fusionner(hll);
+        });
+        return union.estimer();
+    }
+
+    /**
+     * Diagnostics les plus fréquents ; chaque compte surestime d'au plus getErreur() ≤ N / 200.
+     * Seul le premier diagnostic d'une consultation effectuée est compté (pas de retrait possible).
+     */
+    public synchronized List<SpaceSaving.Frequent> getDiagnosticsFrequents(int n) {
+        relireDiagnosticsDifferes();
+        return new ArrayList<>(diagnostics.plusFrequents(n));
+    }
+
+    /**
+     * Durée (minutes) au quantile q des consultations effectuées, à 1 % près (voir DDSketch).
+     * Chaque consultation compte une fois, avec sa durée à la première clôture.
+     */
+    public synchronized double getQuantileDuree(double q) {
+        return durees.quantile(q);
     }
 
-    public int getConsultationsParPeriode(List<Consultation> consultations, java.time.LocalDateTime debut, java.time.LocalDateTime fin){
-        if(consultations == null) return 0;
-        return (int) consultations.stream().filter(c -> !c.getDateHeure().isBefore(debut) && !c.getDateHeure().isAfter(fin)).count();
+    public synchronized double getQuantileDuree(String specialite, double q) {
+        DDSketch d = dureesParSpecialite.get(specialite);
+        return d == null ? Double.NaN : d.quantile(q);
     }
 
-    public String afficherStatistiques(int nbPatients, int nbPros, int nbConsultations, List<Consultation> consultations, List<ProfessionnelSante> pros) {
+    public synchronized String afficherAnalysesApprochees() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n--- Analyses approchées ---\n");
+        sb.append(String.format("Patients distincts par spécialité (±%.1f %%) :\n", 100 * HyperLogLog.erreurType()));
+        new TreeMap<>(professionnelsParSpecialite).keySet().forEach(spec ->
+            sb.append(String.format("- %s : ~%d\n", spec, estimerPatientsDistinctsSpecialite(spec))));
+
+        if (durees.getNombre() > 0) {
+            sb.append(String.format("Durée des consultations effectuées (±%.0f %%) : médiane %.0f min, p95 %.0f min\n",
+                    100 * durees.getAlpha(), durees.quantile(0.5), durees.quantile(0.95)));
+        }
+
+        relireDiagnosticsDifferes();
+        List<SpaceSaving.Frequent> frequents = diagnostics.plusFrequents(5);
+        if (!frequents.isEmpty()) {
+            sb.append(String.format("Diagnostics les plus fréquents (surestimation ≤ %d) :\n", diagnostics.getBorneErreur()));
+            for (SpaceSaving.Frequent f : frequents) {
+                sb.append(String.format("- %s : ~%d\n", f.getElement(), f.getCompte()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, Long> nombres(Map<String, Agregat> agregats) {
+        Map<String, Long> resultat = new TreeMap<>();
+        agregats.forEach((cle, a) -> {
+            if (a.nombre != 0) resultat.put(cle, a.nombre);
+        });
+        return resultat;
+    }
+
+    public synchronized String afficherStatistiques(int nbPatients) {
         StringBuilder sb = new StringBuilder();
         sb.append("\n=== STATISTIQUES DU SYSTÈME ===\n");
         sb.append(String.format("Nombre total de patients : %d\n", nbPatients));
-        sb.append(String.format("Nombre total de professionnels : %d\n", nbPros));
-        sb.append(String.format("Nombre total de consultations : %d\n", nbConsultations));
-        
+        sb.append(String.format("Nombre total de professionnels : %d (%d actifs)\n", nombreProfessionnels, nombreProfessionnelsActifs));
+        sb.append(String.format("Nombre total de consultations : %d (%d h réservées)\n", total.nombre, total.minutes / 60));
+
         sb.append("\n--- Répartition par spécialité ---\n");
-        Map<String, Long> parSpecialite = getProfessionnelsParSpecialite(pros);
-        if (parSpecialite.isEmpty()) {
+        Map<String, Long> specialites = getProfessionnelsParSpecialite();
+        if (specialites.isEmpty()) {
             sb.append("Aucune donnée disponible.\n");
         } else {
-            parSpecialite.forEach((spec, count) -> 
-                sb.append(String.format("- %s : %d\n", spec, count)));
+            Map<String, Long> consultations = getConsultationsParSpecialite();
+            specialites.forEach((spec, count) ->
+                sb.append(String.format("- %s : %d professionnel(s), %d consultation(s)\n",
+                        spec, count, consultations.getOrDefault(spec, 0L))));
         }
-        
+
+        sb.append("\n--- Consultations par statut ---\n");
+        Map<String, Long> statuts = getConsultationsParStatut();
+        if (statuts.isEmpty()) {
+            sb.append("Aucune donnée disponible.\n");
+        } else {
+            statuts.forEach((statut, count) ->
+                sb.append(String.format("- %s : %d\n", statut, count)));
+        }
+
         return sb.toString();
     }
 }
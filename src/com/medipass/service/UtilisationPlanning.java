@@ -0,0 +1,251 @@
+package com.medipass.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.medipass.model.CalendrierOccupation;
+import com.medipass.model.ColonnesConsultations;
+import com.medipass.model.Consultation;
+import com.medipass.model.GrilleCreneaux;
+import com.medipass.model.HorairesHebdomadaires;
+import com.medipass.model.SegmentArchive;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Occupation des professionnels sur une période : minutes réservées sur minutes disponibles
+ * (horaires analysés), absences, annulations et durée des plages libres dans les horaires.
+ *
+ * Les plannings (triés par date) sont parcourus une seule fois, un professionnel par tâche
+ * parallèle, à partir de la recherche dichotomique du premier jour ; avec ColonnesConsultations,
+ * les consultations de la période sont lues en un seul passage sur les colonnes, sans objets,
+ * avant le calcul parallèle des plages libres. Chaque professionnel garde
+ * des sommes cumulées par jour : le rapport d'une sous-période ou d'une fenêtre glissante
+ * est une simple différence, sans nouveau parcours des consultations.
+ * Les consultations archivées sont lues dans l'ordre (professionnel, date) de l'archive.
+ */
+public class UtilisationPlanning {
+
+    // Compteurs par jour
+    static final int DISPONIBLES = 0;
+    static final int RESERVEES = 1;
+    static final int INACTIVES = 2;
+    static final int CONSULTATIONS = 3;
+    static final int ECHUES = 4;
+    static final int ABSENCES = 5;
+    static final int ANNULATIONS = 6;
+    static final int INTERVALLES = 7;
+
+    /**
+     * Bornes (minutes) des tranches de durée des plages libres : < 15, 15-30, 30-60, 60-120, >= 120
+     */
+    static final int[] BORNES_INTERVALLES = {15, 30, 60, 120};
+
+    private static final int COMPTEURS = INTERVALLES + BORNES_INTERVALLES.length + 1;
+
+    private final List<ProfessionnelSante> pros;
+    private final ColonnesConsultations colonnes;
+    private final SegmentArchive archive;
+    private final LocalDate debut;
+    private final int nombreJours;
+    // Par professionnel : (nombreJours + 1) x COMPTEURS, ligne j = somme des jours [debut, debut + j[
+    private final int[][] cumuls;
+
+    /**
+     * Calcule les compteurs de chaque jour de [debut, fin]
+     * @param maintenant une consultation "programmée" terminée avant cet instant compte comme absence
+     */
+    public UtilisationPlanning(List<ProfessionnelSante> pros, LocalDate debut, LocalDate fin, LocalDateTime maintenant) {
+        this(pros, null, null, debut, fin, maintenant);
+    }
+
+    /**
+     * Idem, en comptant aussi les consultations de l'archive (lue colonne par colonne, sans objets)
+     */
+    public UtilisationPlanning(List<ProfessionnelSante> pros, SegmentArchive archive,
+                               LocalDate debut, LocalDate fin, LocalDateTime maintenant) {
+        this(pros, null, archive, debut, fin, maintenant);
+    }
+
+    /**
+     * Idem, en lisant les consultations inscrites dans leurs colonnes plutôt que dans les plannings
+     * @param colonnes colonnes tenues par ConsultationService (null : parcours des plannings)
+     */
+    public UtilisationPlanning(List<ProfessionnelSante> pros, ColonnesConsultations colonnes, SegmentArchive archive,
+                               LocalDate debut, LocalDate fin, LocalDateTime maintenant) {
+        this.pros = new ArrayList<>(pros);
+        this.colonnes = colonnes;
+        this.archive = archive;
+        this.debut = debut;
+        this.nombreJours = (int) Math.max(0, fin.toEpochDay() - debut.toEpochDay() + 1);
+        this.cumuls = new int[this.pros.size()][];
+        for (int i = 0; i < cumuls.length; i++) {
+            cumuls[i] = new int[(nombreJours + 1) * COMPTEURS];
+        }
+        if (colonnes != null && nombreJours > 0) {
+            compterColonnes(maintenant);
+        }
+        IntStream.range(0, this.pros.size()).parallel()
+                 .forEach(i -> calculer(this.pros.get(i), cumuls[i], maintenant));
+    }
+
+    private void calculer(ProfessionnelSante pro, int[] c, LocalDateTime maintenant) {
+        List<Consultation> planning = pro.getPlanning();
+        HorairesHebdomadaires horaires = pro.getHoraires();
+        CalendrierOccupation occupation = pro.getOccupation();
+        long[] libre = new long[GrilleCreneaux.MOTS_PAR_JOUR];
+
+        if (archive != null) {
+            compterArchive(pro, c, maintenant);
+        }
+
+        // Sans colonnes, les consultations sont lues dans le planning
+        int k = colonnes != null ? planning.size() : pro.indexPremiereConsultation(debut.atStartOfDay());
+        for (int j = 0; j < nombreJours; j++) {
+            int base = (j + 1) * COMPTEURS;
+            LocalDate jour = debut.plusDays(j);
+            LocalDateTime lendemain = jour.plusDays(1).atStartOfDay();
+
+            // Consultations du jour (le planning est trié : le curseur ne recule jamais)
+            for (; k < planning.size() && planning.get(k).getDateHeure().isBefore(lendemain); k++) {
+                Consultation cons = planning.get(k);
+                if ("annulée".equalsIgnoreCase(cons.getStatut())) {
+                    c[base + ANNULATIONS]++;
+                    continue;
+                }
+                c[base + CONSULTATIONS]++;
+                c[base + RESERVEES] += cons.getDureeMinutes();
+                if (cons.getDateHeure().plusMinutes(cons.getDureeMinutes()).isBefore(maintenant)) {
+                    c[base + ECHUES]++;
+                    if ("programmée".equalsIgnoreCase(cons.getStatut())) c[base + ABSENCES]++;
+                }
+            }
+
+            // Plages libres : horaires du jour privés des créneaux occupés
+            horaires.copierJour(jour.getDayOfWeek(), libre, 0);
+            c[base + DISPONIBLES] = GrilleCreneaux.compter(libre, 0) * GrilleCreneaux.MINUTES_PAR_CRENEAU;
+            long[] occupe = occupation.getJour(jour);
+            if (occupe != null) {
+                for (int m = 0; m < GrilleCreneaux.MOTS_PAR_JOUR; m++) libre[m] &= ~occupe[m];
+            }
+            for (int s = GrilleCreneaux.prochainUn(libre, 0, 0); s < GrilleCreneaux.CRENEAUX_PAR_JOUR; ) {
+                int e = GrilleCreneaux.prochainZero(libre, 0, s);
+                int minutes = (e - s) * GrilleCreneaux.MINUTES_PAR_CRENEAU;
+                c[base + INACTIVES] += minutes;
+                c[base + INTERVALLES + tranche(minutes)]++;
+                s = GrilleCreneaux.prochainUn(libre, 0, e);
+            }
+
+            // Cumul avec la veille
+            for (int x = 0; x < COMPTEURS; x++) c[base + x] += c[base - COMPTEURS + x];
+        }
+    }
+
+    /**
+     * Ajoute aux compteurs de chaque jour les consultations inscrites de la période, en un seul
+     * passage sur les colonnes (début, durée, statut, professionnel)
+     */
+    private void compterColonnes(LocalDateTime maintenant) {
+        // Indice de colonne du professionnel -> compteurs du rapport
+        int[][] parIndex = new int[0][];
+        for (int i = 0; i < pros.size(); i++) {
+            int index = colonnes.indexProfessionnel(pros.get(i));
+            if (index < 0) continue;
+            if (index >= parIndex.length) parIndex = Arrays.copyOf(parIndex, index + 1);
+            parIndex[index] = cumuls[i];
+        }
+        int[][] compteurs = parIndex;
+        int annulee = colonnes.codeStatut("annulée");
+        int programmee = colonnes.codeStatut("programmée");
+        int premiereMinute = ColonnesConsultations.minutes(debut.atStartOfDay());
+        // Une fin (minute entière) est avant maintenant si elle précède la minute suivant maintenant
+        int seuilEchues = ColonnesConsultations.minutes(maintenant)
+                + (maintenant.getSecond() > 0 || maintenant.getNano() > 0 ? 1 : 0);
+        colonnes.parcourir(debut, debut.plusDays(nombreJours - 1), l -> {
+            int index = l.getIndexProfessionnel();
+            if (index < 0 || index >= compteurs.length || compteurs[index] == null) return;
+            int[] c = compteurs[index];
+            int base = ((l.getDebutMinutes() - premiereMinute) / (24 * 60) + 1) * COMPTEURS;
+            if (l.getCodeStatut() == annulee) {
+                c[base + ANNULATIONS]++;
+                return;
+            }
+            c[base + CONSULTATIONS]++;
+            c[base + RESERVEES] += l.getDureeMinutes();
+            if (l.getFinMinutes() < seuilEchues) {
+                c[base + ECHUES]++;
+                if (l.getCodeStatut() == programmee) c[base + ABSENCES]++;
+            }
+        });
+    }
+
+    /**
+     * Ajoute aux compteurs de chaque jour les consultations archivées du professionnel (toutes closes :
+     * pas d'absence possible). Leurs créneaux sont déjà dans le calendrier d'occupation.
+     */
+    private void compterArchive(ProfessionnelSante pro, int[] c, LocalDateTime maintenant) {
+        int[] plage = archive.plageProfessionnel(pro.getLoginID());
+        LocalDateTime borneFin = debut.plusDays(nombreJours).atStartOfDay();
+        for (int p = archive.premiereAPartirDe(plage, false, debut.atStartOfDay()); p < plage[1]; p++) {
+            int ligne = archive.ligneProfessionnel(p);
+            LocalDateTime date = archive.getDateHeure(ligne);
+            if (!date.isBefore(borneFin)) break;
+            int base = (int) (date.toLocalDate().toEpochDay() - debut.toEpochDay() + 1) * COMPTEURS;
+            if ("annulée".equalsIgnoreCase(archive.getStatut(ligne))) {
+                c[base + ANNULATIONS]++;
+                continue;
+            }
+            int duree = archive.getDureeMinutes(ligne);
+            c[base + CONSULTATIONS]++;
+            c[base + RESERVEES] += duree;
+            if (date.plusMinutes(duree).isBefore(maintenant)) c[base + ECHUES]++;
+        }
+    }
+
+    private static int tranche(int minutes) {
+        int t = 0;
+        while (t < BORNES_INTERVALLES.length && minutes >= BORNES_INTERVALLES[t]) t++;
+        return t;
+    }
+
+    /**
+     * Rapport sur [du, au] (bornes incluses), ramenées à la période calculée
+     */
+    public RapportUtilisation rapport(LocalDate du, LocalDate au) {
+        int a = (int) Math.max(0, du.toEpochDay() - debut.toEpochDay());
+        int b = (int) Math.min(nombreJours, au.toEpochDay() - debut.toEpochDay() + 1);
+        RapportUtilisation rapport = new RapportUtilisation(debut.plusDays(a), debut.plusDays(Math.max(a, b) - 1));
+        for (int i = 0; i < pros.size(); i++) {
+            ProfessionnelSante pro = pros.get(i);
+            RapportUtilisation.Ligne ligne = new RapportUtilisation.Ligne(pro.getLoginID());
+            if (b > a) {
+                ligne.ajouter(cumuls[i], b * COMPTEURS, 1);
+                ligne.ajouter(cumuls[i], a * COMPTEURS, -1);
+            }
+            rapport.ajouterProfessionnel(ligne, pro.getSpecialite());
+        }
+        return rapport;
+    }
+
+    /**
+     * Rapport sur toute la période calculée
+     */
+    public RapportUtilisation rapport() {
+        return rapport(debut, debut.plusDays(nombreJours - 1));
+    }
+
+    /**
+     * Fenêtres glissantes de largeur jours, décalées de pas jours, sur la période calculée
+     */
+    public List<RapportUtilisation> rapportsGlissants(int largeur, int pas) {
+        List<RapportUtilisation> rapports = new ArrayList<>();
+        if (largeur <= 0 || pas <= 0) return rapports;
+        for (int j = 0; j + largeur <= nombreJours; j += pas) {
+            rapports.add(rapport(debut.plusDays(j), debut.plusDays(j + largeur - 1)));
+        }
+        return rapports;
+    }
+}
@@ -1,10 +1,10 @@
 package com.medipass.ui;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 import com.medipass.model.*;
 import com.medipass.service.*;
@@ -50,6 +50,12 @@ public class AdminUI implements MenuInterface {
             System.out.println("║ 1) Gestion des utilisateurs       ║");
             System.out.println("║ 2) Statistiques du système        ║");
             System.out.println("║ 3) Sauvegarder les données        ║");
+            System.out.println("║ 4) Planifier une campagne         ║");
+            System.out.println("║ 5) Auditer le planning            ║");
+            System.out.println("║ 6) Consultations par période      ║");
+            System.out.println("║ 7) Occupation des professionnels  ║");
+            System.out.println("║ 8) Exporter registre/statistiques ║");
+            System.out.println("║ 9) Archiver les consultations     ║");
             System.out.println("║ 0) Se déconnecter                 ║");
             System.out.println("╚═══════════════════════════════════╝");
             System.out.print("Votre choix: ");
@@ -62,6 +68,18 @@ public class AdminUI implements MenuInterface {
                     afficherStatistiques();
                 case "3" ->
                     sauvegarderDonnees();
+                case "4" ->
+                    planifierCampagne();
+                case "5" ->
+                    auditerPlanning();
+                case "6" ->
+                    afficherConsultationsParPeriode();
+                case "7" ->
+                    afficherOccupation();
+                case "8" ->
+                    exporterRapports();
+                case "9" ->
+                    archiverConsultations();
                 case "0" ->
                     continuer = false;
                 default ->
@@ -146,13 +164,10 @@ public class AdminUI implements MenuInterface {
         }
     }
     private void afficherStatistiques() {
-        System.out.println(statsService.afficherStatistiques(
-                patientService.getNombrePatients(),
-                adminService.getNombreProfessionnels(),
-                consultationService.getNombreConsultations(),
-                consultationService.getConsultations(),
-                adminService.getProfessionnels()
-        ));
+        System.out.println(statsService.afficherStatistiques(patientService.getNombrePatients()));
+        System.out.println(statsService.afficherAnalysesApprochees());
+        System.out.println(consultationService.getCachePlanning().afficherStatistiques());
+        System.out.println(patientService.getCacheDossiers().afficherStatistiques());
     }
 
     private void afficherConsultationsParPeriode() {
@@ -166,27 +181,57 @@ public class AdminUI implements MenuInterface {
             return;
         }
 
-        List<Consultation> consultationsPeriode = consultationService.getConsultationsParPeriode(
-                debut.atStartOfDay(), fin.atTime(23, 59));
+        CubeConsultations cube = statsService.getCube();
+        long[] total = cube.total(debut, fin);
 
         System.out.println("\n=== CONSULTATIONS DU " + debut + " AU " + fin + " ===");
-        System.out.println("Nombre total : " + consultationsPeriode.size());
-
-        Map<String, Long> parStatut = consultationsPeriode.stream()
-                .collect(Collectors.groupingBy(Consultation::getStatut, Collectors.counting()));
+        System.out.println("Nombre total : " + total[0] + " (" + total[1] / 60 + " h réservées)");
 
         System.out.println("\nPar statut :");
-        parStatut.forEach((statut, count) ->
-                System.out.println("  - " + statut + " : " + count));
+        cube.parStatut(debut, fin).forEach((statut, v) ->
+                System.out.println("  - " + statut + " : " + v[0]));
 
-        Map<String, Long> parPro = consultationsPeriode.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getProfessionnel().getNom() + " " + c.getProfessionnel().getPrenom(),
-                        Collectors.counting()));
+        System.out.println("\nPar spécialité :");
+        cube.parSpecialite(debut, fin).forEach((spec, v) ->
+                System.out.println("  - " + spec + " : " + v[0]));
 
         System.out.println("\nPar professionnel :");
-        parPro.forEach((pro, count) ->
-                System.out.println("  - " + pro + " : " + count));
+        cube.parProfessionnel(debut, fin).forEach((pro, v) ->
+                System.out.println("  - " + pro + " : " + v[0] + " (" + v[1] / 60 + " h)"));
+
+        CubeConsultations.Granularite granularite = fin.toEpochDay() - debut.toEpochDay() > 366
+                ? CubeConsultations.Granularite.ANNEE
+                : fin.toEpochDay() - debut.toEpochDay() > 62
+                ? CubeConsultations.Granularite.MOIS
+                : CubeConsultations.Granularite.SEMAINE;
+        System.out.println("\nÉvolution (" + granularite.name().toLowerCase() + ") :");
+        cube.cumul(granularite, debut, fin).forEach((date, v) ->
+                System.out.println("  - " + date + " : " + v[0]));
+    }
+
+    private void afficherOccupation() {
+        System.out.print("Date de début (YYYY-MM-DD): ");
+        LocalDate debut = parseDate(sc.nextLine().trim());
+        System.out.print("Date de fin (YYYY-MM-DD): ");
+        LocalDate fin = parseDate(sc.nextLine().trim());
+
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            System.out.println("❌ Dates invalides");
+            return;
+        }
+
+        UtilisationPlanning utilisation = new UtilisationPlanning(adminService.getProfessionnels(),
+                consultationService.getColonnes(), consultationService.getArchive(), debut, fin, LocalDateTime.now());
+        System.out.print(utilisation.rapport().afficher());
+
+        // Tendance : occupation sur 7 jours glissants, une fenêtre par semaine
+        List<RapportUtilisation> fenetres = utilisation.rapportsGlissants(7, 7);
+        if (fenetres.size() > 1) {
+            System.out.println("\n--- Occupation sur 7 jours glissants ---");
+            for (RapportUtilisation r : fenetres) {
+                System.out.println(String.format("- %s : %5.1f %%", r.getDebut(), 100 * r.getTotal().getTauxOccupation()));
+            }
+        }
     }
 
     private void afficherPlanningProfessionnel() {
@@ -205,7 +250,56 @@ public class AdminUI implements MenuInterface {
                 : parseDate(input);
 
         if (debut != null) {
-            System.out.println(consultationService.afficherPlanningSemaine(pro, debut));
+            consultationService.ecrirePlanningSemaine(System.out, pro, debut);
+        }
+    }
+
+    /* ===================== CAMPAGNES ===================== */
+
+    private void planifierCampagne() {
+        System.out.println("\n--- Planification d'une campagne (vaccination, dépistage) ---");
+        System.out.println("Format : patientId;specialite;motif;dureeMinutes;debut>fin|debut>fin (dates ISO)");
+        String fichier = lireChaine("Fichier des demandes: ");
+        List<DemandePlanification> demandes = dataService.loadDemandesPlanification(fichier, patientService.getPatients());
+        if (demandes.isEmpty()) {
+            System.out.println("Aucune demande à planifier.");
+            return;
+        }
+        int secondes = lireEntier("Temps de calcul maximal (secondes): ");
+
+        OptimiseurPlanning optimiseur = new OptimiseurPlanning(consultationService);
+        ResultatOptimisation solution = optimiseur.optimiser(demandes, adminService.getProfessionnels(),
+                Math.max(secondes, 1) * 1000L);
+        System.out.println(solution);
+        for (DemandePlanification d : solution.getNonPlacees()) {
+            System.out.println("  ✗ " + d);
+        }
+        if (solution.getPlacements().isEmpty()) {
+            return;
+        }
+
+        String confirmation = lireChaine("Réserver ces " + solution.getPlacements().size() + " rendez-vous ? (o/n): ");
+        if (confirmation.equalsIgnoreCase("o")) {
+            List<ResultatReservation> resultats = optimiseur.valider(solution, dataService);
+            long acceptees = resultats.stream().filter(ResultatReservation::estAcceptee).count();
+            System.out.println("✓ " + acceptees + " rendez-vous réservés sur " + resultats.size());
+            for (ResultatReservation r : resultats) {
+                if (!r.estAcceptee()) {
+                    System.out.println("  ✗ " + r);
+                }
+            }
+        } else {
+            System.out.println("Campagne non réservée.");
+        }
+    }
+
+    private void auditerPlanning() {
+        System.out.println("\n--- Audit du planning (chevauchements, références orphelines) ---");
+        RapportAudit rapport = new AuditPlanning().auditer(adminService.getProfessionnels(),
+                patientService.getPatients(), consultationService.getSeries(), dataService.getConsultationsOrphelines());
+        System.out.print(rapport.afficher(20));
+        if (rapport.estSain()) {
+            System.out.println("✓ Aucune anomalie détectée.");
         }
     }
 
@@ -224,6 +318,11 @@ public class AdminUI implements MenuInterface {
                         login, mdp, "PRO", nom, prenom, specialite,
                         "NUM" + System.currentTimeMillis() % 10000);
 
+        String horaires = lireChaine("Horaires (ex: lun-ven 9h-12h, 14h-18h) [Entrée pour 9h-17h]: ");
+        while (!horaires.isEmpty() && !pro.setHorairesDisponibilite(horaires)) {
+            horaires = lireChaine("Horaires (ex: lun-ven 9h-12h, 14h-18h) [Entrée pour 9h-17h]: ");
+        }
+
         if (adminService.creerCompte(pro)) {
             System.out.println("✓ Professionnel créé. Vous pouvez maintenant vous connecter.");
             sauvegarderDonnees();
@@ -265,10 +364,66 @@ public class AdminUI implements MenuInterface {
         dataService.savePatients(patientService.getPatients());
         dataService.saveProfessionnels(adminService.getProfessionnels());
         dataService.saveConsultations(consultationService.getConsultations());
+        dataService.saveSeries(consultationService.getSeries());
+        dataService.saveListeAttente(consultationService.getListeAttente().getDemandes());
         dataService.saveAntecedents(patientService.getPatients());
+        dataService.saveIndexTexte(patientService.getIndexTexte(),
+                consultationService.getConsultations(), patientService.getPatients());
         System.out.println("(Données sauvegardées)");
     }
 
+    private void exporterRapports() {
+        System.out.print("Date de début (YYYY-MM-DD): ");
+        LocalDate debut = parseDate(sc.nextLine().trim());
+        System.out.print("Date de fin (YYYY-MM-DD): ");
+        LocalDate fin = parseDate(sc.nextLine().trim());
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            System.out.println("❌ Dates invalides");
+            return;
+        }
+
+        String choixFormat = lireChaine("Format (csv/json) [csv]: ").toLowerCase();
+        ExportRapports.Format format = choixFormat.equals("json") ? ExportRapports.Format.JSON : ExportRapports.Format.CSV;
+        boolean gzip = lireChaine("Compresser en gzip ? (o/n) [n]: ").equalsIgnoreCase("o");
+        String extension = "." + format.name().toLowerCase() + (gzip ? ".gz" : "");
+        String suffixe = "_" + debut + "_" + fin + extension;
+
+        ExportRapports export = new ExportRapports();
+        ResultatExport registre = export.exporterRegistre(adminService.getProfessionnels(),
+                consultationService.getArchive(), debut, fin,
+                Path.of("registre" + suffixe), format, gzip);
+        ResultatExport statistiques = export.exporterStatistiques(statsService.getCube(), debut, fin,
+                Path.of("statistiques" + suffixe), format, gzip);
+        if (registre != null) System.out.println("✓ " + registre);
+        if (statistiques != null) System.out.println("✓ " + statistiques);
+    }
+
+    /**
+     * Déplace les consultations closes (effectuées ou annulées) plus anciennes que N jours vers l'archive
+     */
+    private void archiverConsultations() {
+        String saisie = lireChaine("Archiver les consultations closes depuis plus de combien de jours ? [90]: ");
+        int jours;
+        try {
+            jours = saisie.isEmpty() ? 90 : Integer.parseInt(saisie);
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Veuillez entrer un nombre entier valide.");
+            return;
+        }
+        if (jours < 0) {
+            System.out.println("❌ Nombre de jours invalide");
+            return;
+        }
+
+        int n = consultationService.archiverConsultations(LocalDateTime.now().minusDays(jours));
+        if (n < 0) {
+            System.out.println("❌ Archivage impossible");
+            return;
+        }
+        System.out.println("✓ " + n + " consultation(s) archivée(s) (" + consultationService.getArchive().taille() + " au total)");
+        if (n > 0) sauvegarderDonnees();
+    }
+
     /* ===================== UTILITAIRES ===================== */
 
     private String lireChaine(String prompt) {
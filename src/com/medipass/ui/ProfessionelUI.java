@@ -3,8 +3,12 @@ package com.medipass.ui;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.medipass.model.*;
 import com.medipass.service.*;
@@ -15,10 +19,13 @@ import com.medipass.user.ProfessionnelSante;
  */
 public class ProfessionelUI implements MenuInterface {
 
+    private static final int TAILLE_PAGE = 20;
+
     private final Scanner sc;
     private final ProfessionnelSante professionnel;
     private final PatientService patientService;
     private final ConsultationService consultationService;
+    private final AdministrateurService adminService;
     private final DataService dataService;
     private final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     private final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -27,11 +34,13 @@ public class ProfessionelUI implements MenuInterface {
                           ProfessionnelSante professionnel,
                           PatientService patientService,
                           ConsultationService consultationService,
+                          AdministrateurService adminService,
                           DataService dataService) {
         this.sc = sc;
         this.professionnel = professionnel;
         this.patientService = patientService;
         this.consultationService = consultationService;
+        this.adminService = adminService;
         this.dataService = dataService;
     }
 
@@ -48,6 +57,10 @@ public class ProfessionelUI implements MenuInterface {
             System.out.println("║ 3) Voir mon planning                ║");
             System.out.println("║ 4) Clôturer une consultation        ║");
             System.out.println("║ 5) Voir antécédents patient         ║");
+            System.out.println("║ 6) Chercher un créneau libre        ║");
+            System.out.println("║ 7) Programmer une série récurrente  ║");
+            System.out.println("║ 8) Liste d'attente                  ║");
+            System.out.println("║ 9) Programmer par spécialité        ║");
             System.out.println("║ 0) Se déconnecter                   ║");
             System.out.println("╚═════════════════════════════════════╝");
             System.out.print("Votre choix: ");
@@ -59,11 +72,19 @@ public class ProfessionelUI implements MenuInterface {
                 case "2" ->
                     programmerConsultation();
                 case "3" ->
-                    afficherPlanning();
+                    menuPlanning();
                 case "4" ->
                     clotureConsultation();
                 case "5" ->
                     afficherAntecedentsPatient();
+                case "6" ->
+                    chercherCreneauxLibres();
+                case "7" ->
+                    programmerSerie();
+                case "8" ->
+                    menuListeAttente();
+                case "9" ->
+                    programmerParSpecialite();
                 case "0" ->
                     continuer = false;
                 default ->
@@ -85,6 +106,7 @@ public class ProfessionelUI implements MenuInterface {
             System.out.println("║ 3) Consulter dossier patient       ║");
             System.out.println("║ 4) Modifier patient                ║");
             System.out.println("║ 5) Ajouter antécédent              ║");
+            System.out.println("║ 6) Rechercher dans les dossiers    ║");
             System.out.println("║ 0) Retour                          ║");
             System.out.println("╚════════════════════════════════════╝");
             System.out.print("Votre choix: ");
@@ -101,6 +123,8 @@ public class ProfessionelUI implements MenuInterface {
                     modifierPatient();
                 case "5" ->
                     ajouterAntecedent();
+                case "6" ->
+                    rechercherDossiers();
                 case "0" ->
                     continuer = false;
                 default ->
@@ -139,6 +163,21 @@ public class ProfessionelUI implements MenuInterface {
         System.out.println(patientService.afficherInfoPatient(id));
     }
 
+    private void rechercherDossiers() {
+        System.out.println("Mots (tous requis), \"expression exacte\", -mot pour exclure, OU entre deux recherches");
+        String requete = lireChaine("Recherche: ");
+        if (requete.isEmpty()) {
+            return;
+        }
+        List<IndexTexte.Resultat> resultats = patientService.getIndexTexte().rechercher(requete, TAILLE_PAGE);
+        if (resultats.isEmpty()) {
+            System.out.println("Aucun résultat");
+            return;
+        }
+        System.out.println("\n=== RÉSULTATS (" + resultats.size() + " plus pertinents) ===");
+        resultats.forEach(System.out::println);
+    }
+
     private void modifierPatient() {
         int id = lireEntier("ID du patient: ");
         String nom = lireChaine("Nouveau nom (ou vide): ");
@@ -157,42 +196,22 @@ public class ProfessionelUI implements MenuInterface {
         }
     }
 
-    private void ajouterAntecedent() {
-        int patientId = lireEntier("ID du patient: ");
-        String type = lireChaine("Type d'antécédent (allergie, maladie, intervention, etc.): ");
-        String description = lireChaine("Description: ");
-        String gravite = lireChaine("Gravité (bénin, modéré, grave): ");
-
-        Antecedent antecedent = new Antecedent(type, description, LocalDate.now(), gravite, true);
-        if (patientService.ajouterAntecedentAuPatient(patientId, antecedent)) {
-            System.out.println("✓ Antécédent ajouté");
-            sauvegarderDonnees();
-        } else {
-            System.out.println("❌ Patient non trouvé");
-        }
-    }
-
     private void listerPatients() {
         System.out.println("\n=== LISTE DES PATIENTS ===");
-        List<Patient> patients = patientService.getPatients();
-        if (patients.isEmpty()) {
+        if (patientService.getNombrePatients() == 0) {
             System.out.println("Aucun patient enregistré");
-        } else {
-            for (Patient p : patients) {
-                System.out.printf("[%d] %s %s%n", p.getId(), p.getNom(), p.getPrenom());
-            }
+            return;
         }
+        String ordre = lireChaine("Trier par (1) ID ou (2) nom [Entrée pour ID]: ");
+        PatientService.Tri tri = ordre.equals("2") ? PatientService.Tri.NOM : PatientService.Tri.ID;
+        paginer(curseur -> patientService.pagePatients(tri, curseur, TAILLE_PAGE),
+                p -> System.out.printf("[%d] %s %s%n", p.getId(), p.getNom(), p.getPrenom()));
     }
 
 
     // generate un Id en auto en fonction du dernier patient de la liste
     private int generatedID() {
-        List<Patient> patients = patientService.getPatients();
-        if (patients.isEmpty()) {
-            return 1;
-        } else {
-            return patients.get(patients.size()-1).getId()+1;
-        }
+        return patientService.getIdMaximal() + 1;
     }
 
     // consultations professionnel de sante
@@ -219,21 +238,237 @@ public class ProfessionelUI implements MenuInterface {
 
         String motif = lireChaine("Motif: ");
 
-        if (consultationService.programmerConsultation(dateHeure, motif, professionnel, patient)) {
-            List<Consultation> all = consultationService.getConsultations();
-            if (!all.isEmpty()) {
-                Consultation created = all.get(all.size() - 1);
-                created.setDureeMinutes(duree);
-            }
+        if (consultationService.programmerConsultation(dateHeure, motif, professionnel, patient, duree)) {
             System.out.println("✓ Consultation programmée");
+            afficherAlerteRisque(patient);
             sauvegarderDonnees();
         } else {
             System.out.println("❌ Impossible de programmer (conflit horaire ou erreur)");
         }
     }
 
+    private void chercherCreneauxLibres() {
+        System.out.println("\n--- Recherche de créneaux libres ---");
+        String specialite = lireChaine("Spécialité [Entrée pour " + professionnel.getSpecialite() + "]: ");
+        if (specialite.isEmpty()) {
+            specialite = professionnel.getSpecialite();
+        }
+
+        List<ProfessionnelSante> pros = adminService.findProfessionnelsBySpecialite(specialite);
+        if (pros.isEmpty()) {
+            System.out.println("❌ Aucun professionnel pour cette spécialité");
+            return;
+        }
+
+        int duree = lireEntier("Durée en minutes (défaut 30): ");
+        if (duree <= 0) {
+            duree = 30;
+        }
+        int nombre = lireEntier("Nombre de créneaux souhaités: ");
+        if (nombre <= 0) {
+            nombre = 5;
+        }
+
+        System.out.print("À partir du (YYYY-MM-DD HH:MM) [Entrée pour maintenant]: ");
+        String input = sc.nextLine().trim();
+        LocalDateTime apres = LocalDateTime.now();
+        if (!input.isEmpty()) {
+            try {
+                apres = LocalDateTime.parse(input, DATETIME_FORMATTER);
+            } catch (Exception e) {
+                System.out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd HH:mm'");
+                return;
+            }
+        }
+
+        List<CreneauLibre> creneaux = consultationService.trouverCreneauxLibres(pros, apres, duree, nombre, 90);
+        System.out.println("\n=== CRÉNEAUX LIBRES (" + specialite + ") ===");
+        if (creneaux.isEmpty()) {
+            System.out.println("Aucun créneau libre sur les 90 prochains jours");
+        } else {
+            for (CreneauLibre c : creneaux) {
+                System.out.println("  " + c);
+            }
+        }
+    }
+
+    private void programmerParSpecialite() {
+        System.out.println("\n--- Programmation avec le professionnel le moins chargé ---");
+        int patientId = lireEntier("ID du patient: ");
+        Patient patient = patientService.findPatientById(patientId);
+        if (patient == null) {
+            System.out.println("❌ Patient non trouvé");
+            return;
+        }
+
+        String specialite = lireChaine("Spécialité: ");
+        List<ProfessionnelSante> pros = adminService.findProfessionnelsBySpecialite(specialite);
+        if (pros.isEmpty()) {
+            System.out.println("❌ Aucun professionnel pour cette spécialité");
+            return;
+        }
+
+        LocalDateTime debut = lireDateHeure("Début de la fenêtre (YYYY-MM-DD HH:MM): ");
+        LocalDateTime fin = debut == null ? null : lireDateHeure("Fin de la fenêtre (YYYY-MM-DD HH:MM): ");
+        if (fin == null) {
+            return;
+        }
+        int duree = lireEntier("Durée en minutes (défaut 30): ");
+        if (duree <= 0) {
+            duree = 30;
+        }
+        String motif = lireChaine("Motif: ");
+
+        Consultation c = consultationService.programmerParSpecialite(pros, specialite, debut, fin, duree, motif, patient);
+        if (c != null) {
+            System.out.println("✓ Consultation programmée :\n" + c);
+            afficherAlerteRisque(patient);
+            sauvegarderDonnees();
+        } else {
+            System.out.println("❌ Impossible de programmer sur cette fenêtre");
+        }
+    }
+
+    private void programmerSerie() {
+        System.out.println("\n--- Programmation d'une série de consultations ---");
+        int patientId = lireEntier("ID du patient: ");
+
+        Patient patient = patientService.findPatientById(patientId);
+        if (patient == null) {
+            System.out.println("❌ Patient non trouvé");
+            return;
+        }
+
+        LocalDateTime premiere = lireDateHeure("Première consultation (YYYY-MM-DD HH:MM): ");
+        if (premiere == null) {
+            return;
+        }
+
+        int duree = lireEntier("Durée en minutes (défaut 30): ");
+        if (duree <= 0) {
+            duree = 30;
+        }
+        String motif = lireChaine("Motif: ");
+
+        System.out.println("Fréquence : 1) Quotidienne  2) Hebdomadaire  3) Mensuelle");
+        RegleRecurrence.Frequence frequence;
+        switch (lireChaine("Votre choix (1-3): ")) {
+            case "1" -> frequence = RegleRecurrence.Frequence.QUOTIDIENNE;
+            case "3" -> frequence = RegleRecurrence.Frequence.MENSUELLE;
+            default -> frequence = RegleRecurrence.Frequence.HEBDOMADAIRE;
+        }
+        int intervalle = lireEntier("Intervalle (ex: 2 = une fois sur deux): ");
+        int nombre = lireEntier("Nombre d'occurrences (0 pour utiliser une date de fin): ");
+        LocalDate jusqua = nombre > 0 ? null : lireDate("Date de fin incluse (yyyy-MM-dd): ");
+
+        RegleRecurrence regle;
+        try {
+            regle = new RegleRecurrence(frequence, Math.max(intervalle, 1), nombre, jusqua);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+
+        SerieConsultations serie = consultationService.programmerSerie(premiere, motif, professionnel, patient, duree, regle);
+        if (serie != null) {
+            System.out.println("✓ Série programmée : " + serie.getNombreOccurrences() + " occurrences (Série " + serie.getIdSerie() + ")");
+            afficherAlerteRisque(patient);
+            sauvegarderDonnees();
+        } else {
+            System.out.println("❌ Impossible de programmer la série (conflit horaire ou erreur)");
+        }
+    }
+
+    /**
+     * Rappelle les indicateurs de risque du patient après une réservation
+     */
+    private void afficherAlerteRisque(Patient patient) {
+        int risques = patient.getDossierMedical().getDrapeauxRisque();
+        if (risques != 0) {
+            System.out.println("⚠️ Patient à risque : " + DrapeauRisque.libelles(risques));
+        }
+    }
+
+    private void menuListeAttente() {
+        System.out.println("\n╔═══════════════════════════════════════╗");
+        System.out.println("║  LISTE D'ATTENTE                      ║");
+        System.out.println("╠═══════════════════════════════════════╣");
+        System.out.println("║ 1) Inscrire un patient                ║");
+        System.out.println("║ 2) Afficher la liste                  ║");
+        System.out.println("║ 3) Retirer une demande                ║");
+        System.out.println("║ 0) Retour                             ║");
+        System.out.println("╚═══════════════════════════════════════╝");
+        System.out.print("Votre choix: ");
+        String choix = sc.nextLine().trim();
+
+        switch (choix) {
+            case "1" -> inscrireListeAttente();
+            case "2" -> {
+                List<DemandeAttente> demandes = consultationService.getListeAttente().getDemandes();
+                System.out.println("\n=== LISTE D'ATTENTE (" + demandes.size() + ") ===");
+                for (DemandeAttente d : demandes) {
+                    System.out.println(d);
+                }
+            }
+            case "3" -> {
+                ListeAttente liste = consultationService.getListeAttente();
+                DemandeAttente d = liste.findDemandeById(lireEntier("ID de la demande: "));
+                if (d != null && liste.retirer(d)) {
+                    System.out.println("✓ Demande retirée");
+                    sauvegarderDonnees();
+                } else {
+                    System.out.println("❌ Demande non trouvée");
+                }
+            }
+            case "0" -> {}
+            default -> System.out.println("❌ Choix invalide");
+        }
+    }
+
+    private void inscrireListeAttente() {
+        int patientId = lireEntier("ID du patient: ");
+        Patient patient = patientService.findPatientById(patientId);
+        if (patient == null) {
+            System.out.println("❌ Patient non trouvé");
+            return;
+        }
+
+        String cible = lireChaine("Attente pour 1) moi-même ou 2) toute la spécialité ? [1]: ");
+        String specialite = null;
+        ProfessionnelSante pro = professionnel;
+        if ("2".equals(cible)) {
+            pro = null;
+            specialite = lireChaine("Spécialité [Entrée pour " + professionnel.getSpecialite() + "]: ");
+            if (specialite.isEmpty()) {
+                specialite = professionnel.getSpecialite();
+            }
+        }
+
+        int duree = lireEntier("Durée en minutes (défaut 30): ");
+        String motif = lireChaine("Motif: ");
+        int urgence = lireEntier("Urgence (1 = faible ... 5 = maximale): ");
+
+        DemandeAttente demande = new DemandeAttente(patient, pro, specialite, motif, duree, urgence, LocalDateTime.now());
+        if (consultationService.getListeAttente().ajouter(demande)) {
+            System.out.println("✓ Patient inscrit en liste d'attente (demande " + demande.getIdDemande() + ")");
+            sauvegarderDonnees();
+        } else {
+            System.out.println("❌ Demande invalide");
+        }
+    }
+
     private void clotureConsultation() {
-        int id = lireEntier("ID de la consultation: ");
+        int id = lireEntier("ID de la consultation (0 pour une occurrence de série): ");
+        if (id == 0) {
+            int idSerie = lireEntier("ID de la série: ");
+            LocalDateTime date = lireDateHeure("Date et heure de l'occurrence (YYYY-MM-DD HH:MM): ");
+            Consultation occurrence = date == null ? null : consultationService.materialiserOccurrence(idSerie, date);
+            if (occurrence == null) {
+                System.out.println("❌ Occurrence non trouvée");
+                return;
+            }
+            id = occurrence.getIdConsultation();
+        }
         String observations = lireChaine("Observations: ");
         String diagnostic = lireChaine("Diagnostic: ");
 
@@ -265,6 +500,12 @@ public class ProfessionelUI implements MenuInterface {
 
         if (consultationService.annulerConsultation(id)) {
             System.out.println("✓ Consultation annulée");
+            // Créneau libéré : réattribué automatiquement à la liste d'attente
+            for (Consultation c : consultationService.getListeAttente().reservationsApresAnnulation(consultation)) {
+                System.out.println("✓ Liste d'attente : " + c.getPatient().getNom() + " "
+                        + c.getPatient().getPrenom() + " programmé(e) le " + c.getDateHeure()
+                        + " avec Dr." + c.getProfessionnel().getNom());
+            }
             sauvegarderDonnees();
         } else {
             System.out.println("❌ Erreur lors de l'annulation");
@@ -300,14 +541,11 @@ public class ProfessionelUI implements MenuInterface {
 
     private void afficherPlanningComplet() {
         System.out.println("\n=== PLANNING COMPLET DE " + professionnel.getNom() + " " + professionnel.getPrenom() + " ===");
-        List<Consultation> planning = professionnel.getPlanning();
-        if (planning.isEmpty()) {
+        if (professionnel.getPlanning().isEmpty()) {
             System.out.println("Aucune consultation programmée");
         } else {
-            planning.stream()
-                .filter(c -> !"annulée".equalsIgnoreCase(c.getStatut()))
-                .sorted((c1, c2) -> c1.getDateHeure().compareTo(c2.getDateHeure()))
-                .forEach(c -> System.out.println(c));
+            paginer(curseur -> consultationService.pagePlanning(professionnel, curseur, TAILLE_PAGE),
+                    System.out::println);
         }
     }
 
@@ -329,7 +567,7 @@ public class ProfessionelUI implements MenuInterface {
             parseDate(input);
         
         if (dateDebut != null) {
-            System.out.println(consultationService.afficherPlanningSemaine(professionnel, dateDebut));
+            consultationService.ecrirePlanningSemaine(System.out, professionnel, dateDebut);
         }
     }
 
@@ -342,7 +580,7 @@ public class ProfessionelUI implements MenuInterface {
         String moisStr = sc.nextLine().trim();
         int mois = moisStr.isEmpty() ? LocalDate.now().getMonthValue() : Integer.parseInt(moisStr);
         
-        System.out.println(consultationService.afficherPlanningMois(professionnel, annee, mois));
+        consultationService.ecrirePlanningMois(System.out, professionnel, annee, mois);
     }
 
     private void afficherPlanningPersonnalise() {
@@ -352,8 +590,8 @@ public class ProfessionelUI implements MenuInterface {
         LocalDate fin = parseDate(sc.nextLine().trim());
         
         if (debut != null && fin != null) {
-            System.out.println(consultationService.afficherPlanningPeriode(
-                professionnel, debut.atStartOfDay(), fin.atTime(23, 59)));
+            consultationService.ecrirePlanningPeriode(System.out,
+                professionnel, debut.atStartOfDay(), fin.atTime(23, 59));
         }
     }
 
@@ -366,6 +604,8 @@ public class ProfessionelUI implements MenuInterface {
         System.out.println("║ 1) Voir antécédents d'un patient      ║");
         System.out.println("║ 2) Ajouter un antécédent              ║");
         System.out.println("║ 3) Voir historique complet patient    ║");
+        System.out.println("║ 4) Désactiver un antécédent           ║");
+        System.out.println("║ 5) Patients à risque                  ║");
         System.out.println("║ 0) Retour                             ║");
         System.out.println("╚═══════════════════════════════════════╝");
         System.out.print("Votre choix: ");
@@ -375,6 +615,8 @@ public class ProfessionelUI implements MenuInterface {
             case "1" -> afficherAntecedentsPatient();
             case "2" -> ajouterAntecedent();
             case "3" -> afficherHistoriqueComplet();
+            case "4" -> desactiverAntecedent();
+            case "5" -> listerPatientsARisque();
             case "0" -> {}
             default -> System.out.println("❌ Choix invalide");
         }
@@ -399,6 +641,55 @@ public class ProfessionelUI implements MenuInterface {
                 System.out.println(a);
             }
         }
+        int risques = patient.getDossierMedical().getDrapeauxRisque();
+        if (risques != 0) {
+            System.out.println("⚠️ Risques : " + DrapeauRisque.libelles(risques));
+        }
+    }
+
+    private void desactiverAntecedent() {
+        int patientId = lireEntier("ID du patient: ");
+        int antecedentId = lireEntier("ID de l'antécédent: ");
+        if (patientService.desactiverAntecedent(patientId, antecedentId)) {
+            System.out.println("✓ Antécédent désactivé");
+            sauvegarderDonnees();
+        } else {
+            System.out.println("❌ Antécédent introuvable ou déjà inactif");
+        }
+    }
+
+    private void listerPatientsARisque() {
+        DrapeauRisque[] drapeaux = DrapeauRisque.values();
+        System.out.println("\nIndicateurs :");
+        for (int i = 0; i < drapeaux.length; i++) {
+            System.out.printf("  %d) %s (%d patients)%n", i + 1, drapeaux[i].getLibelle(),
+                    patientService.getRegistreRisques().compter(drapeaux[i]));
+        }
+        Set<DrapeauRisque> requis = lireDrapeaux("Indicateurs requis (ex: 1,3): ", drapeaux);
+        Set<DrapeauRisque> exclus = lireDrapeaux("Indicateurs exclus (ou vide): ", drapeaux);
+        if (requis.isEmpty()) {
+            System.out.println("❌ Au moins un indicateur requis");
+            return;
+        }
+        List<Patient> patients = patientService.filtrerParRisques(requis, exclus);
+        System.out.println("\n=== " + patients.size() + " PATIENT(S) ===");
+        for (Patient p : patients) {
+            System.out.printf("[%d] %s %s - %s%n", p.getId(), p.getNom(), p.getPrenom(),
+                    DrapeauRisque.libelles(p.getDossierMedical().getDrapeauxRisque()));
+        }
+    }
+
+    private Set<DrapeauRisque> lireDrapeaux(String prompt, DrapeauRisque[] drapeaux) {
+        Set<DrapeauRisque> choisis = EnumSet.noneOf(DrapeauRisque.class);
+        for (String numero : lireChaine(prompt).split("[,\\s]+")) {
+            try {
+                int i = Integer.parseInt(numero.trim()) - 1;
+                if (i >= 0 && i < drapeaux.length) choisis.add(drapeaux[i]);
+            } catch (NumberFormatException e) {
+                // Entrée vide ou non numérique ignorée
+            }
+        }
+        return choisis;
     }
 
     private void ajouterAntecedent() {
@@ -490,33 +781,42 @@ public class ProfessionelUI implements MenuInterface {
         System.out.println("Numéro SS: " + patient.getNumeroSecuriteSociale());
         System.out.println("Groupe sanguin: " + patient.getGroupeSanguin());
         
-        // Antécédents
-        System.out.println("\n=== ANTÉCÉDENTS ===");
-        List<Antecedent> antecedents = patient.getDossierMedical().getAntecedents();
-        if (antecedents.isEmpty()) {
-            System.out.println("Aucun antécédent enregistré");
-        } else {
-            for (Antecedent a : antecedents) {
-                System.out.println(a);
-            }
+        int risques = patient.getDossierMedical().getDrapeauxRisque();
+        if (risques != 0) {
+            System.out.println("⚠️ Risques: " + DrapeauRisque.libelles(risques));
         }
-        
-        // Consultations
-        System.out.println("\n=== CONSULTATIONS ===");
-        List<Consultation> consultations = patient.getDossierMedical().getConsultations();
-        if (consultations.isEmpty()) {
-            System.out.println("Aucune consultation enregistrée");
+
+        // Consultations et antécédents, du plus récent au plus ancien
+        System.out.println("\n=== CHRONOLOGIE ===");
+        DossierMedical dossier = patient.getDossierMedical();
+        if (dossier.getConsultations().isEmpty() && dossier.getNombreConsultationsArchivees() == 0
+                && dossier.getAntecedents().isEmpty()) {
+            System.out.println("Aucune consultation ni antécédent enregistré");
         } else {
-            for (Consultation c : consultations) {
-                System.out.println("\n" + c);
-                if (c.getObservations() != null && !c.getObservations().isEmpty()) {
-                    System.out.println("  Observations: " + c.getObservations());
-                }
-                if (c.getDiagnostic() != null && !c.getDiagnostic().isEmpty()) {
-                    System.out.println("  Diagnostic: " + c.getDiagnostic());
-                }
+            // Chaque page rendue est gardée en cache tant que le dossier ne change pas
+            paginer(curseur -> {
+                Page<ElementChronologie> page = patientService.pageChronologie(patient, curseur, TAILLE_PAGE);
+                String texte = patientService.getCacheDossiers().obtenir(patient, "chronologie " + curseur,
+                        () -> rendrePageChronologie(page));
+                return new Page<>(List.of(texte), page.getCurseurSuivant());
+            }, System.out::print);
+        }
+    }
+
+    private static String rendrePageChronologie(Page<ElementChronologie> page) {
+        StringBuilder sb = new StringBuilder();
+        for (ElementChronologie e : page.getElements()) {
+            sb.append("\n").append(e).append("\n");
+            Consultation c = e.getConsultation();
+            if (c == null) continue;
+            if (c.getObservations() != null && !c.getObservations().isEmpty()) {
+                sb.append("  Observations: ").append(c.getObservations()).append("\n");
+            }
+            if (c.getDiagnostic() != null && !c.getDiagnostic().isEmpty()) {
+                sb.append("  Diagnostic: ").append(c.getDiagnostic()).append("\n");
             }
         }
+        return sb.toString();
     }
 
     /* ===================== SAUVEGARDE ===================== */
@@ -524,11 +824,34 @@ public class ProfessionelUI implements MenuInterface {
     private void sauvegarderDonnees() {
         dataService.savePatients(patientService.getPatients());
         dataService.saveConsultations(consultationService.getConsultations());
+        dataService.saveSeries(consultationService.getSeries());
+        dataService.saveListeAttente(consultationService.getListeAttente().getDemandes());
         dataService.saveAntecedents(patientService.getPatients());
+        dataService.saveIndexTexte(patientService.getIndexTexte(),
+                consultationService.getConsultations(), patientService.getPatients());
         System.out.println("(Données sauvegardées)");
     }
 
     /* ===================== UTILITAIRES ===================== */
+
+    /**
+     * Affiche les résultats page par page, tant que l'utilisateur demande la suite
+     */
+    private <T> void paginer(Function<String, Page<T>> source, Consumer<T> affichage) {
+        String curseur = null;
+        while (true) {
+            Page<T> page = source.apply(curseur);
+            page.getElements().forEach(affichage);
+            if (!page.aSuivante()) {
+                break;
+            }
+            String suite = lireChaine("-- [Entrée] page suivante, [q] arrêter: ");
+            if (suite.equalsIgnoreCase("q")) {
+                break;
+            }
+            curseur = page.getCurseurSuivant();
+        }
+    }
     
     private String lireChaine(String prompt) {
         System.out.print(prompt);
@@ -560,6 +883,15 @@ public class ProfessionelUI implements MenuInterface {
         }
     }
 
+    private LocalDate parseDate(String input) {
+        try {
+            return LocalDate.parse(input, DATE_FORMATTER);
+        } catch (Exception e) {
+            System.out.println("❌ Format invalide (utilisez YYYY-MM-DD)");
+            return null;
+        }
+    }
+
     private LocalDate lireDate(String prompt) {
         while (true) {
             try {
@@ -2,32 +2,38 @@ package com.medipass.user;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.time.LocalDateTime;
 
 import com.medipass.model.Antecedent;
+import com.medipass.model.CalendrierOccupation;
 import com.medipass.model.Consultation;
+import com.medipass.model.Dictionnaire;
+import com.medipass.model.HorairesHebdomadaires;
 import com.medipass.model.Patient;
 
 /**
  * Professionnel de santé (médecin, infirmier, pharmacien, etc.).
- * Possède un planning simple (liste de consultations) et peut gérer les antécédents.
+ * Possède un planning (liste de consultations triée par date) et peut gérer les antécédents.
  */
 public class ProfessionnelSante extends Utilisateur {
     private final String specialite;
     private final String numeroOrdre;
     private final List<Consultation> planning = new ArrayList<>();
+    private final CalendrierOccupation occupation = new CalendrierOccupation();
     private String horairesDisponibilite;  // ex: "9h-12h, 14h-18h"
+    private HorairesHebdomadaires horaires = HorairesHebdomadaires.PAR_DEFAUT;  // masque analysé
 
     public ProfessionnelSante(String loginID, String mdp, String role, String specialite, String numeroOrdre) {
         super(loginID, mdp, role);
-        this.specialite = specialite;
+        this.specialite = Dictionnaire.interner(specialite);
         this.numeroOrdre = numeroOrdre;
         this.horairesDisponibilite = "9h-17h";  // Par défaut
     }
 
     public ProfessionnelSante(String loginID, String mdp, String role, String nom, String prenom, String specialite, String numeroOrdre) {
         super(loginID, mdp, role, nom, prenom);
-        this.specialite = specialite;
+        this.specialite = Dictionnaire.interner(specialite);
         this.numeroOrdre = numeroOrdre;
         this.horairesDisponibilite = "9h-17h";
     }
@@ -40,10 +46,19 @@ public class ProfessionnelSante extends Utilisateur {
     }
 
     /**
-     * Ajoute une consultation au planning
+     * Ajoute une consultation au planning (maintenu trié par date de début)
      */
     public void ajouterConsultation(Consultation c){
-        planning.add(c);
+        Consultation.insererParDate(planning, c);
+        c.inscrire();
+    }
+
+    /**
+     * Index dans le planning de la première consultation qui commence à partir de la date donnée
+     * (recherche dichotomique, planning.size() s'il n'y en a pas)
+     */
+    public int indexPremiereConsultation(LocalDateTime date){
+        return Consultation.indexPremiere(planning, date);
     }
 
     /**
@@ -59,6 +74,13 @@ public class ProfessionnelSante extends Utilisateur {
         return false;
     }
 
+    /**
+     * Retire du planning des consultations désormais lues dans l'archive (créneaux conservés)
+     */
+    public void retirerArchivees(Set<Consultation> archivees){
+        planning.removeIf(archivees::contains);
+    }
+
     /**
      * Récupère le planning complet
      */
@@ -87,25 +109,18 @@ public class ProfessionnelSante extends Utilisateur {
     }
 
     /**
-     * Vérification de disponibilité avec gestion des chevauchements
+     * Vérification de disponibilité avec gestion des chevauchements.
+     * Test direct sur le calendrier d'occupation (bitset de créneaux de 5 minutes par jour).
      */
     public boolean estDisponiblePour(Consultation nouvelleConsultation){
-        LocalDateTime debut1 = nouvelleConsultation.getDateHeure();
-        LocalDateTime fin1 = nouvelleConsultation.getFinConsultation();
-
-        for (Consultation existante : planning) {
-            // Ignorer les consultations annulées
-            if ("annulée".equalsIgnoreCase(existante.getStatut())) continue;
-
-            LocalDateTime debut2 = existante.getDateHeure();
-            LocalDateTime fin2 = existante.getFinConsultation();
+        return occupation.estLibre(nouvelleConsultation.getDateHeure(), nouvelleConsultation.getDureeMinutes());
+    }
 
-            // Test de chevauchement: (StartA < EndB) and (EndA > StartB)
-            if (debut1.isBefore(fin2) && fin1.isAfter(debut2)) {
-                return false; // Conflit trouvé
-            }
-        }
-        return true;
+    /**
+     * Calendrier d'occupation, tenu à jour par les consultations du planning
+     */
+    public CalendrierOccupation getOccupation(){
+        return occupation;
     }
 
     // Getters
@@ -121,9 +136,39 @@ public class ProfessionnelSante extends Utilisateur {
         return horairesDisponibilite;
     }
 
+    public HorairesHebdomadaires getHoraires(){
+        return horaires;
+    }
+
+    /**
+     * Vérifie qu'un créneau est entièrement dans les horaires de disponibilité
+     */
+    public boolean estDansHoraires(LocalDateTime debut, int dureeMinutes){
+        return horaires.couvre(debut, dureeMinutes);
+    }
+
     // Setters
-    public void setHorairesDisponibilite(String horaires){
-        this.horairesDisponibilite = horaires;
+    /**
+     * Modifie les horaires ; le texte est analysé une fois en masque hebdomadaire.
+     * Un texte invalide est refusé et les horaires actuels sont conservés.
+     */
+    public boolean setHorairesDisponibilite(String horaires){
+        HorairesHebdomadaires masque = HorairesHebdomadaires.parser(horaires);
+        if (masque == null) {
+            System.err.println("⚠️ Horaires invalides : " + horaires + " (ex: 9h-12h, 14h-18h ou lun-ven 9h-17h / sam 9h-12h)");
+            return false;
+        }
+        this.horairesDisponibilite = Dictionnaire.interner(horaires);
+        this.horaires = masque;
+        return true;
+    }
+
+    /**
+     * Modifie les horaires avec un masque déjà calculé (chargement depuis le fichier)
+     */
+    public void setHorairesDisponibilite(String horaires, HorairesHebdomadaires masque){
+        this.horairesDisponibilite = Dictionnaire.interner(horaires);
+        this.horaires = masque;
     }
 
     /**